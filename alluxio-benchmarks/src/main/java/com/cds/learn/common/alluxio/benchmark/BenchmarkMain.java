@@ -0,0 +1,23 @@
+package com.cds.learn.common.alluxio.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 默认同时测吞吐和延迟分布（SampleTime会给出p50/p90/p99等百分位），并打开GC profiler输出分配速率。
+ * 命令行参数和JMH一样，比如 java -jar target/benchmarks.jar ReadBenchmark -t 4
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+            .mode(Mode.Throughput).mode(Mode.SampleTime).addProfiler(GCProfiler.class).build())
+            .run();
+    }
+}
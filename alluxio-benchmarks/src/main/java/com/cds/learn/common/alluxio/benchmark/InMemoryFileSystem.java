@@ -0,0 +1,359 @@
+package com.cds.learn.common.alluxio.benchmark;
+
+import alluxio.AlluxioURI;
+import alluxio.client.WriteType;
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.FileOutStream;
+import alluxio.client.file.FileSystem;
+import alluxio.client.file.URIStatus;
+import alluxio.client.file.options.CreateDirectoryOptions;
+import alluxio.client.file.options.CreateFileOptions;
+import alluxio.client.file.options.DeleteOptions;
+import alluxio.client.file.options.ExistsOptions;
+import alluxio.client.file.options.FreeOptions;
+import alluxio.client.file.options.GetStatusOptions;
+import alluxio.client.file.options.InStreamOptions;
+import alluxio.client.file.options.ListStatusOptions;
+import alluxio.client.file.options.LoadMetadataOptions;
+import alluxio.client.file.options.MountOptions;
+import alluxio.client.file.options.OpenFileOptions;
+import alluxio.client.file.options.OutStreamOptions;
+import alluxio.client.file.options.RenameOptions;
+import alluxio.client.file.options.SetAttributeOptions;
+import alluxio.client.file.options.UnmountOptions;
+import alluxio.exception.AlluxioException;
+import alluxio.exception.FileAlreadyExistsException;
+import alluxio.exception.FileDoesNotExistException;
+import alluxio.wire.FileInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的FileSystem替身，文件内容放在堆上，不需要master和worker，让benchmark可以离线运行。
+ * 流的实现只覆盖了读写方法，不会触发任何RPC。
+ */
+public class InMemoryFileSystem implements FileSystem {
+
+    private static final long BLOCK_SIZE = 64L * 1024 * 1024;
+
+    private final ConcurrentSkipListMap<String, Node> mNodes = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong mNextId = new AtomicLong();
+
+    public InMemoryFileSystem() {
+        mNodes.put("/", new Node(mNextId.incrementAndGet(), "/", null));
+    }
+
+    /**
+     * 直接放一个文件进去，父目录会被自动创建
+     */
+    public void put(String path, byte[] data) {
+        String normalized = normalize(path);
+        mkdirs(parentOf(normalized));
+        mNodes.put(normalized, new Node(mNextId.incrementAndGet(), normalized, data));
+    }
+
+    @Override public void createDirectory(AlluxioURI path) throws IOException, AlluxioException {
+        createDirectory(path, CreateDirectoryOptions.defaults());
+    }
+
+    @Override public void createDirectory(AlluxioURI path, CreateDirectoryOptions options)
+        throws IOException, AlluxioException {
+        String normalized = path.getPath();
+        if (mNodes.containsKey(normalized)) {
+            throw new FileAlreadyExistsException(normalized);
+        }
+        mkdirs(normalized);
+    }
+
+    @Override public FileOutStream createFile(AlluxioURI path)
+        throws IOException, AlluxioException {
+        return createFile(path, CreateFileOptions.defaults());
+    }
+
+    @Override public FileOutStream createFile(AlluxioURI path, CreateFileOptions options)
+        throws IOException, AlluxioException {
+        if (mNodes.containsKey(path.getPath())) {
+            throw new FileAlreadyExistsException(path.getPath());
+        }
+        return new InMemoryOutStream(path);
+    }
+
+    @Override public void delete(AlluxioURI path) throws IOException, AlluxioException {
+        delete(path, DeleteOptions.defaults());
+    }
+
+    @Override public void delete(AlluxioURI path, DeleteOptions options)
+        throws IOException, AlluxioException {
+        String normalized = path.getPath();
+        if (mNodes.remove(normalized) == null) {
+            throw new FileDoesNotExistException(normalized);
+        }
+        descendants(normalized).clear();
+    }
+
+    @Override public boolean exists(AlluxioURI path) throws IOException, AlluxioException {
+        return mNodes.containsKey(path.getPath());
+    }
+
+    @Override public boolean exists(AlluxioURI path, ExistsOptions options)
+        throws IOException, AlluxioException {
+        return exists(path);
+    }
+
+    @Override public void free(AlluxioURI path) throws IOException, AlluxioException {
+        getNode(path.getPath());
+    }
+
+    @Override public void free(AlluxioURI path, FreeOptions options)
+        throws IOException, AlluxioException {
+        free(path);
+    }
+
+    @Override public URIStatus getStatus(AlluxioURI path) throws IOException, AlluxioException {
+        return getNode(path.getPath()).mStatus;
+    }
+
+    @Override public URIStatus getStatus(AlluxioURI path, GetStatusOptions options)
+        throws IOException, AlluxioException {
+        return getStatus(path);
+    }
+
+    @Override public List<URIStatus> listStatus(AlluxioURI path)
+        throws IOException, AlluxioException {
+        String normalized = path.getPath();
+        Node node = getNode(normalized);
+        List<URIStatus> children = new ArrayList<>();
+        if (node.mData != null) {
+            children.add(node.mStatus);
+            return children;
+        }
+        String prefix = normalized.endsWith("/") ? normalized : normalized + "/";
+        for (Map.Entry<String, Node> entry : descendants(normalized).entrySet()) {
+            if (entry.getKey().indexOf('/', prefix.length()) < 0) {
+                children.add(entry.getValue().mStatus);
+            }
+        }
+        return children;
+    }
+
+    @Override public List<URIStatus> listStatus(AlluxioURI path, ListStatusOptions options)
+        throws IOException, AlluxioException {
+        return listStatus(path);
+    }
+
+    @Override public void loadMetadata(AlluxioURI path) throws IOException, AlluxioException {
+        getNode(path.getPath());
+    }
+
+    @Override public void loadMetadata(AlluxioURI path, LoadMetadataOptions options)
+        throws IOException, AlluxioException {
+        loadMetadata(path);
+    }
+
+    @Override public void mount(AlluxioURI alluxioPath, AlluxioURI ufsPath)
+        throws IOException, AlluxioException {
+        mkdirs(alluxioPath.getPath());
+    }
+
+    @Override public void mount(AlluxioURI alluxioPath, AlluxioURI ufsPath, MountOptions options)
+        throws IOException, AlluxioException {
+        mount(alluxioPath, ufsPath);
+    }
+
+    @Override public FileInStream openFile(AlluxioURI path) throws IOException, AlluxioException {
+        Node node = getNode(path.getPath());
+        if (node.mData == null) {
+            throw new FileDoesNotExistException(path.getPath() + " is a directory");
+        }
+        return new InMemoryInStream(node);
+    }
+
+    @Override public FileInStream openFile(AlluxioURI path, OpenFileOptions options)
+        throws IOException, AlluxioException {
+        return openFile(path);
+    }
+
+    @Override public void rename(AlluxioURI src, AlluxioURI dst)
+        throws IOException, AlluxioException {
+        String from = src.getPath();
+        String to = dst.getPath();
+        Node node = mNodes.remove(from);
+        if (node == null) {
+            throw new FileDoesNotExistException(from);
+        }
+        mNodes.put(to, new Node(node.mId, to, node.mData));
+        ConcurrentNavigableMap<String, Node> children = descendants(from);
+        for (Map.Entry<String, Node> entry : children.entrySet()) {
+            String moved = to + entry.getKey().substring(from.length());
+            mNodes.put(moved, new Node(entry.getValue().mId, moved, entry.getValue().mData));
+        }
+        children.clear();
+    }
+
+    @Override public void rename(AlluxioURI src, AlluxioURI dst, RenameOptions options)
+        throws IOException, AlluxioException {
+        rename(src, dst);
+    }
+
+    @Override public void setAttribute(AlluxioURI path) throws IOException, AlluxioException {
+        getNode(path.getPath());
+    }
+
+    @Override public void setAttribute(AlluxioURI path, SetAttributeOptions options)
+        throws IOException, AlluxioException {
+        setAttribute(path);
+    }
+
+    @Override public void unmount(AlluxioURI path) throws IOException, AlluxioException {
+        delete(path);
+    }
+
+    @Override public void unmount(AlluxioURI path, UnmountOptions options)
+        throws IOException, AlluxioException {
+        unmount(path);
+    }
+
+    private Node getNode(String path) throws FileDoesNotExistException {
+        Node node = mNodes.get(path);
+        if (node == null) {
+            throw new FileDoesNotExistException(path);
+        }
+        return node;
+    }
+
+    private ConcurrentNavigableMap<String, Node> descendants(String path) {
+        String prefix = path.endsWith("/") ? path : path + "/";
+        return mNodes.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void mkdirs(String path) {
+        if (path == null || mNodes.containsKey(path)) {
+            return;
+        }
+        mkdirs(parentOf(path));
+        mNodes.putIfAbsent(path, new Node(mNextId.incrementAndGet(), path, null));
+    }
+
+    private static String normalize(String path) {
+        return new AlluxioURI(path).getPath();
+    }
+
+    private static String parentOf(String path) {
+        int idx = path.lastIndexOf('/');
+        if (idx < 0 || path.length() == 1) {
+            return null;
+        }
+        return idx == 0 ? "/" : path.substring(0, idx);
+    }
+
+    private static final class Node {
+        private final long mId;
+        private final byte[] mData;
+        private final URIStatus mStatus;
+
+        private Node(long id, String path, byte[] data) {
+            mId = id;
+            mData = data;
+            long now = System.currentTimeMillis();
+            mStatus = new URIStatus(new FileInfo().setFileId(id).setPath(path)
+                .setName(path.substring(path.lastIndexOf('/') + 1))
+                .setLength(data == null ? 0 : data.length).setFolder(data == null)
+                .setBlockSizeBytes(BLOCK_SIZE).setCreationTimeMs(now)
+                .setLastModificationTimeMs(now).setInMemoryPercentage(100).setCompleted(true));
+        }
+    }
+
+    private static final class InMemoryInStream extends FileInStream {
+        private final byte[] mData;
+        private int mPos;
+
+        private InMemoryInStream(Node node) {
+            super(node.mStatus, InStreamOptions.defaults());
+            mData = node.mData;
+        }
+
+        @Override public int read() {
+            return mPos < mData.length ? mData[mPos++] & 0xFF : -1;
+        }
+
+        @Override public int read(byte[] b) {
+            return read(b, 0, b.length);
+        }
+
+        @Override public int read(byte[] b, int off, int len) {
+            if (mPos >= mData.length) {
+                return -1;
+            }
+            int n = Math.min(len, mData.length - mPos);
+            System.arraycopy(mData, mPos, b, off, n);
+            mPos += n;
+            return n;
+        }
+
+        @Override public long remaining() {
+            return mData.length - mPos;
+        }
+
+        @Override public void seek(long pos) throws IOException {
+            if (pos < 0 || pos > mData.length) {
+                throw new IOException("seek position out of range: " + pos);
+            }
+            mPos = (int) pos;
+        }
+
+        @Override public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, remaining()));
+            mPos += (int) skipped;
+            return skipped;
+        }
+
+        @Override public void close() {
+        }
+    }
+
+    private final class InMemoryOutStream extends FileOutStream {
+        private final String mPath;
+        private final ByteArrayOutputStream mBuffer = new ByteArrayOutputStream();
+        private boolean mClosed;
+
+        private InMemoryOutStream(AlluxioURI path) throws IOException {
+            // MUST_CACHE不会在构造的时候去创建UFS的文件
+            super(path, OutStreamOptions.defaults().setWriteType(WriteType.MUST_CACHE));
+            mPath = path.getPath();
+        }
+
+        @Override public void write(int b) {
+            mBuffer.write(b);
+        }
+
+        @Override public void write(byte[] b) {
+            mBuffer.write(b, 0, b.length);
+        }
+
+        @Override public void write(byte[] b, int off, int len) {
+            mBuffer.write(b, off, len);
+        }
+
+        @Override public void flush() {
+        }
+
+        @Override public void cancel() {
+            mClosed = true;
+        }
+
+        @Override public void close() {
+            if (!mClosed) {
+                mClosed = true;
+                put(mPath, mBuffer.toByteArray());
+            }
+        }
+    }
+}
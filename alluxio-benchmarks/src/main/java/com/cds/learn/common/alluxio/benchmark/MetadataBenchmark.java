@@ -0,0 +1,50 @@
+package com.cds.learn.common.alluxio.benchmark;
+
+import alluxio.client.file.URIStatus;
+import com.cds.learn.common.alluxio.AlluxioMetadataCache;
+import com.cds.learn.common.alluxio.AlluxioTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * getStatus和listStatus的吞吐，可以对比打开元数据缓存前后的差别
+ */
+@State(Scope.Benchmark) public class MetadataBenchmark {
+
+    private static final String DIR = "/bench/meta";
+
+    @Param({"1000"}) public int mFileCount;
+
+    @Param({"false", "true"}) public boolean mCacheEnabled;
+
+    private AlluxioTemplate mTemplate;
+
+    @Setup public void setup() {
+        InMemoryFileSystem fileSystem = new InMemoryFileSystem();
+        for (int i = 0; i < mFileCount; i++) {
+            fileSystem.put(DIR + "/" + i, new byte[0]);
+        }
+        mTemplate = new AlluxioTemplate(fileSystem);
+        if (mCacheEnabled) {
+            mTemplate.setMetadataCache(new AlluxioMetadataCache(mFileCount * 2, 60000));
+        }
+    }
+
+    @Benchmark public URIStatus getStatus() throws Exception {
+        return mTemplate.getStatus(DIR + "/" + ThreadLocalRandom.current().nextInt(mFileCount));
+    }
+
+    @Benchmark public boolean exists() throws Exception {
+        return mTemplate.exists(DIR + "/" + ThreadLocalRandom.current().nextInt(mFileCount));
+    }
+
+    @Benchmark public List<URIStatus> listStatus() throws Exception {
+        return mTemplate.listStatus(DIR);
+    }
+}
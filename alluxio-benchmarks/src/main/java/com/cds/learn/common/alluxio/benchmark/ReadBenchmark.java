@@ -0,0 +1,62 @@
+package com.cds.learn.common.alluxio.benchmark;
+
+import alluxio.client.file.FileInStream;
+import com.cds.learn.common.alluxio.AlluxioTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 通过openFile的顺序读和随机读
+ */
+@State(Scope.Benchmark) public class ReadBenchmark {
+
+    private static final String PATH = "/bench/read/file";
+
+    @Param({"1048576", "67108864"}) public int mFileSize;
+
+    @Param({"4096", "1048576"}) public int mBufferSize;
+
+    private AlluxioTemplate mTemplate;
+
+    @Setup public void setup() {
+        byte[] data = new byte[mFileSize];
+        new Random(42).nextBytes(data);
+        InMemoryFileSystem fileSystem = new InMemoryFileSystem();
+        fileSystem.put(PATH, data);
+        mTemplate = new AlluxioTemplate(fileSystem);
+    }
+
+    @State(Scope.Thread) public static class Buffer {
+        public byte[] mBytes;
+
+        @Setup public void setup(ReadBenchmark benchmark) {
+            mBytes = new byte[benchmark.mBufferSize];
+        }
+    }
+
+    @Benchmark public long sequentialRead(Buffer buffer) throws Exception {
+        long total = 0;
+        try (FileInStream is = mTemplate.openFile(PATH)) {
+            int bytesRead;
+            while ((bytesRead = is.read(buffer.mBytes)) != -1) {
+                total += bytesRead;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark public void randomRead(Buffer buffer, Blackhole blackhole) throws Exception {
+        try (FileInStream is = mTemplate.openFile(PATH)) {
+            long pos = ThreadLocalRandom.current().nextLong(Math.max(1, mFileSize - mBufferSize));
+            is.seek(pos);
+            blackhole.consume(is.read(buffer.mBytes));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.cds.learn.common.alluxio.benchmark;
+
+import alluxio.client.WriteType;
+import alluxio.client.file.FileOutStream;
+import alluxio.client.file.options.CreateFileOptions;
+import alluxio.client.file.policy.MostAvailableFirstPolicy;
+import alluxio.client.file.policy.SpecificHostPolicy;
+import com.cds.learn.common.alluxio.AlluxioConsts;
+import com.cds.learn.common.alluxio.AlluxioTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通过createFile写文件，覆盖每种WriteType和位置策略，选项的拼法和AlluxioTemplate#getFileOutStream一致
+ */
+@State(Scope.Benchmark) public class WriteBenchmark {
+
+    @Param({"MUST_CACHE", "CACHE_THROUGH", "THROUGH", "ASYNC_THROUGH"}) public WriteType mWriteType;
+
+    @Param({AlluxioConsts.NON_SPECIFIED_WORKER, AlluxioConsts.MOST_AVAILABLE_FIRST, "localhost"})
+    public String mTargetWorker;
+
+    @Param({"1048576"}) public int mFileSize;
+
+    @Param({"65536"}) public int mChunkSize;
+
+    private final AtomicLong mFileId = new AtomicLong();
+
+    private AlluxioTemplate mTemplate;
+
+    private byte[] mChunk;
+
+    @Setup public void setup() {
+        mTemplate = new AlluxioTemplate(new InMemoryFileSystem());
+        mChunk = new byte[mChunkSize];
+        new Random(42).nextBytes(mChunk);
+    }
+
+    @Benchmark public long createAndWrite() throws Exception {
+        CreateFileOptions options = CreateFileOptions.defaults().setWriteType(mWriteType);
+        if (mTargetWorker.equals(AlluxioConsts.MOST_AVAILABLE_FIRST)) {
+            options.setLocationPolicy(new MostAvailableFirstPolicy());
+        } else if (!mTargetWorker.equals(AlluxioConsts.NON_SPECIFIED_WORKER)) {
+            options.setLocationPolicy(new SpecificHostPolicy(mTargetWorker));
+        }
+        String path = "/bench/write/" + mFileId.incrementAndGet();
+        long written = 0;
+        try (FileOutStream os = mTemplate.createFile(path, options)) {
+            while (written < mFileSize) {
+                int len = (int) Math.min(mChunk.length, mFileSize - written);
+                os.write(mChunk, 0, len);
+                written += len;
+            }
+        }
+        mTemplate.delete(path);
+        return written;
+    }
+}
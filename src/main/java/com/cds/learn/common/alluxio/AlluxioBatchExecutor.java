@@ -0,0 +1,115 @@
+package com.cds.learn.common.alluxio;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量操作的执行器：请求通过线程池流水线式地发出，同时在途的请求数受maxInFlight限制，
+ * 幂等的操作遇到IOException按指数退避重试，重试在定时器上排队，不占用工作线程。
+ * delete和rename不是幂等的：第一次其实成功了、只是响应超时的话，重试会报文件不存在，所以不重试。
+ * 重复的路径只执行一次，结果也只有一条。
+ */
+final class AlluxioBatchExecutor {
+
+
+    /**
+     * 对单个路径的操作
+     */
+    interface PathOperation {
+        void apply(String path) throws Exception;
+    }
+
+    private final AlluxioBatchOptions mOptions;
+
+    AlluxioBatchExecutor(AlluxioBatchOptions options) {
+        mOptions = options;
+    }
+
+    /**
+     * @param idempotent 操作是否可以安全地重复执行，为false时不重试
+     */
+    AlluxioBatchResult run(Iterable<String> paths, PathOperation operation, boolean idempotent)
+        throws InterruptedException {
+        int maxRetries = idempotent ? mOptions.getMaxRetries() : 0;
+        AlluxioBatchResult result = new AlluxioBatchResult();
+        Semaphore inFlight = new Semaphore(mOptions.getMaxInFlight());
+        ScheduledThreadPoolExecutor executor =
+            new ScheduledThreadPoolExecutor(mOptions.getParallelism(),
+                AlluxioUtils.daemonThreadFactory("alluxio-batch"));
+        // 结果按路径记录，重复的路径会互相覆盖，所以先去重
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String path : paths) {
+            distinct.add(path);
+        }
+        try {
+            for (String path : distinct) {
+                inFlight.acquire();
+                Runnable first =
+                    () -> attempt(executor, inFlight, result, operation, path, maxRetries, 0);
+                executor.execute(AlluxioIoScheduler.propagate(first));
+            }
+            // 所有请求都完成后才能拿回全部的许可
+            inFlight.acquire(mOptions.getMaxInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    private void attempt(ScheduledThreadPoolExecutor executor, Semaphore inFlight,
+        AlluxioBatchResult result, PathOperation operation, String path, int maxRetries,
+        int retries) {
+        boolean rescheduled = false;
+        try {
+            operation.apply(path);
+            result.addSuccess(path);
+        } catch (IOException e) {
+            if (retries < maxRetries) {
+                rescheduled =
+                    reschedule(executor, inFlight, result, operation, path, maxRetries, retries);
+                if (!rescheduled) {
+                    result.addFailure(path, e);
+                }
+            } else {
+                result.addFailure(path, e);
+            }
+        } catch (Exception e) {
+            result.addFailure(path, e);
+        } catch (Error e) {
+            result.addFailure(path, new ExecutionException(e));
+        } finally {
+            // 许可不还的话run最后的acquire会一直等下去
+            if (!rescheduled) {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * @return 重试是否已经排上，排上之后由重试负责归还许可
+     */
+    private boolean reschedule(ScheduledThreadPoolExecutor executor, Semaphore inFlight,
+        AlluxioBatchResult result, PathOperation operation, String path, int maxRetries,
+        int retries) {
+        Runnable retry =
+            () -> attempt(executor, inFlight, result, operation, path, maxRetries, retries + 1);
+        try {
+            executor.schedule(AlluxioIoScheduler.propagate(retry), backoffMs(retries),
+                TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private long backoffMs(int retries) {
+        long backoff = mOptions.getRetryBaseMs() << Math.min(retries, 30);
+        return Math.min(backoff < 0 ? Long.MAX_VALUE : backoff, mOptions.getRetryMaxMs());
+    }
+}
@@ -0,0 +1,91 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * 批量操作（deleteAll、freeAll、renameAll、setAttributeAll）的参数。
+ */
+public final class AlluxioBatchOptions {
+
+    private int mParallelism = 16;
+
+    private int mMaxInFlight = 64;
+
+    private int mMaxRetries = 3;
+
+    private long mRetryBaseMs = 100;
+
+    private long mRetryMaxMs = 5000;
+
+    public static AlluxioBatchOptions defaults() {
+        return new AlluxioBatchOptions();
+    }
+
+    private AlluxioBatchOptions() {
+    }
+
+    public int getParallelism() {
+        return mParallelism;
+    }
+
+    /**
+     * @param parallelism 工作线程数
+     */
+    public AlluxioBatchOptions setParallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism should be positive!");
+        mParallelism = parallelism;
+        return this;
+    }
+
+    public int getMaxInFlight() {
+        return mMaxInFlight;
+    }
+
+    /**
+     * @param maxInFlight 已经提交但还没完成的请求的最大数目，包括在等待重试的请求
+     */
+    public AlluxioBatchOptions setMaxInFlight(int maxInFlight) {
+        Preconditions.checkArgument(maxInFlight > 0, "maxInFlight should be positive!");
+        mMaxInFlight = maxInFlight;
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return mMaxRetries;
+    }
+
+    /**
+     * @param maxRetries 遇到IOException时的最大重试次数，0表示不重试；delete和rename不是幂等的，总是不重试
+     */
+    public AlluxioBatchOptions setMaxRetries(int maxRetries) {
+        Preconditions.checkArgument(maxRetries >= 0, "maxRetries should not be negative!");
+        mMaxRetries = maxRetries;
+        return this;
+    }
+
+    public long getRetryBaseMs() {
+        return mRetryBaseMs;
+    }
+
+    /**
+     * @param retryBaseMs 第一次重试前的等待时间，之后每次翻倍
+     */
+    public AlluxioBatchOptions setRetryBaseMs(long retryBaseMs) {
+        Preconditions.checkArgument(retryBaseMs >= 0, "retryBaseMs should not be negative!");
+        mRetryBaseMs = retryBaseMs;
+        return this;
+    }
+
+    public long getRetryMaxMs() {
+        return mRetryMaxMs;
+    }
+
+    /**
+     * @param retryMaxMs 两次重试之间的最长等待时间
+     */
+    public AlluxioBatchOptions setRetryMaxMs(long retryMaxMs) {
+        Preconditions.checkArgument(retryMaxMs >= 0, "retryMaxMs should not be negative!");
+        mRetryMaxMs = retryMaxMs;
+        return this;
+    }
+}
@@ -0,0 +1,57 @@
+package com.cds.learn.common.alluxio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量操作的结果，按路径记录成功还是失败，失败的记录最后一次的异常，
+ * 操作抛出的Error包装成ExecutionException记录。
+ */
+public final class AlluxioBatchResult {
+
+    private final List<String> mSucceeded = new ArrayList<>();
+
+    private final Map<String, Exception> mFailed = new LinkedHashMap<>();
+
+    AlluxioBatchResult() {
+    }
+
+    synchronized void addSuccess(String path) {
+        mSucceeded.add(path);
+    }
+
+    synchronized void addFailure(String path, Exception exception) {
+        mFailed.put(path, exception);
+    }
+
+    public synchronized List<String> getSucceeded() {
+        return Collections.unmodifiableList(new ArrayList<>(mSucceeded));
+    }
+
+    /**
+     * @return 失败的路径和对应的异常
+     */
+    public synchronized Map<String, Exception> getFailed() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(mFailed));
+    }
+
+    public synchronized boolean isAllSucceeded() {
+        return mFailed.isEmpty();
+    }
+
+    public synchronized int getSucceededCount() {
+        return mSucceeded.size();
+    }
+
+    public synchronized int getFailedCount() {
+        return mFailed.size();
+    }
+
+    @Override public synchronized String toString() {
+        return "AlluxioBatchResult{succeeded=" + mSucceeded.size() + ", failed=" + mFailed.size()
+            + "}";
+    }
+}
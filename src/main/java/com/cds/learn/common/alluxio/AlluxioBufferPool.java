@@ -0,0 +1,91 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 可复用的ByteBuffer池，按容量和是否direct分桶，避免每次读写都重新分配大数组。
+ * 每个桶最多缓存maxPooledPerSize个buffer，多出来的直接丢给GC。
+ */
+public class AlluxioBufferPool {
+
+    private static final AlluxioBufferPool DEFAULT = new AlluxioBufferPool(64);
+
+    private final int mMaxPooledPerSize;
+
+    private final ConcurrentMap<Long, Bucket> mBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxPooledPerSize 每种容量最多缓存的buffer数
+     */
+    public AlluxioBufferPool(int maxPooledPerSize) {
+        Preconditions
+            .checkArgument(maxPooledPerSize >= 0, "maxPooledPerSize should not be negative!");
+        mMaxPooledPerSize = maxPooledPerSize;
+    }
+
+    /**
+     * @return 进程内共享的默认池
+     */
+    public static AlluxioBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 取一个heap buffer，可以通过array()直接访问底层数组
+     */
+    public ByteBuffer acquire(int size) {
+        return acquire(size, false);
+    }
+
+    /**
+     * 取一个堆外buffer
+     */
+    public ByteBuffer acquireDirect(int size) {
+        return acquire(size, true);
+    }
+
+    private ByteBuffer acquire(int size, boolean direct) {
+        Preconditions.checkArgument(size > 0, "the buffer size should be positive!");
+        Bucket bucket = mBuckets.get(key(size, direct));
+        if (bucket != null) {
+            ByteBuffer buf = bucket.mBuffers.pollFirst();
+            if (buf != null) {
+                bucket.mCount.decrementAndGet();
+                buf.clear();
+                return buf;
+            }
+        }
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    /**
+     * 归还buffer，归还之后调用者不能再使用它
+     */
+    public void release(ByteBuffer buf) {
+        if (buf == null) {
+            return;
+        }
+        Bucket bucket =
+            mBuckets.computeIfAbsent(key(buf.capacity(), buf.isDirect()), k -> new Bucket());
+        if (bucket.mCount.incrementAndGet() > mMaxPooledPerSize) {
+            bucket.mCount.decrementAndGet();
+            return;
+        }
+        bucket.mBuffers.offerFirst(buf);
+    }
+
+    private static long key(int size, boolean direct) {
+        return direct ? -size : size;
+    }
+
+    private static final class Bucket {
+        private final ConcurrentLinkedDeque<ByteBuffer> mBuffers = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger mCount = new AtomicInteger();
+    }
+}
@@ -0,0 +1,265 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileOutStream;
+import alluxio.client.file.options.CreateFileOptions;
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 写缓冲：把很多小的写攒到池化的大buffer里，buffer写满后交给后台线程整块写进FileOutStream。
+ * 等待写出的buffer数有上限，后台线程跟不上时write会阻塞，形成背压。
+ * 不是线程安全的，一个writer只能由一个线程使用。
+ */
+public class AlluxioBufferedWriter implements Closeable {
+
+    /**
+     * 默认每次刷出的大小，可以整除常见的块大小
+     */
+    public static final int DEFAULT_FLUSH_SIZE = 8 * 1024 * 1024;
+
+
+    private static final ByteBuffer FLUSH_MARKER = ByteBuffer.allocate(0);
+
+    private static final ByteBuffer CLOSE_MARKER = ByteBuffer.allocate(0);
+
+    private final AlluxioTemplate mTemplate;
+
+    private final FileOutStream mOutStream;
+
+    private final AlluxioBufferPool mBufferPool;
+
+    private final int mFlushSize;
+
+    private final BlockingQueue<ByteBuffer> mQueue;
+
+    private final BlockingQueue<Object> mFlushed = new ArrayBlockingQueue<>(1);
+
+    private final Thread mFlusher;
+
+    private volatile Throwable mError;
+
+    private ByteBuffer mCurrent;
+
+    private long mPosition;
+
+    private boolean mClosed;
+
+    /**
+     * @param template   用来创建文件的模板
+     * @param path       alluxio 文件路径
+     * @param options    创建文件的参数
+     * @param flushSize  每次刷出的字节数，最好能整除块大小，这样每次写都是块对齐的
+     * @param queueDepth 等待后台写出的buffer数上限
+     * @throws Exception
+     */
+    public AlluxioBufferedWriter(AlluxioTemplate template, String path, CreateFileOptions options,
+        int flushSize, int queueDepth) throws Exception {
+        Preconditions.checkArgument(flushSize > 0, "flushSize should be positive!");
+        Preconditions.checkArgument(queueDepth > 0, "queueDepth should be positive!");
+        mTemplate = template;
+        mBufferPool = template.getBufferPool();
+        mFlushSize = flushSize;
+        mQueue = new ArrayBlockingQueue<>(queueDepth);
+        mOutStream = template.createFile(path, options);
+        mFlusher = AlluxioUtils.daemonThreadFactory("alluxio-writer")
+            .newThread(AlluxioIoScheduler.propagate(this::drain));
+        mFlusher.start();
+    }
+
+    /**
+     * @return 已经写入（不一定已经刷出）的总字节数，也就是下一次写入在文件中的偏移
+     */
+    public long getPosition() {
+        return mPosition;
+    }
+
+    public void write(byte[] bytes) throws IOException {
+        write(bytes, 0, bytes.length);
+    }
+
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        checkOpen();
+        while (len > 0) {
+            if (mCurrent == null) {
+                mCurrent = mBufferPool.acquire(mFlushSize);
+            }
+            int n = Math.min(len, mCurrent.remaining());
+            mCurrent.put(bytes, off, n);
+            off += n;
+            len -= n;
+            mPosition += n;
+            if (!mCurrent.hasRemaining()) {
+                handOff();
+            }
+        }
+    }
+
+    public void write(ByteBuffer src) throws IOException {
+        checkOpen();
+        while (src.hasRemaining()) {
+            if (mCurrent == null) {
+                mCurrent = mBufferPool.acquire(mFlushSize);
+            }
+            int n = Math.min(src.remaining(), mCurrent.remaining());
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + n);
+            mCurrent.put(slice);
+            src.position(src.position() + n);
+            mPosition += n;
+            if (!mCurrent.hasRemaining()) {
+                handOff();
+            }
+        }
+    }
+
+    /**
+     * 把已经攒下的数据都交给后台线程，并等它们写进FileOutStream
+     */
+    public void flush() throws IOException {
+        checkOpen();
+        if (mCurrent != null && mCurrent.position() > 0) {
+            handOff();
+        }
+        enqueue(FLUSH_MARKER);
+        awaitFlushed();
+        mOutStream.flush();
+    }
+
+    @Override public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        try {
+            if (mCurrent != null && mCurrent.position() > 0) {
+                handOff();
+            }
+            enqueue(CLOSE_MARKER);
+            awaitFlushed();
+        } catch (IOException e) {
+            // 数据不完整，不能让它变成一个看起来正常的文件；cancel会先等后台线程退出
+            try {
+                cancel();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        mClosed = true;
+        mOutStream.close();
+    }
+
+    /**
+     * 放弃这个文件：停掉后台线程，丢掉还没写出的数据并归还buffer，取消底层的流
+     */
+    public void cancel() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        stopFlusher();
+        ByteBuffer buf;
+        while ((buf = mQueue.poll()) != null) {
+            if (buf != FLUSH_MARKER && buf != CLOSE_MARKER) {
+                mBufferPool.release(buf);
+            }
+        }
+        if (mCurrent != null) {
+            mBufferPool.release(mCurrent);
+            mCurrent = null;
+        }
+        mOutStream.cancel();
+    }
+
+    /**
+     * 中断后台线程并等它退出，之后底层的流只会被当前线程使用。调用者被中断时也要等到底
+     */
+    private void stopFlusher() {
+        mFlusher.interrupt();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                mFlusher.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handOff() throws IOException {
+        ByteBuffer full = mCurrent;
+        mCurrent = null;
+        full.flip();
+        enqueue(full);
+    }
+
+    private void enqueue(ByteBuffer buf) throws IOException {
+        try {
+            mQueue.put(buf);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the alluxio writer");
+        }
+        checkError();
+    }
+
+    private void awaitFlushed() throws IOException {
+        try {
+            mFlushed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the alluxio writer");
+        }
+        checkError();
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                ByteBuffer buf = mQueue.take();
+                if (buf == FLUSH_MARKER || buf == CLOSE_MARKER) {
+                    mFlushed.put(buf);
+                    if (buf == CLOSE_MARKER) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    if (mError == null) {
+                        mOutStream.write(buf.array(), buf.arrayOffset(), buf.limit());
+                        mTemplate.recordBytesWritten(buf.limit());
+                    }
+                } catch (IOException | RuntimeException | Error e) {
+                    // 后台线程不能就这样退出，否则flush和close会一直等下去
+                    mError = e;
+                } finally {
+                    mBufferPool.release(buf);
+                }
+            }
+        } catch (InterruptedException e) {
+            // close的时候会中断后台线程
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (mClosed) {
+            throw new IOException("the alluxio writer is closed");
+        }
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        if (mError != null) {
+            throw new IOException("background write to alluxio failed", mError);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cds.learn.common.alluxio;
+
+import java.io.IOException;
+
+/**
+ * 读到文件末尾时算出的摘要和保存的摘要不一致
+ *
+ * @see AlluxioChecksumInputStream
+ */
+public class AlluxioChecksumException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AlluxioChecksumException(String message) {
+        super(message);
+    }
+}
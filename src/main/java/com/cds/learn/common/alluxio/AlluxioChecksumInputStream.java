@@ -0,0 +1,111 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Checksum;
+
+/**
+ * 边读边算校验和：数据读进调用者的数组之后就地更新校验和，不做任何拷贝。
+ * 有保存的摘要时，读到文件末尾会比较长度和校验和，不一致抛AlluxioChecksumException；
+ * 按长度读完没有读到-1的，在close时校验。中途skip过的流算不出整个文件的摘要，不再校验。
+ * 不是线程安全的。
+ *
+ * @see AlluxioTemplate#openFileWithChecksum
+ */
+public class AlluxioChecksumInputStream extends InputStream {
+
+    private final AlluxioTemplate mTemplate;
+
+    private final String mPath;
+
+    private final FileInStream mInStream;
+
+    private final AlluxioChecksumType mType;
+
+    private final Checksum mChecksum;
+
+    private final AlluxioDigest mExpected;
+
+    private long mBytesRead;
+
+    private boolean mSkipped;
+
+    private boolean mVerified;
+
+    /**
+     * @param expected 保存的摘要，为null时只计算不校验
+     */
+    AlluxioChecksumInputStream(AlluxioTemplate template, String path, FileInStream inStream,
+        AlluxioChecksumType type, AlluxioDigest expected) {
+        mTemplate = template;
+        mPath = path;
+        mInStream = inStream;
+        mType = type;
+        mChecksum = type.create();
+        mExpected = expected;
+    }
+
+    @Override public int read() throws IOException {
+        int b = mInStream.read();
+        if (b == -1) {
+            verify();
+        } else {
+            mChecksum.update(b);
+            mBytesRead++;
+            mTemplate.recordBytesRead(1);
+        }
+        return b;
+    }
+
+    @Override public int read(byte[] b, int off, int len) throws IOException {
+        int n = mInStream.read(b, off, len);
+        if (n == -1) {
+            verify();
+        } else if (n > 0) {
+            mChecksum.update(b, off, n);
+            mBytesRead += n;
+            mTemplate.recordBytesRead(n);
+        }
+        return n;
+    }
+
+    @Override public long skip(long n) throws IOException {
+        long skipped = mInStream.skip(n);
+        if (skipped > 0) {
+            mSkipped = true;
+        }
+        return skipped;
+    }
+
+    @Override public void close() throws IOException {
+        mInStream.close();
+        if (mExpected != null && mBytesRead == mExpected.getLength()) {
+            verify();
+        }
+    }
+
+    private void verify() throws AlluxioChecksumException {
+        if (mVerified || mExpected == null || mSkipped) {
+            return;
+        }
+        mVerified = true;
+        AlluxioDigest actual = getDigest();
+        if (!actual.equals(mExpected)) {
+            throw new AlluxioChecksumException(
+                "checksum mismatch for " + mPath + ": expected " + mExpected + ", got " + actual);
+        }
+    }
+
+    /**
+     * @return 已经读到的数据的摘要，读到末尾之后就是整个文件的摘要
+     */
+    public AlluxioDigest getDigest() {
+        return new AlluxioDigest(mType, mChecksum.getValue(), mBytesRead);
+    }
+
+    public long getBytesRead() {
+        return mBytesRead;
+    }
+}
@@ -0,0 +1,104 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.WriteType;
+import alluxio.client.file.FileOutStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * 边写边算校验和：调用者的数组直接交给校验和和FileOutStream，不做任何拷贝。
+ * close时先关闭数据文件，再把摘要写到旁边的摘要文件里；cancel时两者都不会留下。
+ * 不是线程安全的。
+ *
+ * @see AlluxioTemplate#createFileWithChecksum
+ */
+public class AlluxioChecksumOutputStream extends OutputStream {
+
+    private final AlluxioTemplate mTemplate;
+
+    private final String mPath;
+
+    private final FileOutStream mOutStream;
+
+    private final AlluxioChecksumType mType;
+
+    private final Checksum mChecksum;
+
+    private final WriteType mWriteType;
+
+    private long mLength;
+
+    private AlluxioDigest mDigest;
+
+    private boolean mClosed;
+
+    AlluxioChecksumOutputStream(AlluxioTemplate template, String path, FileOutStream outStream,
+        AlluxioChecksumType type, WriteType writeType) {
+        mTemplate = template;
+        mPath = path;
+        mOutStream = outStream;
+        mType = type;
+        mChecksum = type.create();
+        mWriteType = writeType;
+    }
+
+    @Override public void write(int b) throws IOException {
+        mOutStream.write(b);
+        mChecksum.update(b);
+        mLength++;
+        mTemplate.recordBytesWritten(1);
+    }
+
+    @Override public void write(byte[] b, int off, int len) throws IOException {
+        mOutStream.write(b, off, len);
+        mChecksum.update(b, off, len);
+        mLength += len;
+        mTemplate.recordBytesWritten(len);
+    }
+
+    @Override public void flush() throws IOException {
+        mOutStream.flush();
+    }
+
+    /**
+     * 放弃这个文件，不会写摘要
+     */
+    public void cancel() throws IOException {
+        if (!mClosed) {
+            mClosed = true;
+            mOutStream.cancel();
+        }
+    }
+
+    @Override public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        mOutStream.close();
+        mDigest = new AlluxioDigest(mType, mChecksum.getValue(), mLength);
+        try {
+            mDigest.write(mTemplate, mPath, mWriteType);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("failed to write the digest of " + mPath, e);
+        }
+    }
+
+    /**
+     * @return 到目前为止写入的字节数
+     */
+    public long getLength() {
+        return mLength;
+    }
+
+    /**
+     * @return 关闭之后的摘要，关闭之前为null
+     */
+    public AlluxioDigest getDigest() {
+        return mDigest;
+    }
+}
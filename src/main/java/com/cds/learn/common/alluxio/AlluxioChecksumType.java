@@ -0,0 +1,27 @@
+package com.cds.learn.common.alluxio;
+
+import java.util.zip.Checksum;
+
+/**
+ * 支持的校验和算法
+ */
+public enum AlluxioChecksumType {
+    /**
+     * 32位CRC，Castagnoli多项式
+     */
+    CRC32C {
+        @Override public Checksum create() {
+            return new AlluxioCrc32c();
+        }
+    },
+    /**
+     * 64位xxHash，种子为0
+     */
+    XXHASH64 {
+        @Override public Checksum create() {
+            return new AlluxioXxHash64();
+        }
+    };
+
+    public abstract Checksum create();
+}
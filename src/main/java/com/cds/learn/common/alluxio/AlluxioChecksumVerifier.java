@@ -0,0 +1,78 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.URIStatus;
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * 并行校验一棵目录树：每个有摘要文件的文件都重新读一遍，算出摘要和保存的比较。
+ * 读的时候不经过客户端本地缓存，校验的是alluxio实际返回的数据。
+ */
+public class AlluxioChecksumVerifier {
+
+    private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private final AlluxioTemplate mTemplate;
+
+    private final int mParallelism;
+
+    /**
+     * @param template    用来读文件的模板
+     * @param parallelism 同时校验的文件数，也是遍历时同时进行的listStatus的最大数目
+     */
+    public AlluxioChecksumVerifier(AlluxioTemplate template, int parallelism) {
+        Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        Preconditions.checkArgument(parallelism > 0, "parallelism should be positive!");
+        mTemplate = template;
+        mParallelism = parallelism;
+    }
+
+    /**
+     * @param path 文件或者目录
+     * @return 校验通过、不一致和没有摘要的文件
+     * @throws Exception 读文件或者遍历出错，不一致不算出错
+     */
+    public AlluxioVerifyResult verify(String path) throws Exception {
+        AlluxioVerifyResult result = new AlluxioVerifyResult();
+        new AlluxioTreeProcessor(mTemplate, mParallelism, mParallelism, "alluxio-verify")
+            .run(path, (status, depth) -> {
+                if (status.isFolder() || AlluxioDigest.isSidecar(status.getPath())) {
+                    return null;
+                }
+                return () -> verifyFile(status, result);
+            });
+        return result;
+    }
+
+    private void verifyFile(URIStatus status, AlluxioVerifyResult result) throws Exception {
+        String path = status.getPath();
+        AlluxioDigest expected = AlluxioDigest.read(mTemplate, path);
+        if (expected == null) {
+            result.missing(path);
+            return;
+        }
+        Checksum checksum = expected.getType().create();
+        AlluxioBufferPool pool = mTemplate.getBufferPool();
+        ByteBuffer buf = pool.acquire(BUFFER_SIZE);
+        long length = 0;
+        try (FileInStream is = mTemplate.openFile(path)) {
+            byte[] bytes = buf.array();
+            int n;
+            while ((n = is.read(bytes, 0, bytes.length)) != -1) {
+                checksum.update(bytes, 0, n);
+                length += n;
+                mTemplate.recordBytesRead(n);
+            }
+        } finally {
+            pool.release(buf);
+        }
+        if (expected.equals(new AlluxioDigest(expected.getType(), checksum.getValue(), length))) {
+            result.verified(length);
+        } else {
+            result.mismatched(path);
+        }
+    }
+}
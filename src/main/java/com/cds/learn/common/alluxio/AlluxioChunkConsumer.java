@@ -0,0 +1,15 @@
+package com.cds.learn.common.alluxio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 流式读取时的回调，每读到一块数据调用一次。
+ * chunk来自buffer池，只在回调期间有效，需要保留数据时要自己拷贝。
+ */
+public interface AlluxioChunkConsumer {
+    /**
+     * @param chunk  position到limit之间是这次读到的数据
+     * @param offset 这块数据在文件中的起始偏移
+     */
+    void accept(ByteBuffer chunk, long offset) throws Exception;
+}
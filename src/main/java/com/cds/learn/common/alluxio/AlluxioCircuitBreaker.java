@@ -0,0 +1,95 @@
+package com.cds.learn.common.alluxio;
+
+/**
+ * 熔断器：连续failureThreshold次可重试的失败后打开，openMs之内的请求直接失败，不再压向master；
+ * 之后放一个请求过去试探，成功就恢复，失败就继续熔断。
+ */
+public class AlluxioCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int mFailureThreshold;
+
+    private final long mOpenNanos;
+
+    private State mState = State.CLOSED;
+
+    private int mConsecutiveFailures;
+
+    private long mOpenedAt;
+
+    private long mRejected;
+
+    /**
+     * @param failureThreshold 连续失败多少次后打开，0表示永远不打开
+     * @param openMs           打开后持续的时间
+     */
+    public AlluxioCircuitBreaker(int failureThreshold, long openMs) {
+        mFailureThreshold = failureThreshold;
+        mOpenNanos = openMs * 1000000L;
+    }
+
+    /**
+     * 请求发出前调用
+     *
+     * @throws AlluxioCircuitOpenException 熔断中，或者已经有一个试探请求在途
+     */
+    public synchronized void acquire(String operation) throws AlluxioCircuitOpenException {
+        if (mState == State.CLOSED) {
+            return;
+        }
+        if (mState == State.OPEN && System.nanoTime() - mOpenedAt >= mOpenNanos) {
+            mState = State.HALF_OPEN;
+            return;
+        }
+        mRejected++;
+        throw new AlluxioCircuitOpenException(
+            "the alluxio circuit breaker is " + mState + ", rejecting " + operation);
+    }
+
+    public synchronized void onSuccess() {
+        mConsecutiveFailures = 0;
+        mState = State.CLOSED;
+    }
+
+    /**
+     * @param exception 请求失败的原因，只有可重试的异常才算master不可用
+     */
+    public synchronized void onFailure(Exception exception) {
+        if (!AlluxioUtils.isRetryable(exception)) {
+            // master能给出确定的答复，说明它是正常的
+            onSuccess();
+            return;
+        }
+        mConsecutiveFailures++;
+        if (mState == State.HALF_OPEN
+            || (mFailureThreshold > 0 && mConsecutiveFailures >= mFailureThreshold)) {
+            mState = State.OPEN;
+            mOpenedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * 请求以Error结束，说明不了master是否正常，只是不能让试探请求就这样丢掉：
+     * 否则熔断器会一直停在HALF_OPEN，拒绝之后所有的请求
+     */
+    public synchronized void onAborted() {
+        if (mState == State.HALF_OPEN) {
+            mState = State.OPEN;
+            mOpenedAt = System.nanoTime();
+        }
+    }
+
+    public synchronized State getState() {
+        return mState;
+    }
+
+    /**
+     * @return 因为熔断被直接拒绝的请求数
+     */
+    public synchronized long getRejected() {
+        return mRejected;
+    }
+}
@@ -0,0 +1,17 @@
+package com.cds.learn.common.alluxio;
+
+import java.io.IOException;
+
+/**
+ * 熔断期间直接拒绝请求时抛出，不会再被重试
+ *
+ * @see AlluxioCircuitBreaker
+ */
+public class AlluxioCircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AlluxioCircuitOpenException(String message) {
+        super(message);
+    }
+}
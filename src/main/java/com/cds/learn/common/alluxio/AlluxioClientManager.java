@@ -0,0 +1,155 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.AlluxioURI;
+import alluxio.Constants;
+import alluxio.client.ClientContext;
+import alluxio.client.file.FileSystem;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按master地址管理FileSystem客户端：第一次用到时才创建，之后一直复用，
+ * 同一个master的模板可以随便创建，不用每次都重新初始化。支持预热和健康检查。
+ * <p>
+ * 默认的工厂基于全局的ClientContext，同一时间只能指向一个master，evict之后才能换到别的master，
+ * 需要同时连多个集群时要传入能为每个master创建独立客户端的工厂。
+ */
+public class AlluxioClientManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlluxioClientManager.class);
+
+    private static final AlluxioClientManager DEFAULT =
+        new AlluxioClientManager(new GlobalContextFactory());
+
+    /**
+     * 为一个master创建FileSystem客户端
+     */
+    public interface Factory {
+        FileSystem create(AlluxioURI master) throws Exception;
+
+        /**
+         * @return 缓存客户端用的key，地址不同但key相同的master共用一个客户端
+         */
+        default String keyOf(AlluxioURI master) {
+            return master.getHost() + ":" + master.getPort();
+        }
+
+        /**
+         * 这个master的客户端被evict之后调用，可以释放为它准备的资源
+         */
+        default void release(AlluxioURI master) {
+        }
+    }
+
+    private final Factory mFactory;
+
+    private final ConcurrentMap<String, FileSystem> mClients = new ConcurrentHashMap<>();
+
+    public AlluxioClientManager(Factory factory) {
+        mFactory = Preconditions.checkNotNull(factory, "the client factory should not be null!");
+    }
+
+    /**
+     * @return 基于全局ClientContext的默认管理器
+     */
+    public static AlluxioClientManager getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param masterLocation 比如alluxio://localhost:19999
+     * @return 这个master对应的客户端，没有的话就创建一个
+     */
+    public FileSystem getFileSystem(String masterLocation) {
+        AlluxioURI master = new AlluxioURI(masterLocation);
+        return mClients.computeIfAbsent(mFactory.keyOf(master), key -> {
+            try {
+                return mFactory.create(master);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("failed to create client for " + key, e);
+            }
+        });
+    }
+
+    /**
+     * @return 使用共享客户端的模板
+     */
+    public AlluxioTemplate getTemplate(String masterLocation) {
+        return new AlluxioTemplate(getFileSystem(masterLocation));
+    }
+
+    /**
+     * 提前创建客户端并做一次健康检查，让后面第一次真正的调用不用付初始化的代价
+     *
+     * @throws Exception 客户端创建失败或者master不可用
+     */
+    public void warmUp(String masterLocation) throws Exception {
+        getFileSystem(masterLocation).exists(new AlluxioURI("/"));
+    }
+
+    /**
+     * @return master能否正常响应一次元数据请求
+     */
+    public boolean isHealthy(String masterLocation) {
+        try {
+            warmUp(masterLocation);
+            return true;
+        } catch (Exception e) {
+            LOG.warn("health check of " + masterLocation + " failed", e);
+            return false;
+        }
+    }
+
+    /**
+     * 丢掉一个master的客户端，下次用到时重新创建
+     */
+    public void evict(String masterLocation) {
+        AlluxioURI master = new AlluxioURI(masterLocation);
+        if (mClients.remove(mFactory.keyOf(master)) != null) {
+            mFactory.release(master);
+        }
+    }
+
+    /**
+     * 基于全局ClientContext的工厂。绑定一个master之后如果要连别的master就报错，而不是悄悄地把
+     * 已有的客户端也切换过去；这个master的客户端被evict之后才能重新绑定。
+     * ClientContext里只设置了主机名，所以只按主机名缓存客户端
+     */
+    private static final class GlobalContextFactory implements Factory {
+        private String mHost;
+
+        @Override public String keyOf(AlluxioURI master) {
+            return master.getHost();
+        }
+
+        @Override public synchronized void release(AlluxioURI master) {
+            if (master.getHost().equals(mHost)) {
+                mHost = null;
+            }
+        }
+
+        @Override public synchronized FileSystem create(AlluxioURI master) {
+            String host = master.getHost();
+            if (mHost == null) {
+                ClientContext.getConf().set(Constants.MASTER_HOSTNAME, host);
+                ClientContext.init();
+                mHost = host;
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Connecting to Master..." + ClientContext.getMasterAddress());
+                }
+            } else if (!mHost.equals(host)) {
+                throw new IllegalStateException(
+                    "the global alluxio client context is already bound to " + mHost
+                        + ", evict it first or use an AlluxioClientManager with a per-master"
+                        + " factory for " + host);
+            }
+            return FileSystem.Factory.get();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.block.BlockWorkerInfo;
+import alluxio.client.file.policy.FileWriteLocationPolicy;
+import alluxio.wire.WorkerNetAddress;
+import com.google.common.base.Preconditions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希放置：按路径（或者所在目录）哈希到worker环上，同一个文件的块都写到同一个worker，
+ * 按目录哈希时同一个目录下的文件也会放在一起。worker增减时只有一小部分路径会换位置。
+ * 放不下一个块的worker不在环上，落在它上面的路径会顺延到环上的下一个worker。
+ * 环只在worker列表变化时重建，每个块只需要比较一次worker列表。
+ */
+public class AlluxioConsistentHashPlacement implements AlluxioPlacementPolicy {
+
+    private final int mVirtualNodes;
+
+    private final boolean mByParent;
+
+    private volatile Ring mRing;
+
+    /**
+     * @param virtualNodes 每个worker在环上的虚拟节点数，越多分布越均匀
+     * @param byParent     为true时按文件所在的目录哈希，让相关的文件放在一起
+     */
+    public AlluxioConsistentHashPlacement(int virtualNodes, boolean byParent) {
+        Preconditions.checkArgument(virtualNodes > 0, "virtualNodes should be positive!");
+        mVirtualNodes = virtualNodes;
+        mByParent = byParent;
+    }
+
+    @Override public FileWriteLocationPolicy policyFor(String path) {
+        String key = path;
+        if (mByParent) {
+            int slash = path.lastIndexOf('/');
+            key = slash <= 0 ? "/" : path.substring(0, slash);
+        }
+        long hash = hash(key);
+        return (workers, blockSizeBytes) -> locate(hash, workers, blockSizeBytes);
+    }
+
+    private WorkerNetAddress locate(long hash, Iterable<BlockWorkerInfo> workers,
+        long blockSizeBytes) {
+        List<String> keys = new ArrayList<>();
+        Map<String, BlockWorkerInfo> candidates = new HashMap<>();
+        for (BlockWorkerInfo worker : workers) {
+            String key = AlluxioRoundRobinPlacement.keyOf(worker);
+            keys.add(key);
+            if (AlluxioRoundRobinPlacement.fits(worker, blockSizeBytes)) {
+                candidates.put(key, worker);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Collections.sort(keys);
+        Ring ring = mRing;
+        if (ring == null || !ring.mWorkers.equals(keys)) {
+            ring = new Ring(keys, mVirtualNodes);
+            mRing = ring;
+        }
+        // 跳过放不下的worker，和把它从环上拿掉的结果一样
+        for (String key : ring.mNodes.tailMap(hash).values()) {
+            BlockWorkerInfo worker = candidates.get(key);
+            if (worker != null) {
+                return worker.getNetAddress();
+            }
+        }
+        for (String key : ring.mNodes.headMap(hash).values()) {
+            BlockWorkerInfo worker = candidates.get(key);
+            if (worker != null) {
+                return worker.getNetAddress();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * FNV-1a再加上murmur3的fmix64，短字符串也能散得比较开
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 按排好序的worker列表建好的环，建好之后不再修改
+     */
+    private static final class Ring {
+
+        private final List<String> mWorkers;
+
+        private final TreeMap<Long, String> mNodes = new TreeMap<>();
+
+        Ring(List<String> workers, int virtualNodes) {
+            mWorkers = workers;
+            for (String key : workers) {
+                for (int i = 0; i < virtualNodes; i++) {
+                    mNodes.put(hash(key + "#" + i), key);
+                }
+            }
+        }
+    }
+}
@@ -11,4 +11,6 @@ public class AlluxioConsts {
 
     public static final String ALLUXIO_PREFIX = "alluxio://";
 
+    public static final int DEFAULT_READ_BUFFER_SIZE = 1024 * 1024;
+
 }
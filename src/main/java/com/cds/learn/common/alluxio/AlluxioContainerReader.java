@@ -0,0 +1,91 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.URIStatus;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 读取AlluxioContainerWriter写出的容器文件，打开时读一次索引，之后按名字seek读取。
+ * 不是线程安全的。
+ */
+public class AlluxioContainerReader implements Closeable {
+
+    private final FileInStream mInStream;
+
+    private final Map<String, long[]> mIndex = new LinkedHashMap<>();
+
+    public AlluxioContainerReader(AlluxioTemplate template, String path) throws Exception {
+        URIStatus status = template.getStatus(path);
+        mInStream = template.openFile(path);
+        try {
+            readIndex(status.getLength());
+        } catch (IOException | RuntimeException e) {
+            mInStream.close();
+            throw e;
+        }
+    }
+
+    private void readIndex(long length) throws IOException {
+        if (length < AlluxioContainerWriter.FOOTER_SIZE) {
+            throw new IOException("not an alluxio container file, length " + length);
+        }
+        mInStream.seek(length - AlluxioContainerWriter.FOOTER_SIZE);
+        byte[] footerBytes = new byte[AlluxioContainerWriter.FOOTER_SIZE];
+        readFully(mInStream, footerBytes, 0, footerBytes.length);
+        ByteBuffer footer = ByteBuffer.wrap(footerBytes);
+        long indexOffset = footer.getLong();
+        int entries = footer.getInt();
+        if (footer.getInt() != AlluxioContainerWriter.MAGIC) {
+            throw new IOException("not an alluxio container file, bad magic");
+        }
+        mInStream.seek(indexOffset);
+        DataInputStream in = new DataInputStream(mInStream);
+        for (int i = 0; i < entries; i++) {
+            byte[] name = new byte[in.readInt()];
+            in.readFully(name);
+            mIndex.put(new String(name, StandardCharsets.UTF_8),
+                new long[] {in.readLong(), in.readLong()});
+        }
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(mIndex.keySet());
+    }
+
+    public boolean contains(String name) {
+        return mIndex.containsKey(name);
+    }
+
+    /**
+     * @return 逻辑文件的内容，不存在时返回null
+     */
+    public byte[] read(String name) throws IOException {
+        long[] entry = mIndex.get(name);
+        if (entry == null) {
+            return null;
+        }
+        byte[] data = new byte[(int) entry[1]];
+        mInStream.seek(entry[0]);
+        readFully(mInStream, data, 0, data.length);
+        return data;
+    }
+
+    private static void readFully(InputStream in, byte[] bytes, int off, int len)
+        throws IOException {
+        new DataInputStream(in).readFully(bytes, off, len);
+    }
+
+    @Override public void close() throws IOException {
+        mInStream.close();
+    }
+}
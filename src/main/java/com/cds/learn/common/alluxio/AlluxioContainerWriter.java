@@ -0,0 +1,96 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.options.CreateFileOptions;
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 把很多小的逻辑文件打包写进一个容器文件，省掉每个小文件一次创建的开销。
+ * 数据通过AlluxioBufferedWriter顺序写出，关闭时在末尾追加索引和固定长度的尾部：
+ * <pre>
+ * [数据...][索引: (名字长度 int, 名字 utf-8, 偏移 long, 长度 long) * n][索引偏移 long][条目数 int][魔数 int]
+ * </pre>
+ *
+ * @see AlluxioContainerReader
+ */
+public class AlluxioContainerWriter implements Closeable {
+
+    static final int MAGIC = 0x414c5843;
+
+    static final int FOOTER_SIZE = 8 + 4 + 4;
+
+    private final AlluxioBufferedWriter mWriter;
+
+    private final Map<String, long[]> mIndex = new LinkedHashMap<>();
+
+    private boolean mClosed;
+
+    public AlluxioContainerWriter(AlluxioTemplate template, String path, CreateFileOptions options)
+        throws Exception {
+        mWriter = new AlluxioBufferedWriter(template, path, options,
+            AlluxioBufferedWriter.DEFAULT_FLUSH_SIZE, 4);
+    }
+
+    /**
+     * 追加一个逻辑文件
+     *
+     * @param name 逻辑文件名，在容器里必须唯一
+     * @param data 文件内容
+     */
+    public void add(String name, byte[] data) throws IOException {
+        add(name, data, 0, data.length);
+    }
+
+    public void add(String name, byte[] data, int off, int len) throws IOException {
+        Preconditions.checkState(!mClosed, "the container is closed");
+        Preconditions.checkArgument(!mIndex.containsKey(name), "duplicate entry %s", name);
+        mIndex.put(name, new long[] {mWriter.getPosition(), len});
+        mWriter.write(data, off, len);
+    }
+
+    public int size() {
+        return mIndex.size();
+    }
+
+    @Override public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        try {
+            writeIndex();
+        } catch (IOException | RuntimeException e) {
+            // 没有索引的容器读不出来，不能让它变成一个看起来正常的文件
+            try {
+                mWriter.cancel();
+            } catch (IOException cancelFailure) {
+                e.addSuppressed(cancelFailure);
+            }
+            throw e;
+        }
+        mWriter.close();
+    }
+
+    private void writeIndex() throws IOException {
+        long indexOffset = mWriter.getPosition();
+        ByteBuffer entry = ByteBuffer.allocate(1024);
+        for (Map.Entry<String, long[]> e : mIndex.entrySet()) {
+            byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+            if (entry.capacity() < name.length + 20) {
+                entry = ByteBuffer.allocate(name.length + 20);
+            }
+            entry.clear();
+            entry.putInt(name.length).put(name).putLong(e.getValue()[0]).putLong(e.getValue()[1]);
+            mWriter.write(entry.array(), 0, entry.position());
+        }
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        footer.putLong(indexOffset).putInt(mIndex.size()).putInt(MAGIC);
+        mWriter.write(footer.array());
+    }
+}
@@ -0,0 +1,68 @@
+package com.cds.learn.common.alluxio;
+
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C（Castagnoli多项式），和HDFS、ext4、iSCSI用的是同一种。Java 8的java.util.zip里没有，
+ * 这里用slice-by-8查表实现，每次处理8个字节。
+ */
+public final class AlluxioCrc32c implements Checksum {
+
+    private static final int POLY = 0x82F63B78;
+
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int k = 0; k < 8; k++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLY : crc >>> 1;
+            }
+            TABLES[0][i] = crc;
+        }
+        for (int i = 0; i < 256; i++) {
+            for (int t = 1; t < 8; t++) {
+                int prev = TABLES[t - 1][i];
+                TABLES[t][i] = (prev >>> 8) ^ TABLES[0][prev & 0xff];
+            }
+        }
+    }
+
+    private int mCrc = 0xffffffff;
+
+    @Override public void update(int b) {
+        mCrc = (mCrc >>> 8) ^ TABLES[0][(mCrc ^ b) & 0xff];
+    }
+
+    @Override public void update(byte[] b, int off, int len) {
+        int crc = mCrc;
+        int[] t0 = TABLES[0];
+        int[] t1 = TABLES[1];
+        int[] t2 = TABLES[2];
+        int[] t3 = TABLES[3];
+        int[] t4 = TABLES[4];
+        int[] t5 = TABLES[5];
+        int[] t6 = TABLES[6];
+        int[] t7 = TABLES[7];
+        int end = off + len;
+        for (; off + 8 <= end; off += 8) {
+            int lo = crc ^ ((b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16
+                | (b[off + 3] & 0xff) << 24);
+            crc = t7[lo & 0xff] ^ t6[(lo >>> 8) & 0xff] ^ t5[(lo >>> 16) & 0xff] ^ t4[lo >>> 24]
+                ^ t3[b[off + 4] & 0xff] ^ t2[b[off + 5] & 0xff] ^ t1[b[off + 6] & 0xff]
+                ^ t0[b[off + 7] & 0xff];
+        }
+        for (; off < end; off++) {
+            crc = (crc >>> 8) ^ t0[(crc ^ b[off]) & 0xff];
+        }
+        mCrc = crc;
+    }
+
+    @Override public long getValue() {
+        return (~mCrc) & 0xffffffffL;
+    }
+
+    @Override public void reset() {
+        mCrc = 0xffffffff;
+    }
+}
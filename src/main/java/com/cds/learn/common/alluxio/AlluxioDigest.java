@@ -0,0 +1,124 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.WriteType;
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.FileOutStream;
+import alluxio.client.file.options.CreateFileOptions;
+import alluxio.exception.FileDoesNotExistException;
+import com.google.common.base.Preconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 一个文件的摘要：算法、校验和的值和文件长度。alluxio 1.0的文件没有扩展属性，
+ * 摘要存在同目录下的一个小文件里，名字是原文件名加上SIDECAR_SUFFIX，内容是一行
+ * “算法 十六进制值 长度”。
+ */
+public final class AlluxioDigest {
+
+    public static final String SIDECAR_SUFFIX = ".checksum";
+
+    private final AlluxioChecksumType mType;
+
+    private final long mValue;
+
+    private final long mLength;
+
+    public AlluxioDigest(AlluxioChecksumType type, long value, long length) {
+        mType = Preconditions.checkNotNull(type, "the checksum type should not be null!");
+        mValue = value;
+        mLength = length;
+    }
+
+    public AlluxioChecksumType getType() {
+        return mType;
+    }
+
+    public long getValue() {
+        return mValue;
+    }
+
+    public long getLength() {
+        return mLength;
+    }
+
+    public static String sidecarOf(String path) {
+        return path + SIDECAR_SUFFIX;
+    }
+
+    public static boolean isSidecar(String path) {
+        return path.endsWith(SIDECAR_SUFFIX);
+    }
+
+    /**
+     * @param text 一行“算法 十六进制值 长度”
+     */
+    public static AlluxioDigest parse(String text) {
+        String[] fields = text.trim().split(" ");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("malformed digest: " + text);
+        }
+        return new AlluxioDigest(AlluxioChecksumType.valueOf(fields[0]),
+            Long.parseUnsignedLong(fields[1], 16), Long.parseLong(fields[2]));
+    }
+
+    /**
+     * 读出path的摘要文件
+     *
+     * @return 没有摘要文件时返回null
+     * @throws Exception
+     */
+    public static AlluxioDigest read(AlluxioTemplate template, String path) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (FileInStream is = template.openFile(sidecarOf(path))) {
+            byte[] buf = new byte[64];
+            int n;
+            while ((n = is.read(buf, 0, buf.length)) != -1) {
+                bytes.write(buf, 0, n);
+            }
+        } catch (FileDoesNotExistException e) {
+            return null;
+        }
+        return parse(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 写出path的摘要文件，已经存在的会被替换
+     *
+     * @param writeType 一般和数据文件的写类型一致，MUST_CACHE的数据配一个落盘的摘要没有意义
+     * @throws Exception
+     */
+    public void write(AlluxioTemplate template, String path, WriteType writeType)
+        throws Exception {
+        String sidecar = sidecarOf(path);
+        if (template.exists(sidecar)) {
+            template.delete(sidecar);
+        }
+        try (FileOutStream os = template.createFile(sidecar,
+            CreateFileOptions.defaults().setWriteType(writeType).setRecursive(true))) {
+            byte[] bytes = (toString() + "\n").getBytes(StandardCharsets.UTF_8);
+            os.write(bytes, 0, bytes.length);
+        }
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AlluxioDigest)) {
+            return false;
+        }
+        AlluxioDigest that = (AlluxioDigest) o;
+        return mType == that.mType && mValue == that.mValue && mLength == that.mLength;
+    }
+
+    @Override public int hashCode() {
+        return (mType.hashCode() * 31 + Long.hashCode(mValue)) * 31 + Long.hashCode(mLength);
+    }
+
+    @Override public String toString() {
+        return mType.name() + " " + Long.toHexString(mValue) + " " + mLength;
+    }
+}
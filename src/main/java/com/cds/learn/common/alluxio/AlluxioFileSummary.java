@@ -0,0 +1,54 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.URIStatus;
+
+/**
+ * URIStatus的精简投影，只保留列目录时最常用的几个字段。
+ * URIStatus带着块信息等大量字段，遍历大目录时只保留这个可以明显减少内存占用。
+ */
+public final class AlluxioFileSummary {
+
+    private final String mName;
+
+    private final long mLength;
+
+    private final int mInMemoryPercentage;
+
+    private final boolean mFolder;
+
+    public AlluxioFileSummary(String name, long length, int inMemoryPercentage, boolean folder) {
+        mName = name;
+        mLength = length;
+        mInMemoryPercentage = inMemoryPercentage;
+        mFolder = folder;
+    }
+
+    /**
+     * 可以直接作为listStatusStream的投影函数，比如map(AlluxioFileSummary::of)
+     */
+    public static AlluxioFileSummary of(URIStatus status) {
+        return new AlluxioFileSummary(status.getName(), status.getLength(),
+            status.getInMemoryPercentage(), status.isFolder());
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public long getLength() {
+        return mLength;
+    }
+
+    public int getInMemoryPercentage() {
+        return mInMemoryPercentage;
+    }
+
+    public boolean isFolder() {
+        return mFolder;
+    }
+
+    @Override public String toString() {
+        return mName + (mFolder ? "/" : "") + " length=" + mLength + " inMemory="
+            + mInMemoryPercentage + "%";
+    }
+}
@@ -0,0 +1,373 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 多个租户共用一个AlluxioTemplate时的调度层，放在execute、executeNoResult和流式读写的字节统计下面。
+ * <ul>
+ * <li>每次execute先从租户的QPS令牌桶里取一个令牌，每次读写按字节数从租户的带宽令牌桶里取令牌，
+ * 限速只让超额的租户自己等待</li>
+ * <li>同时执行的调用数有上限，超过的按优先级排队：有INTERACTIVE在等时不会放行BATCH，
+ * 同一优先级里按租户轮流放行，一个租户排了再多的调用也只占一份</li>
+ * <li>BATCH最多占用一部分名额，剩下的总是留给INTERACTIVE</li>
+ * </ul>
+ * 调用属于哪个租户和优先级由调用线程上的标签决定。交给线程池的任务要用propagate包装，
+ * 在提交时带上调用者的标签，所以sync、verify一类内部开线程池的操作也算在发起者名下；
+ * 线程池里的线程不会留下上一个任务的标签。
+ *
+ * @see AlluxioTemplate#setIoScheduler(AlluxioIoScheduler)
+ */
+public class AlluxioIoScheduler {
+
+    private static final ThreadLocal<Tag> TAGS = new ThreadLocal<>();
+
+    private final AlluxioSchedulerPolicy mPolicy;
+
+    private final ReentrantLock mLock = new ReentrantLock();
+
+    /**
+     * 每个优先级一组按租户分开的队列，LinkedHashMap的顺序就是轮转的顺序
+     */
+    private final Map<AlluxioPriority, LinkedHashMap<String, ArrayDeque<Waiter>>> mQueues =
+        new EnumMap<>(AlluxioPriority.class);
+
+    private final Map<AlluxioPriority, AlluxioLatencyHistogram> mQueueDelays =
+        new EnumMap<>(AlluxioPriority.class);
+
+    private final Map<AlluxioPriority, AtomicLong> mAdmitted = new EnumMap<>(AlluxioPriority.class);
+
+    private final Map<String, Tenant> mTenants = new ConcurrentHashMap<>();
+
+    private int mInFlight;
+
+    private int mBatchInFlight;
+
+    public AlluxioIoScheduler(AlluxioSchedulerPolicy policy) {
+        Preconditions.checkNotNull(policy, "the scheduler policy should not be null!");
+        Preconditions.checkArgument(policy.getBatchMaxInFlight() <= policy.getMaxInFlight(),
+            "batchMaxInFlight should not be larger than maxInFlight!");
+        mPolicy = policy;
+        for (AlluxioPriority priority : AlluxioPriority.values()) {
+            mQueues.put(priority, new LinkedHashMap<>());
+            mQueueDelays.put(priority, new AlluxioLatencyHistogram());
+            mAdmitted.put(priority, new AtomicLong());
+        }
+    }
+
+    /**
+     * 给当前线程打上标签，之后在这个线程上的调用都算在这个租户和优先级下，关闭时恢复原来的标签
+     * <pre>
+     * try (AlluxioIoScheduler.Tag ignored = AlluxioIoScheduler.tag("etl", AlluxioPriority.BATCH)) {
+     *     template.sync(src, dst, options);
+     * }
+     * </pre>
+     */
+    public static Tag tag(String tenant, AlluxioPriority priority) {
+        Preconditions.checkNotNull(tenant, "the tenant should not be null!");
+        Preconditions.checkNotNull(priority, "the priority should not be null!");
+        Tag tag = new Tag(tenant, priority, TAGS.get());
+        TAGS.set(tag);
+        return tag;
+    }
+
+    /**
+     * @return 当前线程的标签，没有打标签时为null
+     */
+    public static Tag currentTag() {
+        return TAGS.get();
+    }
+
+    /**
+     * 在提交任务的线程上调用，任务执行时打上提交者的标签，结束后恢复执行线程原来的标签
+     */
+    public static Runnable propagate(Runnable task) {
+        Tag tag = TAGS.get();
+        return () -> {
+            Tag previous = TAGS.get();
+            set(tag);
+            try {
+                task.run();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    /**
+     * @see #propagate(Runnable)
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Tag tag = TAGS.get();
+        return () -> {
+            Tag previous = TAGS.get();
+            set(tag);
+            try {
+                return task.call();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    private static void set(Tag tag) {
+        if (tag == null) {
+            TAGS.remove();
+        } else {
+            TAGS.set(tag);
+        }
+    }
+
+    /**
+     * 在执行一次调用之前等待QPS令牌和执行名额，拿到名额后必须调用release
+     *
+     * @return 这次调用的优先级，交给release
+     * @throws InterruptedException 排队时被中断，这时没有占用名额
+     */
+    AlluxioPriority admit() throws InterruptedException {
+        Tag tag = TAGS.get();
+        String tenantName = tag == null ? mPolicy.getDefaultTenant() : tag.getTenant();
+        AlluxioPriority priority = tag == null ? mPolicy.getDefaultPriority() : tag.getPriority();
+        long start = System.nanoTime();
+        Tenant tenant = tenantOf(tenantName);
+        if (tenant.mQps != null) {
+            tenant.mThrottledNanos.addAndGet(tenant.mQps.acquire(1));
+        }
+        mLock.lock();
+        try {
+            LinkedHashMap<String, ArrayDeque<Waiter>> queues = mQueues.get(priority);
+            if (queues.isEmpty() && canRun(priority)) {
+                run(priority);
+            } else {
+                Waiter waiter = new Waiter(priority, mLock.newCondition());
+                queues.computeIfAbsent(tenantName, t -> new ArrayDeque<>()).add(waiter);
+                try {
+                    while (!waiter.mGranted) {
+                        waiter.mCondition.await();
+                    }
+                } catch (InterruptedException e) {
+                    if (waiter.mGranted) {
+                        releaseLocked(priority);
+                    } else {
+                        ArrayDeque<Waiter> queue = queues.get(tenantName);
+                        queue.remove(waiter);
+                        if (queue.isEmpty()) {
+                            queues.remove(tenantName);
+                        }
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            mLock.unlock();
+        }
+        mQueueDelays.get(priority).record(System.nanoTime() - start);
+        mAdmitted.get(priority).incrementAndGet();
+        return priority;
+    }
+
+    /**
+     * 调用结束，把名额交给下一个排队的调用
+     *
+     * @param priority admit的返回值
+     */
+    void release(AlluxioPriority priority) {
+        mLock.lock();
+        try {
+            releaseLocked(priority);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 记录当前线程的租户读写了多少字节，超过带宽限制时在这里等待，被中断时保留中断状态直接返回
+     */
+    void onBytes(long bytes) {
+        Tag tag = TAGS.get();
+        Tenant tenant = tenantOf(tag == null ? mPolicy.getDefaultTenant() : tag.getTenant());
+        if (tenant.mBytes == null || bytes <= 0) {
+            return;
+        }
+        long wait = tenant.mBytes.reserve(bytes);
+        if (wait > 0) {
+            tenant.mThrottledNanos.addAndGet(wait);
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return 这个优先级的调用从发起到开始执行的等待时间，包括QPS限速和排队
+     */
+    public AlluxioLatencyHistogram getQueueDelay(AlluxioPriority priority) {
+        return mQueueDelays.get(priority);
+    }
+
+    /**
+     * @return 这个优先级已经放行的调用数
+     */
+    public long getAdmitted(AlluxioPriority priority) {
+        return mAdmitted.get(priority).get();
+    }
+
+    /**
+     * @return 这个优先级正在排队的调用数
+     */
+    public int getQueued(AlluxioPriority priority) {
+        mLock.lock();
+        try {
+            int queued = 0;
+            for (ArrayDeque<Waiter> queue : mQueues.get(priority).values()) {
+                queued += queue.size();
+            }
+            return queued;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * @return 正在执行的调用数
+     */
+    public int getInFlight() {
+        mLock.lock();
+        try {
+            return mInFlight;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * @return 这个租户因为QPS和带宽限制累计等待的纳秒数
+     */
+    public long getThrottledNanos(String tenant) {
+        Tenant state = mTenants.get(tenant);
+        return state == null ? 0 : state.mThrottledNanos.get();
+    }
+
+    private Tenant tenantOf(String tenant) {
+        Tenant state = mTenants.get(tenant);
+        return state != null ? state : mTenants.computeIfAbsent(tenant,
+            t -> new Tenant(mPolicy.getQps(t), mPolicy.getBytesPerSecond(t)));
+    }
+
+    private boolean canRun(AlluxioPriority priority) {
+        return mInFlight < mPolicy.getMaxInFlight() && (priority != AlluxioPriority.BATCH
+            || mBatchInFlight < mPolicy.getBatchMaxInFlight());
+    }
+
+    private void run(AlluxioPriority priority) {
+        mInFlight++;
+        if (priority == AlluxioPriority.BATCH) {
+            mBatchInFlight++;
+        }
+    }
+
+    private void releaseLocked(AlluxioPriority priority) {
+        mInFlight--;
+        if (priority == AlluxioPriority.BATCH) {
+            mBatchInFlight--;
+        }
+        Waiter next;
+        while ((next = pollNext()) != null) {
+            run(next.mPriority);
+            next.mGranted = true;
+            next.mCondition.signal();
+        }
+    }
+
+    /**
+     * 先看INTERACTIVE再看BATCH，同一优先级里取轮到的租户队首的调用，再把这个租户挪到队尾
+     */
+    private Waiter pollNext() {
+        for (AlluxioPriority priority : AlluxioPriority.values()) {
+            LinkedHashMap<String, ArrayDeque<Waiter>> queues = mQueues.get(priority);
+            if (queues.isEmpty() || !canRun(priority)) {
+                continue;
+            }
+            Iterator<Map.Entry<String, ArrayDeque<Waiter>>> it = queues.entrySet().iterator();
+            Map.Entry<String, ArrayDeque<Waiter>> first = it.next();
+            it.remove();
+            Waiter waiter = first.getValue().poll();
+            if (!first.getValue().isEmpty()) {
+                queues.put(first.getKey(), first.getValue());
+            }
+            return waiter;
+        }
+        return null;
+    }
+
+    /**
+     * 线程上的租户和优先级标签
+     */
+    public static final class Tag implements AutoCloseable {
+
+        private final String mTenant;
+
+        private final AlluxioPriority mPriority;
+
+        private final Tag mPrevious;
+
+        private Tag(String tenant, AlluxioPriority priority, Tag previous) {
+            mTenant = tenant;
+            mPriority = priority;
+            mPrevious = previous;
+        }
+
+        public String getTenant() {
+            return mTenant;
+        }
+
+        public AlluxioPriority getPriority() {
+            return mPriority;
+        }
+
+        @Override public void close() {
+            set(mPrevious);
+        }
+    }
+
+    private static final class Tenant {
+
+        private final AlluxioTokenBucket mQps;
+
+        private final AlluxioTokenBucket mBytes;
+
+        private final AtomicLong mThrottledNanos = new AtomicLong();
+
+        Tenant(double qps, long bytesPerSecond) {
+            mQps = qps > 0 ? new AlluxioTokenBucket(qps) : null;
+            mBytes = bytesPerSecond > 0 ? new AlluxioTokenBucket(bytesPerSecond) : null;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final AlluxioPriority mPriority;
+
+        private final Condition mCondition;
+
+        private boolean mGranted;
+
+        Waiter(AlluxioPriority priority, Condition condition) {
+            mPriority = priority;
+            mCondition = condition;
+        }
+    }
+}
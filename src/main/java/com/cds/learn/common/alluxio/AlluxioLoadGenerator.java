@@ -0,0 +1,351 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.WriteType;
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.FileOutStream;
+import alluxio.client.file.options.OpenFileOptions;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 压测工具：多个线程并发地写一批文件，穿插元数据操作，再把文件读回来，
+ * 分别统计吞吐和延迟分位数。每种WriteType跑一轮，设置了本地目录的话再在本地磁盘上跑一轮做对比。
+ * <p>
+ * 写入的数据来自一块预先生成的随机数据，每次write整块写出，压测过程中没有额外的内存分配；
+ * 文件大小是long，可以超过2GB。设置了目标速率时，所有线程共享一个节拍器，按速率均匀地发出写请求。
+ */
+public class AlluxioLoadGenerator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlluxioLoadGenerator.class);
+
+
+    private final AlluxioTemplate mTemplate;
+
+    private final AlluxioLoadOptions mOptions;
+
+    private final byte[] mPattern;
+
+    /**
+     * @param template 被压测的模板
+     * @param options  压测参数
+     */
+    public AlluxioLoadGenerator(AlluxioTemplate template, AlluxioLoadOptions options) {
+        Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        Preconditions.checkNotNull(options, "the load options should not be null!");
+        mTemplate = template;
+        mOptions = options;
+        mPattern = new byte[options.getPatternSize()];
+        new Random(0x5eed).nextBytes(mPattern);
+    }
+
+    /**
+     * @return 每种WriteType一份报告，最后是本地磁盘的报告（如果设置了本地目录）
+     * @throws Exception
+     */
+    public List<AlluxioLoadReport> run() throws Exception {
+        List<AlluxioLoadReport> reports = new ArrayList<>();
+        for (WriteType type : mOptions.getWriteTypes()) {
+            reports.add(run(new AlluxioTarget(type)));
+        }
+        if (mOptions.getLocalDir() != null) {
+            reports.add(run(new LocalTarget(Paths.get(mOptions.getLocalDir(), "alluxio-load"))));
+        }
+        for (AlluxioLoadReport report : reports) {
+            LOG.info(report.toString());
+        }
+        return reports;
+    }
+
+    private AlluxioLoadReport run(Target target) throws Exception {
+        AlluxioLoadReport report = new AlluxioLoadReport(target.name());
+        ExecutorService executor = Executors.newFixedThreadPool(mOptions.getThreads(),
+            AlluxioUtils.daemonThreadFactory("alluxio-load"));
+        Pacer pacer = new Pacer(mOptions.getTargetBytesPerSecond());
+        long start = System.nanoTime();
+        try {
+            target.prepare();
+            long writeNanos = phase(executor, (thread, file) -> {
+                long begin = System.nanoTime();
+                target.write(thread, file, pacer);
+                report.recordWrite(mOptions.getFileSizeBytes(), System.nanoTime() - begin);
+            });
+            phase(executor, (thread, file) -> {
+                for (int op = 0; op < mOptions.getMetadataOpsPerFile(); op++) {
+                    long begin = System.nanoTime();
+                    target.metadata(thread, file, op);
+                    report.recordMetadata(System.nanoTime() - begin);
+                }
+            });
+            long readNanos = 0;
+            if (mOptions.isReadBack()) {
+                readNanos = phase(executor, (thread, file) -> {
+                    long begin = System.nanoTime();
+                    long bytes = target.read(thread, file);
+                    report.recordRead(bytes, System.nanoTime() - begin);
+                });
+            }
+            report.finish(writeNanos, readNanos, System.nanoTime() - start);
+        } finally {
+            executor.shutdownNow();
+            if (mOptions.isCleanUp()) {
+                try {
+                    target.cleanUp();
+                } catch (Exception e) {
+                    LOG.warn("failed to clean up " + target.name(), e);
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * 每个线程处理自己的文件，所有线程都结束后返回这个阶段的墙钟时间
+     */
+    private long phase(ExecutorService executor, FileTask task) throws Exception {
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(mOptions.getThreads());
+        for (int t = 0; t < mOptions.getThreads(); t++) {
+            int thread = t;
+            futures.add(executor.submit(AlluxioIoScheduler.propagate(() -> {
+                for (int file = 0; file < mOptions.getFilesPerThread(); file++) {
+                    task.run(thread, file);
+                }
+                return null;
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private interface FileTask {
+        void run(int thread, int file) throws Exception;
+    }
+
+    private interface Target {
+        String name();
+
+        void prepare() throws Exception;
+
+        void write(int thread, int file, Pacer pacer) throws Exception;
+
+        void metadata(int thread, int file, int op) throws Exception;
+
+        long read(int thread, int file) throws Exception;
+
+        void cleanUp() throws Exception;
+    }
+
+    private final class AlluxioTarget implements Target {
+        private final WriteType mType;
+        private final String mDir;
+
+        private AlluxioTarget(WriteType type) {
+            mType = type;
+            mDir = mOptions.getAlluxioDir() + "/" + type.name();
+        }
+
+        @Override public String name() {
+            return "alluxio:" + mType;
+        }
+
+        @Override public void prepare() throws Exception {
+            if (mTemplate.exists(mDir)) {
+                mTemplate.deleteRecursive(mDir);
+            }
+        }
+
+        @Override public void write(int thread, int file, Pacer pacer) throws Exception {
+            String path = pathOf(thread, file);
+            try (FileOutStream os = mTemplate.createFile(path,
+                mTemplate.writeOptions(path, mType, mOptions.getTargetWorker())
+                    .setRecursive(true))) {
+                for (long remaining = mOptions.getFileSizeBytes(); remaining > 0; ) {
+                    int n = (int) Math.min(mPattern.length, remaining);
+                    pacer.acquire(n);
+                    os.write(mPattern, 0, n);
+                    remaining -= n;
+                }
+            }
+            mTemplate.recordBytesWritten(mOptions.getFileSizeBytes());
+        }
+
+        @Override public void metadata(int thread, int file, int op) throws Exception {
+            switch (op % 3) {
+                case 0:
+                    mTemplate.getStatus(pathOf(thread, file));
+                    break;
+                case 1:
+                    mTemplate.exists(pathOf(thread, file));
+                    break;
+                default:
+                    mTemplate.listStatus(mDir);
+            }
+        }
+
+        @Override public long read(int thread, int file) throws Exception {
+            AlluxioBufferPool pool = mTemplate.getBufferPool();
+            ByteBuffer buf = pool.acquire(mPattern.length);
+            try (FileInStream is = mTemplate
+                .openFile(pathOf(thread, file), OpenFileOptions.defaults())) {
+                byte[] bytes = buf.array();
+                long total = 0;
+                int n;
+                while ((n = is.read(bytes, 0, bytes.length)) != -1) {
+                    total += n;
+                }
+                mTemplate.recordBytesRead(total);
+                return total;
+            } finally {
+                pool.release(buf);
+            }
+        }
+
+        @Override public void cleanUp() throws Exception {
+            mTemplate.deleteRecursive(mDir);
+        }
+
+        private String pathOf(int thread, int file) {
+            return mDir + "/file-" + thread + "-" + file;
+        }
+    }
+
+    private final class LocalTarget implements Target {
+        private final Path mDir;
+
+        private LocalTarget(Path dir) {
+            mDir = dir;
+        }
+
+        @Override public String name() {
+            return "local";
+        }
+
+        @Override public void prepare() throws IOException {
+            cleanUp();
+            Files.createDirectories(mDir);
+        }
+
+        @Override public void write(int thread, int file, Pacer pacer) throws IOException {
+            try (FileChannel channel = FileChannel
+                .open(pathOf(thread, file), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (long remaining = mOptions.getFileSizeBytes(); remaining > 0; ) {
+                    int n = (int) Math.min(mPattern.length, remaining);
+                    pacer.acquire(n);
+                    ByteBuffer buf = ByteBuffer.wrap(mPattern, 0, n);
+                    while (buf.hasRemaining()) {
+                        channel.write(buf);
+                    }
+                    remaining -= n;
+                }
+                // 和alluxio的写一样，关闭时数据要真正落盘
+                channel.force(true);
+            }
+        }
+
+        @Override public void metadata(int thread, int file, int op) throws IOException {
+            switch (op % 3) {
+                case 0:
+                    Files.readAttributes(pathOf(thread, file), BasicFileAttributes.class);
+                    break;
+                case 1:
+                    Files.exists(pathOf(thread, file));
+                    break;
+                default:
+                    try (Stream<Path> files = Files.list(mDir)) {
+                        files.count();
+                    }
+            }
+        }
+
+        @Override public long read(int thread, int file) throws IOException {
+            AlluxioBufferPool pool = mTemplate.getBufferPool();
+            ByteBuffer buf = pool.acquire(mPattern.length);
+            try (FileChannel channel = FileChannel
+                .open(pathOf(thread, file), StandardOpenOption.READ)) {
+                long total = 0;
+                int n;
+                while ((n = channel.read(buf)) != -1) {
+                    total += n;
+                    buf.clear();
+                }
+                return total;
+            } finally {
+                pool.release(buf);
+            }
+        }
+
+        @Override public void cleanUp() throws IOException {
+            if (!Files.exists(mDir)) {
+                return;
+            }
+            List<Path> paths;
+            try (Stream<Path> files = Files.walk(mDir)) {
+                paths = files.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            }
+            // 倒序保证先删文件再删目录
+            for (Path path : paths) {
+                Files.delete(path);
+            }
+        }
+
+        private Path pathOf(int thread, int file) {
+            return mDir.resolve("file-" + thread + "-" + file);
+        }
+    }
+
+    /**
+     * 所有线程共享的节拍器：每次写之前按字节数预约一个时间片，时间片还没到就等，
+     * 空闲一段时间后不会攒下额度去突发
+     */
+    private static final class Pacer {
+        private final long mBytesPerSecond;
+        private final AtomicLong mNext = new AtomicLong(System.nanoTime());
+
+        private Pacer(long bytesPerSecond) {
+            mBytesPerSecond = bytesPerSecond;
+        }
+
+        private void acquire(long bytes) {
+            if (mBytesPerSecond <= 0) {
+                return;
+            }
+            long cost = (long) (bytes * 1e9 / mBytesPerSecond);
+            long slot;
+            while (true) {
+                long next = mNext.get();
+                slot = Math.max(next, System.nanoTime());
+                if (mNext.compareAndSet(next, slot + cost)) {
+                    break;
+                }
+            }
+            long wait;
+            while ((wait = slot - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.WriteType;
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AlluxioLoadGenerator的参数。
+ */
+public final class AlluxioLoadOptions {
+
+    private String mAlluxioDir = "/alluxio-load";
+
+    private String mLocalDir;
+
+    private int mThreads = 8;
+
+    private int mFilesPerThread = 4;
+
+    private long mFileSizeBytes = 256L * 1024 * 1024;
+
+    private int mPatternSize = 8 * 1024 * 1024;
+
+    private List<WriteType> mWriteTypes =
+        Arrays.asList(WriteType.MUST_CACHE, WriteType.CACHE_THROUGH);
+
+    private String mTargetWorker = AlluxioConsts.NON_SPECIFIED_WORKER;
+
+    private boolean mReadBack = true;
+
+    private int mMetadataOpsPerFile = 3;
+
+    private long mTargetBytesPerSecond;
+
+    private boolean mCleanUp = true;
+
+    public static AlluxioLoadOptions defaults() {
+        return new AlluxioLoadOptions();
+    }
+
+    private AlluxioLoadOptions() {
+    }
+
+    public String getAlluxioDir() {
+        return mAlluxioDir;
+    }
+
+    /**
+     * @param alluxioDir 测试文件在alluxio上的目录，每种WriteType一个子目录
+     */
+    public AlluxioLoadOptions setAlluxioDir(String alluxioDir) {
+        mAlluxioDir = Preconditions.checkNotNull(alluxioDir, "alluxioDir should not be null!");
+        return this;
+    }
+
+    public String getLocalDir() {
+        return mLocalDir;
+    }
+
+    /**
+     * @param localDir 用来对比的本地磁盘目录，为null时不测本地磁盘
+     */
+    public AlluxioLoadOptions setLocalDir(String localDir) {
+        mLocalDir = localDir;
+        return this;
+    }
+
+    public int getThreads() {
+        return mThreads;
+    }
+
+    /**
+     * @param threads 并发的读写线程数
+     */
+    public AlluxioLoadOptions setThreads(int threads) {
+        Preconditions.checkArgument(threads > 0, "threads should be positive!");
+        mThreads = threads;
+        return this;
+    }
+
+    public int getFilesPerThread() {
+        return mFilesPerThread;
+    }
+
+    /**
+     * @param filesPerThread 每个线程写的文件数
+     */
+    public AlluxioLoadOptions setFilesPerThread(int filesPerThread) {
+        Preconditions.checkArgument(filesPerThread > 0, "filesPerThread should be positive!");
+        mFilesPerThread = filesPerThread;
+        return this;
+    }
+
+    public long getFileSizeBytes() {
+        return mFileSizeBytes;
+    }
+
+    /**
+     * @param fileSizeBytes 每个文件的大小，可以超过2GB
+     */
+    public AlluxioLoadOptions setFileSizeBytes(long fileSizeBytes) {
+        Preconditions.checkArgument(fileSizeBytes >= 0, "fileSizeBytes should not be negative!");
+        mFileSizeBytes = fileSizeBytes;
+        return this;
+    }
+
+    public int getPatternSize() {
+        return mPatternSize;
+    }
+
+    /**
+     * @param patternSize 预先生成的数据块大小，也是每次write的字节数
+     */
+    public AlluxioLoadOptions setPatternSize(int patternSize) {
+        Preconditions.checkArgument(patternSize > 0, "patternSize should be positive!");
+        mPatternSize = patternSize;
+        return this;
+    }
+
+    public List<WriteType> getWriteTypes() {
+        return mWriteTypes;
+    }
+
+    /**
+     * @param writeTypes 要对比的写类型，每种单独跑一轮
+     */
+    public AlluxioLoadOptions setWriteTypes(WriteType... writeTypes) {
+        Preconditions.checkArgument(writeTypes.length > 0, "writeTypes should not be empty!");
+        mWriteTypes = Arrays.asList(writeTypes);
+        return this;
+    }
+
+    public String getTargetWorker() {
+        return mTargetWorker;
+    }
+
+    /**
+     * @param targetWorker AlluxioConsts里的位置策略，或者一个worker的主机名
+     */
+    public AlluxioLoadOptions setTargetWorker(String targetWorker) {
+        mTargetWorker =
+            Preconditions.checkNotNull(targetWorker, "targetWorker should not be null!");
+        return this;
+    }
+
+    public boolean isReadBack() {
+        return mReadBack;
+    }
+
+    /**
+     * @param readBack 写完之后是否把文件再读一遍
+     */
+    public AlluxioLoadOptions setReadBack(boolean readBack) {
+        mReadBack = readBack;
+        return this;
+    }
+
+    public int getMetadataOpsPerFile() {
+        return mMetadataOpsPerFile;
+    }
+
+    /**
+     * @param metadataOpsPerFile 每个文件写完后穿插的元数据操作数，轮流执行getStatus、exists和listStatus
+     */
+    public AlluxioLoadOptions setMetadataOpsPerFile(int metadataOpsPerFile) {
+        Preconditions.checkArgument(metadataOpsPerFile >= 0,
+            "metadataOpsPerFile should not be negative!");
+        mMetadataOpsPerFile = metadataOpsPerFile;
+        return this;
+    }
+
+    public long getTargetBytesPerSecond() {
+        return mTargetBytesPerSecond;
+    }
+
+    /**
+     * @param targetBytesPerSecond 所有线程合计的目标写入速率，0表示不限速、尽可能快
+     */
+    public AlluxioLoadOptions setTargetBytesPerSecond(long targetBytesPerSecond) {
+        Preconditions.checkArgument(targetBytesPerSecond >= 0,
+            "targetBytesPerSecond should not be negative!");
+        mTargetBytesPerSecond = targetBytesPerSecond;
+        return this;
+    }
+
+    public boolean isCleanUp() {
+        return mCleanUp;
+    }
+
+    /**
+     * @param cleanUp 结束后是否删掉测试文件
+     */
+    public AlluxioLoadOptions setCleanUp(boolean cleanUp) {
+        mCleanUp = cleanUp;
+        return this;
+    }
+}
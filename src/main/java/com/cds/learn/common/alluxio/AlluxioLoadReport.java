@@ -0,0 +1,112 @@
+package com.cds.learn.common.alluxio;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一轮压测的结果：写阶段和读阶段的吞吐量，以及单个文件写、单个文件读和单次元数据操作的延迟分布。
+ */
+public class AlluxioLoadReport {
+
+    private final String mTarget;
+
+    private final AlluxioLatencyHistogram mWriteLatency = new AlluxioLatencyHistogram();
+
+    private final AlluxioLatencyHistogram mReadLatency = new AlluxioLatencyHistogram();
+
+    private final AlluxioLatencyHistogram mMetadataLatency = new AlluxioLatencyHistogram();
+
+    private final AtomicLong mBytesWritten = new AtomicLong();
+
+    private final AtomicLong mBytesRead = new AtomicLong();
+
+    private volatile long mWritePhaseNanos;
+
+    private volatile long mReadPhaseNanos;
+
+    private volatile long mElapsedNanos;
+
+    AlluxioLoadReport(String target) {
+        mTarget = target;
+    }
+
+    void recordWrite(long bytes, long nanos) {
+        mBytesWritten.addAndGet(bytes);
+        mWriteLatency.record(nanos);
+    }
+
+    void recordRead(long bytes, long nanos) {
+        mBytesRead.addAndGet(bytes);
+        mReadLatency.record(nanos);
+    }
+
+    void recordMetadata(long nanos) {
+        mMetadataLatency.record(nanos);
+    }
+
+    void finish(long writePhaseNanos, long readPhaseNanos, long elapsedNanos) {
+        mWritePhaseNanos = writePhaseNanos;
+        mReadPhaseNanos = readPhaseNanos;
+        mElapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return 测试对象，比如alluxio:CACHE_THROUGH或者local
+     */
+    public String getTarget() {
+        return mTarget;
+    }
+
+    public AlluxioLatencyHistogram getWriteLatency() {
+        return mWriteLatency;
+    }
+
+    public AlluxioLatencyHistogram getReadLatency() {
+        return mReadLatency;
+    }
+
+    public AlluxioLatencyHistogram getMetadataLatency() {
+        return mMetadataLatency;
+    }
+
+    public long getBytesWritten() {
+        return mBytesWritten.get();
+    }
+
+    public long getBytesRead() {
+        return mBytesRead.get();
+    }
+
+    public long getElapsedNanos() {
+        return mElapsedNanos;
+    }
+
+    /**
+     * @return 所有线程合计的写吞吐，按写阶段的墙钟时间算
+     */
+    public double getWriteBytesPerSecond() {
+        return mWritePhaseNanos == 0 ? 0 : mBytesWritten.get() * 1e9 / mWritePhaseNanos;
+    }
+
+    /**
+     * @return 所有线程合计的读吞吐，按读阶段的墙钟时间算
+     */
+    public double getReadBytesPerSecond() {
+        return mReadPhaseNanos == 0 ? 0 : mBytesRead.get() * 1e9 / mReadPhaseNanos;
+    }
+
+    @Override public String toString() {
+        return String.format("%s: write %.1f MB/s (p50 %d ms, p99 %d ms), read %.1f MB/s "
+                + "(p50 %d ms, p99 %d ms), metadata p50 %d us p99 %d us, %d ms total", mTarget,
+            getWriteBytesPerSecond() / (1 << 20), millis(mWriteLatency.getPercentileNanos(50)),
+            millis(mWriteLatency.getPercentileNanos(99)), getReadBytesPerSecond() / (1 << 20),
+            millis(mReadLatency.getPercentileNanos(50)),
+            millis(mReadLatency.getPercentileNanos(99)),
+            mMetadataLatency.getPercentileNanos(50) / 1000,
+            mMetadataLatency.getPercentileNanos(99) / 1000, millis(mElapsedNanos));
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,347 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.URIStatus;
+import alluxio.client.file.options.OpenFileOptions;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端本地的磁盘缓存。文件按固定大小切成页，每页存成本地目录下的一个文件，读的时候mmap出来，
+ * 重复读同一个文件时就不用再走网络。
+ * <p>
+ * 页的key是路径加上URIStatus里的修改时间和长度，文件被改写之后旧的页自然不会再命中，
+ * 最后按LRU被淘汰掉。索引在flush和close时落盘，重启后可以继续使用之前缓存的页。
+ */
+public class AlluxioLocalCache implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlluxioLocalCache.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 4 * 1024 * 1024;
+
+    private static final String INDEX_FILE = "index";
+
+    private static final String PAGE_SUFFIX = ".page";
+
+    private static final int INDEX_MAGIC = 0x414c4331;
+
+    private final Path mDir;
+
+    private final long mCapacityBytes;
+
+    private final int mPageSize;
+
+    /**
+     * 按访问顺序排列，第一个就是最久没用过的
+     */
+    private final LinkedHashMap<String, Page> mPages = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long mSizeBytes;
+
+    private final AtomicLong mHits = new AtomicLong();
+
+    private final AtomicLong mMisses = new AtomicLong();
+
+    private final AtomicLong mEvictions = new AtomicLong();
+
+    /**
+     * @param dir           缓存目录，不存在时会创建
+     * @param capacityBytes 缓存占用磁盘空间的上限
+     * @param pageSize      每页的字节数
+     * @throws IOException 目录无法创建
+     */
+    public AlluxioLocalCache(String dir, long capacityBytes, int pageSize) throws IOException {
+        Preconditions.checkNotNull(dir, "the cache directory should not be null!");
+        Preconditions.checkArgument(capacityBytes > 0, "capacityBytes should be positive!");
+        Preconditions.checkArgument(pageSize > 0, "pageSize should be positive!");
+        mDir = Paths.get(dir);
+        mCapacityBytes = capacityBytes;
+        mPageSize = pageSize;
+        Files.createDirectories(mDir);
+        load();
+    }
+
+    /**
+     * 读整个文件，缓存里有的页直接从本地读，没有的从alluxio读回来并存进缓存
+     *
+     * @param template   缓存未命中时用来打开文件的模板
+     * @param status     文件的状态，用来确定页的key
+     * @param options    打开文件的参数
+     * @param bufferSize 每次交给consumer的最大字节数
+     * @param consumer   回调，拿到的buffer只在回调期间有效，可能是只读的
+     * @return 读到的总字节数
+     * @throws Exception
+     */
+    public long read(AlluxioTemplate template, URIStatus status, OpenFileOptions options,
+        int bufferSize, AlluxioChunkConsumer consumer) throws Exception {
+        Preconditions.checkArgument(!status.isFolder(), "%s is a directory", status.getPath());
+        long length = status.getLength();
+        String prefix = status.getPath() + "@" + status.getLastModificationTimeMs() + ":" + length;
+        FileInStream is = null;
+        try {
+            for (long pageStart = 0; pageStart < length; pageStart += mPageSize) {
+                String key = prefix + "#" + pageStart / mPageSize;
+                int pageLen = (int) Math.min(mPageSize, length - pageStart);
+                ByteBuffer page = map(key, pageLen);
+                if (page != null) {
+                    mHits.incrementAndGet();
+                    deliver(page, pageStart, bufferSize, consumer);
+                    continue;
+                }
+                mMisses.incrementAndGet();
+                if (is == null) {
+                    is = template.openFile(status.getPath(), options);
+                }
+                is.seek(pageStart);
+                ByteBuffer buf = template.getBufferPool().acquire(mPageSize);
+                try {
+                    fill(is, buf.array(), pageLen, status.getPath());
+                    template.recordBytesRead(pageLen);
+                    buf.limit(pageLen);
+                    store(key, buf.duplicate());
+                    deliver(buf, pageStart, bufferSize, consumer);
+                } finally {
+                    template.getBufferPool().release(buf);
+                }
+            }
+            return length;
+        } finally {
+            if (is != null) {
+                is.close();
+            }
+        }
+    }
+
+    /**
+     * 把索引写到磁盘上，之后重启可以继续使用已经缓存的页
+     */
+    public void flush() throws IOException {
+        List<Map.Entry<String, Page>> pages;
+        synchronized (this) {
+            pages = new ArrayList<>(mPages.entrySet());
+        }
+        Path tmp = mDir.resolve(INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(mPageSize);
+            out.writeInt(pages.size());
+            for (Map.Entry<String, Page> entry : pages) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().mSize);
+            }
+        }
+        Files.move(tmp, mDir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override public void close() throws IOException {
+        flush();
+    }
+
+    public synchronized long getSizeBytes() {
+        return mSizeBytes;
+    }
+
+    public long getHits() {
+        return mHits.get();
+    }
+
+    public long getMisses() {
+        return mMisses.get();
+    }
+
+    public long getEvictions() {
+        return mEvictions.get();
+    }
+
+    private ByteBuffer map(String key, int pageLen) throws IOException {
+        synchronized (this) {
+            Page page = mPages.get(key);
+            if (page == null || page.mSize != pageLen) {
+                return null;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(pageFileOf(key), StandardOpenOption.READ)) {
+            if (channel.size() != pageLen) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, pageLen);
+        } catch (NoSuchFileException e) {
+            // 刚好被淘汰掉了
+            return null;
+        }
+    }
+
+    private void store(String key, ByteBuffer data) {
+        int size = data.remaining();
+        if (size > mCapacityBytes) {
+            return;
+        }
+        Path file = pageFileOf(key);
+        Path tmp = mDir.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel
+                .open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 缓存写失败不影响这次读
+            LOG.warn("failed to cache page " + key, e);
+            deleteQuietly(tmp);
+            return;
+        }
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            Page old = mPages.put(key, new Page(size));
+            mSizeBytes += size - (old == null ? 0 : old.mSize);
+            Iterator<Map.Entry<String, Page>> it = mPages.entrySet().iterator();
+            while (mSizeBytes > mCapacityBytes && it.hasNext()) {
+                Map.Entry<String, Page> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                it.remove();
+                mSizeBytes -= eldest.getValue().mSize;
+                evicted.add(pageFileOf(eldest.getKey()));
+                mEvictions.incrementAndGet();
+            }
+        }
+        // 已经mmap出去的页在删除后仍然可以读
+        for (Path path : evicted) {
+            deleteQuietly(path);
+        }
+    }
+
+    /**
+     * 读取索引，丢掉对不上的条目，删掉索引里没有的页文件
+     */
+    private void load() throws IOException {
+        Path index = mDir.resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(index)))) {
+                if (in.readInt() == INDEX_MAGIC && in.readInt() == mPageSize) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String key = in.readUTF();
+                        long size = in.readLong();
+                        Path file = pageFileOf(key);
+                        if (Files.isRegularFile(file) && Files.size(file) == size) {
+                            mPages.put(key, new Page(size));
+                            mSizeBytes += size;
+                        }
+                    }
+                }
+            } catch (EOFException e) {
+                LOG.warn("the local cache index " + index + " is truncated, ignoring the rest");
+            }
+        }
+        Set<Path> live = new HashSet<>();
+        for (String key : mPages.keySet()) {
+            live.add(pageFileOf(key));
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(mDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if ((name.endsWith(PAGE_SUFFIX) && !live.contains(file)) || name.endsWith(".tmp")) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+        // 容量改小了的话先淘汰到上限以内
+        Iterator<Map.Entry<String, Page>> it = mPages.entrySet().iterator();
+        while (mSizeBytes > mCapacityBytes && it.hasNext()) {
+            Map.Entry<String, Page> eldest = it.next();
+            it.remove();
+            mSizeBytes -= eldest.getValue().mSize;
+            deleteQuietly(pageFileOf(eldest.getKey()));
+        }
+    }
+
+    private Path pageFileOf(String key) {
+        try {
+            byte[] digest =
+                MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + PAGE_SUFFIX.length());
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+            }
+            return mDir.resolve(name.append(PAGE_SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deliver(ByteBuffer page, long pageStart, int bufferSize,
+        AlluxioChunkConsumer consumer) throws Exception {
+        int limit = page.limit();
+        for (int pos = 0; pos < limit; pos += bufferSize) {
+            page.limit(Math.min(limit, pos + bufferSize)).position(pos);
+            consumer.accept(page, pageStart + pos);
+        }
+    }
+
+    private static void fill(FileInStream is, byte[] bytes, int len, String path)
+        throws IOException {
+        int filled = 0;
+        while (filled < len) {
+            int n = is.read(bytes, filled, len - filled);
+            if (n == -1) {
+                throw new EOFException("unexpected end of " + path);
+            }
+            filled += n;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOG.warn("failed to delete " + path, e);
+        }
+    }
+
+    private static final class Page {
+        private final long mSize;
+
+        private Page(long size) {
+            mSize = size;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.AlluxioURI;
+import alluxio.client.file.URIStatus;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端的元数据缓存，缓存exists、getStatus和listStatus的结果，减少对master的RPC。
+ * 容量有上限，按LRU淘汰，每个条目有TTL；模板自身的写操作会自动让相关路径失效。
+ * 另有一个按路径排序的索引，失效一棵子树只需要找它的路径区间，不用扫描整个缓存。
+ * 每次失效都会增加代数，带代数的put在加载期间发生过失效时直接丢掉结果，
+ * 失效之前发出的读不会把旧的结果放回缓存。
+ * 缓存的结果可能是过期的，所以只适合能容忍短暂不一致的读路径。
+ */
+public class AlluxioMetadataCache {
+
+    private static final String EXISTS = "e:";
+
+    private static final String STATUS = "s:";
+
+    private static final String LIST = "l:";
+
+    private final int mMaxEntries;
+
+    private final long mTtlMs;
+
+    private final LinkedHashMap<String, CacheEntry> mEntries;
+
+    /**
+     * 有缓存条目的路径以及它的条目数，和mEntries在同一把锁下维护
+     */
+    private final TreeMap<String, Integer> mPaths = new TreeMap<>();
+
+    private final AtomicLong mHits = new AtomicLong();
+
+    private final AtomicLong mMisses = new AtomicLong();
+
+    private final AtomicLong mEvictions = new AtomicLong();
+
+    /**
+     * 失效的次数，只在mEntries的锁下增加
+     */
+    private volatile long mGeneration;
+
+    /**
+     * @param maxEntries 最多缓存的条目数
+     * @param ttlMs      每个条目的存活时间，单位毫秒
+     */
+    public AlluxioMetadataCache(int maxEntries, long ttlMs) {
+        Preconditions.checkArgument(maxEntries > 0, "maxEntries should be positive!");
+        Preconditions.checkArgument(ttlMs > 0, "ttlMs should be positive!");
+        mMaxEntries = maxEntries;
+        mTtlMs = ttlMs;
+        mEntries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > mMaxEntries) {
+                    mEvictions.incrementAndGet();
+                    unindex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Boolean getExists(String path) {
+        return (Boolean) get(EXISTS + normalize(path));
+    }
+
+    public void putExists(String path, boolean exists) {
+        put(EXISTS + normalize(path), exists);
+    }
+
+    /**
+     * @param generation 发出读请求之前的getGeneration
+     */
+    public void putExists(String path, boolean exists, long generation) {
+        put(EXISTS + normalize(path), exists, generation);
+    }
+
+    public URIStatus getStatus(String path) {
+        return (URIStatus) get(STATUS + normalize(path));
+    }
+
+    public void putStatus(String path, URIStatus status) {
+        put(STATUS + normalize(path), status);
+    }
+
+    /**
+     * @param generation 发出读请求之前的getGeneration
+     */
+    public void putStatus(String path, URIStatus status, long generation) {
+        put(STATUS + normalize(path), status, generation);
+    }
+
+    /**
+     * 返回的列表是不可修改的
+     */
+    @SuppressWarnings("unchecked") public List<URIStatus> getListStatus(String path) {
+        return (List<URIStatus>) get(LIST + normalize(path));
+    }
+
+    public List<URIStatus> putListStatus(String path, List<URIStatus> statuses) {
+        List<URIStatus> copy = Collections.unmodifiableList(new ArrayList<>(statuses));
+        put(LIST + normalize(path), copy);
+        return copy;
+    }
+
+    /**
+     * @param generation 发出读请求之前的getGeneration
+     * @return 不可修改的副本，结果被丢掉时也一样返回
+     */
+    public List<URIStatus> putListStatus(String path, List<URIStatus> statuses,
+        long generation) {
+        List<URIStatus> copy = Collections.unmodifiableList(new ArrayList<>(statuses));
+        put(LIST + normalize(path), copy, generation);
+        return copy;
+    }
+
+    /**
+     * @return 当前的失效代数，在发出读请求之前取，和结果一起交给put
+     */
+    public long getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * 让path本身、它的所有子孙以及它父目录的listStatus结果失效
+     *
+     * @param path alluxio 路径
+     */
+    public void invalidate(String path) {
+        String normalized = normalize(path);
+        String descendantPrefix = normalized.endsWith("/") ? normalized : normalized + "/";
+        // '0'紧跟在'/'后面，这个区间正好是以descendantPrefix开头的所有路径
+        String descendantEnd =
+            descendantPrefix.substring(0, descendantPrefix.length() - 1) + '0';
+        String parent = parentOf(normalized);
+        synchronized (mEntries) {
+            mGeneration++;
+            removePath(normalized);
+            Iterator<String> it =
+                mPaths.subMap(descendantPrefix, descendantEnd).keySet().iterator();
+            while (it.hasNext()) {
+                String descendant = it.next();
+                it.remove();
+                mEntries.remove(EXISTS + descendant);
+                mEntries.remove(STATUS + descendant);
+                mEntries.remove(LIST + descendant);
+            }
+            if (parent != null) {
+                remove(LIST + parent);
+            }
+        }
+    }
+
+    /**
+     * 递归创建path之后调用，中间的各级父目录可能是这次隐式创建的，
+     * 让它们的exists、getStatus和listStatus结果失效。path本身仍然要调用invalidate
+     *
+     * @param path alluxio 路径
+     */
+    public void invalidateAncestors(String path) {
+        synchronized (mEntries) {
+            mGeneration++;
+            for (String ancestor = parentOf(normalize(path)); ancestor != null;
+                 ancestor = parentOf(ancestor)) {
+                removePath(ancestor);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (mEntries) {
+            mGeneration++;
+            mEntries.clear();
+            mPaths.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (mEntries) {
+            return mEntries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return mHits.get();
+    }
+
+    public long getMissCount() {
+        return mMisses.get();
+    }
+
+    public long getEvictionCount() {
+        return mEvictions.get();
+    }
+
+    private Object get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (mEntries) {
+            CacheEntry entry = mEntries.get(key);
+            if (entry != null) {
+                if (entry.mExpireAtMs > now) {
+                    mHits.incrementAndGet();
+                    return entry.mValue;
+                }
+                remove(key);
+            }
+        }
+        mMisses.incrementAndGet();
+        return null;
+    }
+
+    private void put(String key, Object value) {
+        CacheEntry entry = new CacheEntry(value, System.currentTimeMillis() + mTtlMs);
+        synchronized (mEntries) {
+            putLocked(key, entry);
+        }
+    }
+
+    private void put(String key, Object value, long generation) {
+        CacheEntry entry = new CacheEntry(value, System.currentTimeMillis() + mTtlMs);
+        synchronized (mEntries) {
+            // 加载期间有过失效，结果可能是失效之前的
+            if (mGeneration == generation) {
+                putLocked(key, entry);
+            }
+        }
+    }
+
+    private void putLocked(String key, CacheEntry entry) {
+        if (mEntries.put(key, entry) == null) {
+            mPaths.merge(key.substring(2), 1, Integer::sum);
+        }
+    }
+
+    private void removePath(String path) {
+        if (mPaths.remove(path) != null) {
+            mEntries.remove(EXISTS + path);
+            mEntries.remove(STATUS + path);
+            mEntries.remove(LIST + path);
+        }
+    }
+
+    private void remove(String key) {
+        if (mEntries.remove(key) != null) {
+            unindex(key);
+        }
+    }
+
+    private void unindex(String key) {
+        mPaths.computeIfPresent(key.substring(2), (path, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static String normalize(String path) {
+        return new AlluxioURI(path).getPath();
+    }
+
+    private static String parentOf(String path) {
+        int idx = path.lastIndexOf('/');
+        if (idx < 0 || path.length() == 1) {
+            return null;
+        }
+        return idx == 0 ? "/" : path.substring(0, idx);
+    }
+
+    private static final class CacheEntry {
+        private final Object mValue;
+        private final long mExpireAtMs;
+
+        private CacheEntry(Object value, long expireAtMs) {
+            mValue = value;
+            mExpireAtMs = expireAtMs;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.cds.learn.common.alluxio;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 默认的埋点实现：每个操作的调用次数、按异常类型分的错误数、正在执行的数目和延迟直方图，
+ * 以及流式读写的字节数。可以通过AlluxioMetricsJmxExporter暴露到JMX。
+ */
+public class AlluxioMetrics implements AlluxioMetricsRegistry {
+
+    private final ConcurrentMap<String, OperationStats> mOperations = new ConcurrentHashMap<>();
+
+    private final LongAdder mBytesRead = new LongAdder();
+
+    private final LongAdder mBytesWritten = new LongAdder();
+
+    @Override public void onStart(String operation) {
+        statsOf(operation).mInFlight.incrementAndGet();
+    }
+
+    @Override public void onComplete(String operation, long elapsedNanos, Exception error) {
+        OperationStats stats = statsOf(operation);
+        stats.mInFlight.decrementAndGet();
+        stats.mCalls.increment();
+        stats.mLatency.record(elapsedNanos);
+        if (error != null) {
+            stats.mErrors.computeIfAbsent(error.getClass().getSimpleName(), k -> new LongAdder())
+                .increment();
+        }
+    }
+
+    @Override public void onBytesRead(long bytes) {
+        mBytesRead.add(bytes);
+    }
+
+    @Override public void onBytesWritten(long bytes) {
+        mBytesWritten.add(bytes);
+    }
+
+    public long getBytesRead() {
+        return mBytesRead.sum();
+    }
+
+    public long getBytesWritten() {
+        return mBytesWritten.sum();
+    }
+
+    /**
+     * @return 所有出现过的操作，按操作名索引
+     */
+    public Map<String, OperationStats> getOperations() {
+        return Collections.unmodifiableMap(mOperations);
+    }
+
+    /**
+     * @return 某个操作的统计，没有调用过时返回null
+     */
+    public OperationStats getOperation(String operation) {
+        return mOperations.get(operation);
+    }
+
+    private OperationStats statsOf(String operation) {
+        OperationStats stats = mOperations.get(operation);
+        if (stats == null) {
+            stats = mOperations.computeIfAbsent(operation, k -> new OperationStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 单个操作的统计
+     */
+    public static final class OperationStats {
+        private final LongAdder mCalls = new LongAdder();
+        private final AtomicLong mInFlight = new AtomicLong();
+        private final ConcurrentMap<String, LongAdder> mErrors = new ConcurrentHashMap<>();
+        private final AlluxioLatencyHistogram mLatency = new AlluxioLatencyHistogram();
+
+        private OperationStats() {
+        }
+
+        public long getCalls() {
+            return mCalls.sum();
+        }
+
+        public long getInFlight() {
+            return mInFlight.get();
+        }
+
+        public long getErrors() {
+            long errors = 0;
+            for (LongAdder adder : mErrors.values()) {
+                errors += adder.sum();
+            }
+            return errors;
+        }
+
+        /**
+         * @return 异常的简单类名到次数的映射
+         */
+        public Map<String, Long> getErrorsByType() {
+            Map<String, Long> errors = new HashMap<>();
+            for (Map.Entry<String, LongAdder> entry : mErrors.entrySet()) {
+                errors.put(entry.getKey(), entry.getValue().sum());
+            }
+            return errors;
+        }
+
+        public AlluxioLatencyHistogram getLatency() {
+            return mLatency;
+        }
+    }
+}
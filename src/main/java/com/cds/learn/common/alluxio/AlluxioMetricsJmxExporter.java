@@ -0,0 +1,149 @@
+package com.cds.learn.common.alluxio;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把AlluxioMetrics注册成一个动态MBean，属性名形如getStatus.p99Micros，
+ * 新出现的操作会自动出现在属性列表里。
+ */
+public class AlluxioMetricsJmxExporter implements DynamicMBean {
+
+    private static final String[] OPERATION_ATTRIBUTES =
+        {"calls", "errors", "inFlight", "meanMicros", "p50Micros", "p90Micros", "p99Micros",
+            "p999Micros", "maxMicros"};
+
+    private final AlluxioMetrics mMetrics;
+
+    private final ObjectName mName;
+
+    private AlluxioMetricsJmxExporter(AlluxioMetrics metrics, ObjectName name) {
+        mMetrics = metrics;
+        mName = name;
+    }
+
+    /**
+     * 注册到平台MBeanServer
+     *
+     * @param metrics 要暴露的统计
+     * @param name    区分同一进程里多个模板的名字，比如master地址
+     * @return 注册好的exporter，不用时调用unregister
+     * @throws Exception
+     */
+    public static AlluxioMetricsJmxExporter register(AlluxioMetrics metrics, String name)
+        throws Exception {
+        ObjectName objectName = new ObjectName(
+            "com.cds.learn.common.alluxio:type=AlluxioMetrics,name=" + ObjectName.quote(name));
+        AlluxioMetricsJmxExporter exporter = new AlluxioMetricsJmxExporter(metrics, objectName);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(exporter, objectName);
+        return exporter;
+    }
+
+    public void unregister() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(mName)) {
+            server.unregisterMBean(mName);
+        }
+    }
+
+    @Override public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        if ("bytesRead".equals(attribute)) {
+            return mMetrics.getBytesRead();
+        }
+        if ("bytesWritten".equals(attribute)) {
+            return mMetrics.getBytesWritten();
+        }
+        int idx = attribute.lastIndexOf('.');
+        AlluxioMetrics.OperationStats stats =
+            idx < 0 ? null : mMetrics.getOperation(attribute.substring(0, idx));
+        if (stats == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        AlluxioLatencyHistogram latency = stats.getLatency();
+        switch (attribute.substring(idx + 1)) {
+            case "calls":
+                return stats.getCalls();
+            case "errors":
+                return stats.getErrors();
+            case "inFlight":
+                return stats.getInFlight();
+            case "meanMicros":
+                return latency.getMeanNanos() / 1000;
+            case "p50Micros":
+                return latency.getPercentileNanos(50) / 1000;
+            case "p90Micros":
+                return latency.getPercentileNanos(90) / 1000;
+            case "p99Micros":
+                return latency.getPercentileNanos(99) / 1000;
+            case "p999Micros":
+                return latency.getPercentileNanos(99.9) / 1000;
+            case "maxMicros":
+                return latency.getMaxNanos() / 1000;
+            default:
+                throw new AttributeNotFoundException(attribute);
+        }
+    }
+
+    @Override public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // 按JMX的约定，取不到的属性直接忽略
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 属性都是只读的，按JMX的约定抛AttributeNotFoundException，
+     * UnsupportedOperationException在远程的JMX客户端那边是一个看不懂的RuntimeMBeanException
+     */
+    @Override public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(
+            "alluxio metrics are read only: " + attribute.getName());
+    }
+
+    /**
+     * @return 空列表，表示一个属性都没有设置
+     */
+    @Override public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override public Object invoke(String actionName, Object[] params, String[] signature)
+        throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName),
+            "alluxio metrics have no operations");
+    }
+
+    @Override public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        attributes.add(attributeInfo("bytesRead"));
+        attributes.add(attributeInfo("bytesWritten"));
+        for (Map.Entry<String, AlluxioMetrics.OperationStats> entry : mMetrics.getOperations()
+            .entrySet()) {
+            for (String suffix : OPERATION_ATTRIBUTES) {
+                attributes.add(attributeInfo(entry.getKey() + "." + suffix));
+            }
+        }
+        return new MBeanInfo(getClass().getName(), "Alluxio template metrics",
+            attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+
+    private static MBeanAttributeInfo attributeInfo(String name) {
+        return new MBeanAttributeInfo(name, "long", name, true, false, false);
+    }
+}
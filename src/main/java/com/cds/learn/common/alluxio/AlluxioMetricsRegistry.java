@@ -0,0 +1,23 @@
+package com.cds.learn.common.alluxio;
+
+/**
+ * AlluxioTemplate的埋点接口，execute和executeNoResult每次调用前后各通知一次，
+ * 流式读写路径上报字节数。实现会在热路径上被并发调用，必须线程安全并且足够轻量。
+ *
+ * @see AlluxioMetrics
+ */
+public interface AlluxioMetricsRegistry {
+
+    void onStart(String operation);
+
+    /**
+     * @param operation    操作名，比如getStatus
+     * @param elapsedNanos 耗时，单位纳秒
+     * @param error        成功时为null
+     */
+    void onComplete(String operation, long elapsedNanos, Exception error);
+
+    void onBytesRead(long bytes);
+
+    void onBytesWritten(long bytes);
+}
@@ -0,0 +1,210 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.URIStatus;
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 把一棵目录树导出成命名空间快照。用AlluxioTreeWalker并行遍历，每一列一边遍历一边写进各自的临时文件，
+ * 内存里只保留目录路径到编号的映射，遍历完再把各列拼成最终的快照文件。
+ *
+ * @see AlluxioNamespaceSnapshot
+ */
+public class AlluxioNamespaceExporter {
+
+    private final AlluxioTemplate mTemplate;
+
+    private final int mParallelism;
+
+    /**
+     * @param template    用来遍历的模板
+     * @param parallelism 同时进行的listStatus的最大数目
+     */
+    public AlluxioNamespaceExporter(AlluxioTemplate template, int parallelism) {
+        Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        Preconditions.checkArgument(parallelism > 0, "parallelism should be positive!");
+        mTemplate = template;
+        mParallelism = parallelism;
+    }
+
+    /**
+     * @param root 导出的起点
+     * @param file 快照文件，已经存在的会被覆盖
+     * @return 导出的条目数，包括起点本身
+     * @throws Exception
+     */
+    public int export(String root, String file) throws Exception {
+        Path target = Paths.get(file);
+        Path[] tmps = new Path[AlluxioNamespaceSnapshot.COLUMNS];
+        for (int i = 0; i < AlluxioNamespaceSnapshot.COLUMNS; i++) {
+            tmps[i] = Paths.get(file + ".col" + i + ".tmp");
+        }
+        try {
+            int count;
+            try (Columns columns = new Columns(tmps)) {
+                new AlluxioTreeWalker(mTemplate, mParallelism, AlluxioTreeWalker.UNLIMITED_DEPTH)
+                    .walk(root, (status, depth) -> {
+                        columns.append(status);
+                        return true;
+                    });
+                count = columns.mCount;
+            }
+            assemble(target, tmps, count);
+            return count;
+        } finally {
+            for (Path tmp : tmps) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * 先写到临时文件再改名，导出失败时不会留下半个快照
+     */
+    private static void assemble(Path target, Path[] columns, int count) throws IOException {
+        Path tmp = Paths.get(target + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(AlluxioNamespaceSnapshot.HEADER_SIZE);
+            header.putInt(AlluxioNamespaceSnapshot.MAGIC);
+            header.putInt(AlluxioNamespaceSnapshot.VERSION);
+            header.putInt(count);
+            long offset = AlluxioNamespaceSnapshot.HEADER_SIZE;
+            for (Path column : columns) {
+                long length = Files.size(column);
+                header.putLong(offset).putLong(length);
+                offset += length;
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (Path column : columns) {
+                try (FileChannel in = FileChannel.open(column, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long pos = 0; pos < size; ) {
+                        pos += in.transferTo(pos, size - pos, out);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 各列的输出流。visitor会被多个线程同时调用，编号的分配和写入都在同一把锁下
+     */
+    private static final class Columns implements AutoCloseable {
+        private final DataOutputStream[] mOut =
+            new DataOutputStream[AlluxioNamespaceSnapshot.COLUMNS];
+        private final Map<String, Integer> mDirIds = new HashMap<>();
+        private int mCount;
+        private int mNameBytes;
+
+        private Columns(Path[] tmps) throws IOException {
+            try {
+                for (int i = 0; i < AlluxioNamespaceSnapshot.COLUMNS; i++) {
+                    mOut[i] = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(tmps[i]), 64 * 1024));
+                }
+                column(AlluxioNamespaceSnapshot.COLUMN_NAME_OFFSET).writeInt(0);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private synchronized void append(URIStatus status) throws IOException {
+            String path = status.getPath();
+            int parent;
+            String name;
+            if (mCount == 0) {
+                parent = -1;
+                name = path;
+            } else {
+                int slash = path.lastIndexOf('/');
+                Integer parentId = mDirIds.get(slash == 0 ? "/" : path.substring(0, slash));
+                if (parentId == null) {
+                    throw new IllegalStateException("parent of " + path + " is not exported");
+                }
+                parent = parentId;
+                name = path.substring(slash + 1);
+            }
+            if (status.isFolder()) {
+                mDirIds.put(path, mCount);
+            }
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            Preconditions.checkState(mNameBytes + nameBytes.length >= 0,
+                "too many names for one snapshot");
+            mNameBytes += nameBytes.length;
+            column(AlluxioNamespaceSnapshot.COLUMN_PARENT).writeInt(parent);
+            column(AlluxioNamespaceSnapshot.COLUMN_NAME_BYTES).write(nameBytes);
+            column(AlluxioNamespaceSnapshot.COLUMN_NAME_OFFSET).writeInt(mNameBytes);
+            column(AlluxioNamespaceSnapshot.COLUMN_LENGTH).writeLong(status.getLength());
+            column(AlluxioNamespaceSnapshot.COLUMN_MTIME)
+                .writeLong(status.getLastModificationTimeMs());
+            column(AlluxioNamespaceSnapshot.COLUMN_IN_MEMORY)
+                .writeByte(status.getInMemoryPercentage());
+            column(AlluxioNamespaceSnapshot.COLUMN_FLAGS).writeByte(flagsOf(status));
+            column(AlluxioNamespaceSnapshot.COLUMN_PERSISTENCE)
+                .writeByte(persistenceCodeOf(status.getPersistenceState()));
+            mCount++;
+        }
+
+        private DataOutputStream column(int column) {
+            return mOut[column];
+        }
+
+        @Override public void close() throws IOException {
+            IOException failure = null;
+            for (DataOutputStream out : mOut) {
+                if (out == null) {
+                    continue;
+                }
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private static int flagsOf(URIStatus status) {
+            int flags = 0;
+            if (status.isFolder()) {
+                flags |= AlluxioNamespaceSnapshot.FLAG_FOLDER;
+            }
+            if (status.isPersisted()) {
+                flags |= AlluxioNamespaceSnapshot.FLAG_PERSISTED;
+            }
+            if (status.isPinned()) {
+                flags |= AlluxioNamespaceSnapshot.FLAG_PINNED;
+            }
+            return flags;
+        }
+
+        private static int persistenceCodeOf(String state) {
+            String[] states = AlluxioNamespaceSnapshot.PERSISTENCE_STATES;
+            int code = Arrays.asList(states).indexOf(state);
+            return code < 0 ? states.length - 1 : code;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 命名空间快照的读取端。快照文件按列存放，每一列单独mmap，查询时只会读到用到的列，
+ * 不需要访问master。
+ * <p>
+ * 文件格式：头部是魔数、版本、条目数和每一列的偏移与长度，后面依次是各列。
+ * 每个条目的路径存成父条目的编号加上自己的名字，父条目的编号总是比子条目小，
+ * 第0个条目是导出的起点，名字是它的完整路径。
+ *
+ * @see AlluxioNamespaceExporter
+ */
+public class AlluxioNamespaceSnapshot {
+
+    static final int MAGIC = 0x414e5331;
+
+    static final int VERSION = 1;
+
+    static final int COLUMN_PARENT = 0;
+
+    static final int COLUMN_NAME_OFFSET = 1;
+
+    static final int COLUMN_NAME_BYTES = 2;
+
+    static final int COLUMN_LENGTH = 3;
+
+    static final int COLUMN_MTIME = 4;
+
+    static final int COLUMN_IN_MEMORY = 5;
+
+    static final int COLUMN_FLAGS = 6;
+
+    static final int COLUMN_PERSISTENCE = 7;
+
+    static final int COLUMNS = 8;
+
+    static final int HEADER_SIZE = 12 + COLUMNS * 16;
+
+    static final int FLAG_FOLDER = 1;
+
+    static final int FLAG_PERSISTED = 2;
+
+    static final int FLAG_PINNED = 4;
+
+    /**
+     * alluxio 1.0的PersistenceState，按下标编码成一个字节，不认识的状态存成最后一个
+     */
+    static final String[] PERSISTENCE_STATES =
+        {"NOT_PERSISTED", "TO_BE_PERSISTED", "PERSISTED", "LOST", "UNKNOWN"};
+
+    /**
+     * diff的回调
+     */
+    public interface DiffListener {
+        void onAdded(String path, int afterId);
+
+        void onRemoved(String path, int beforeId);
+
+        /**
+         * 长度、修改时间、是否目录、内存占比或者持久化状态有变化
+         */
+        void onChanged(String path, int beforeId, int afterId);
+    }
+
+    private final int mCount;
+
+    private final ByteBuffer[] mColumns = new ByteBuffer[COLUMNS];
+
+    private AlluxioNamespaceSnapshot(int count) {
+        mCount = count;
+    }
+
+    /**
+     * @param file 快照文件
+     * @throws IOException 文件不存在或者格式不对
+     */
+    public static AlluxioNamespaceSnapshot open(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // 读满头部
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a namespace snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version " + version + " in " + file);
+            }
+            AlluxioNamespaceSnapshot snapshot = new AlluxioNamespaceSnapshot(header.getInt());
+            for (int i = 0; i < COLUMNS; i++) {
+                long offset = header.getLong();
+                long length = header.getLong();
+                MappedByteBuffer column =
+                    channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                snapshot.mColumns[i] = column;
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return 条目数，包括起点本身
+     */
+    public int size() {
+        return mCount;
+    }
+
+    public int getParent(int id) {
+        return mColumns[COLUMN_PARENT].getInt(id * 4);
+    }
+
+    public String getName(int id) {
+        ByteBuffer offsets = mColumns[COLUMN_NAME_OFFSET];
+        int start = offsets.getInt(id * 4);
+        int end = offsets.getInt(id * 4 + 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer names = mColumns[COLUMN_NAME_BYTES].duplicate();
+        names.position(start);
+        names.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String getPath(int id) {
+        int parent = getParent(id);
+        if (parent < 0) {
+            return getName(id);
+        }
+        String parentPath = getPath(parent);
+        return (parentPath.endsWith("/") ? parentPath : parentPath + "/") + getName(id);
+    }
+
+    public long getLength(int id) {
+        return mColumns[COLUMN_LENGTH].getLong(id * 8);
+    }
+
+    public long getLastModificationTimeMs(int id) {
+        return mColumns[COLUMN_MTIME].getLong(id * 8);
+    }
+
+    public int getInMemoryPercentage(int id) {
+        return mColumns[COLUMN_IN_MEMORY].get(id);
+    }
+
+    public boolean isFolder(int id) {
+        return (mColumns[COLUMN_FLAGS].get(id) & FLAG_FOLDER) != 0;
+    }
+
+    public boolean isPersisted(int id) {
+        return (mColumns[COLUMN_FLAGS].get(id) & FLAG_PERSISTED) != 0;
+    }
+
+    public boolean isPinned(int id) {
+        return (mColumns[COLUMN_FLAGS].get(id) & FLAG_PINNED) != 0;
+    }
+
+    public String getPersistenceState(int id) {
+        return PERSISTENCE_STATES[mColumns[COLUMN_PERSISTENCE].get(id)];
+    }
+
+    /**
+     * @param path 完整路径
+     * @return 条目编号，快照里没有时返回-1
+     */
+    public int find(String path) {
+        String root = getName(0);
+        String normalized = path.length() > 1 && path.endsWith("/") ?
+            path.substring(0, path.length() - 1) : path;
+        if (normalized.equals(root)) {
+            return 0;
+        }
+        String prefix = root.endsWith("/") ? root : root + "/";
+        if (!normalized.startsWith(prefix)) {
+            return -1;
+        }
+        int current = 0;
+        for (String name : normalized.substring(prefix.length()).split("/")) {
+            int next = -1;
+            // 子条目的编号总是比父条目大
+            for (int i = current + 1; i < mCount && next < 0; i++) {
+                if (getParent(i) == current && getName(i).equals(name)) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                return -1;
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * @return path下（包括path本身）所有文件的总字节数
+     */
+    public long getTotalBytes(String path) {
+        BitSet under = subtreeOf(path);
+        long total = 0;
+        for (int i = under.nextSetBit(0); i >= 0; i = under.nextSetBit(i + 1)) {
+            if (!isFolder(i)) {
+                total += getLength(i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return path下（包括path本身）所有文件中不在alluxio内存里的字节数，按内存占比估算
+     */
+    public long getBytesNotInMemory(String path) {
+        BitSet under = subtreeOf(path);
+        long total = 0;
+        for (int i = under.nextSetBit(0); i >= 0; i = under.nextSetBit(i + 1)) {
+            if (!isFolder(i)) {
+                total += getLength(i) * (100 - getInMemoryPercentage(i)) / 100;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 比较两个快照，按路径匹配条目
+     *
+     * @param before   旧的快照
+     * @param after    新的快照
+     * @param listener 每个有差异的条目回调一次
+     */
+    public static void diff(AlluxioNamespaceSnapshot before, AlluxioNamespaceSnapshot after,
+        DiffListener listener) {
+        Preconditions.checkNotNull(listener, "the diff listener should not be null!");
+        String[] beforePaths = before.paths();
+        Map<String, Integer> beforeIds = new HashMap<>(beforePaths.length * 4 / 3 + 1);
+        for (int i = 0; i < beforePaths.length; i++) {
+            beforeIds.put(beforePaths[i], i);
+        }
+        String[] afterPaths = after.paths();
+        BitSet matched = new BitSet(beforePaths.length);
+        for (int i = 0; i < afterPaths.length; i++) {
+            Integer beforeId = beforeIds.get(afterPaths[i]);
+            if (beforeId == null) {
+                listener.onAdded(afterPaths[i], i);
+                continue;
+            }
+            matched.set(beforeId);
+            if (differs(before, beforeId, after, i)) {
+                listener.onChanged(afterPaths[i], beforeId, i);
+            }
+        }
+        for (int i = matched.nextClearBit(0); i < beforePaths.length;
+             i = matched.nextClearBit(i + 1)) {
+            listener.onRemoved(beforePaths[i], i);
+        }
+    }
+
+    private static boolean differs(AlluxioNamespaceSnapshot before, int beforeId,
+        AlluxioNamespaceSnapshot after, int afterId) {
+        for (int column : new int[] {COLUMN_LENGTH, COLUMN_MTIME}) {
+            if (before.mColumns[column].getLong(beforeId * 8) != after.mColumns[column]
+                .getLong(afterId * 8)) {
+                return true;
+            }
+        }
+        for (int column : new int[] {COLUMN_IN_MEMORY, COLUMN_FLAGS, COLUMN_PERSISTENCE}) {
+            if (before.mColumns[column].get(beforeId) != after.mColumns[column].get(afterId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 父条目的编号比子条目小，所以一次顺序扫描就能标出整棵子树
+     */
+    private BitSet subtreeOf(String path) {
+        BitSet under = new BitSet(mCount);
+        int root = find(path);
+        if (root < 0) {
+            return under;
+        }
+        under.set(root);
+        for (int i = root + 1; i < mCount; i++) {
+            if (under.get(getParent(i))) {
+                under.set(i);
+            }
+        }
+        return under;
+    }
+
+    /**
+     * 按编号顺序拼出所有路径，父路径已经算好了，不用递归
+     */
+    private String[] paths() {
+        String[] paths = new String[mCount];
+        for (int i = 0; i < mCount; i++) {
+            int parent = getParent(i);
+            if (parent < 0) {
+                paths[i] = getName(i);
+            } else {
+                String parentPath = paths[parent];
+                paths[i] = (parentPath.endsWith("/") ? parentPath : parentPath + "/") + getName(i);
+            }
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,215 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.URIStatus;
+import alluxio.client.file.options.OpenFileOptions;
+import com.google.common.base.Preconditions;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 并行读取单个大文件。根据getStatus拿到的块大小把文件切成不跨块的区间，
+ * 每个线程各自打开一个FileInStream，通过seek读取分到的区间，这样不同worker上的块可以同时读。
+ * <p>
+ * 无序模式下数据一读到就连同偏移交给sink，sink会被多个线程同时调用；
+ * 有序模式下区间按chunk大小切分，每个线程读完一个区间后等轮到自己再交付，
+ * 内存占用不超过parallelism个chunk。
+ */
+public class AlluxioParallelReader {
+
+
+    private final AlluxioTemplate mTemplate;
+
+    private final int mParallelism;
+
+    private final int mChunkSize;
+
+    private final OpenFileOptions mOptions;
+
+    /**
+     * @param template    用来getStatus和openFile的模板
+     * @param parallelism 同时打开的流的数目
+     * @param chunkSize   每次交给sink的最大字节数
+     * @param options     打开文件的参数
+     */
+    public AlluxioParallelReader(AlluxioTemplate template, int parallelism, int chunkSize,
+        OpenFileOptions options) {
+        Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        Preconditions.checkArgument(parallelism > 0, "parallelism should be positive!");
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize should be positive!");
+        mTemplate = template;
+        mParallelism = parallelism;
+        mChunkSize = chunkSize;
+        mOptions = options;
+    }
+
+    /**
+     * @param path    alluxio 文件路径
+     * @param sink    接收数据的回调
+     * @param ordered 是否按文件顺序交付，为true时sink不会被并发调用
+     * @return 读到的总字节数
+     * @throws Exception
+     */
+    public long read(String path, AlluxioChunkConsumer sink, boolean ordered) throws Exception {
+        Preconditions.checkNotNull(sink, "the sink should not be null!");
+        URIStatus status = mTemplate.getStatus(path);
+        Preconditions.checkArgument(!status.isFolder(), "%s is a directory", path);
+        long length = status.getLength();
+        if (length == 0) {
+            return 0;
+        }
+        long maxRange = ordered ? mChunkSize : rangeSizeOf(length);
+        List<long[]> ranges = split(length, status.getBlockSizeBytes(), maxRange);
+
+        int threads = Math.min(mParallelism, ranges.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            AlluxioUtils.daemonThreadFactory("alluxio-parallel-read"));
+        Read read = new Read(path, ranges, sink, ordered);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(AlluxioIoScheduler.propagate(() -> {
+                    read.run();
+                    return null;
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (read.mError.get() != null) {
+            throw read.mError.get();
+        }
+        return length;
+    }
+
+    /**
+     * 块数比并行度少的时候继续切小，让每个线程都有活干
+     */
+    private long rangeSizeOf(long length) {
+        long perThread = (length + mParallelism - 1) / mParallelism;
+        return Math.max(mChunkSize, (perThread + mChunkSize - 1) / mChunkSize * mChunkSize);
+    }
+
+    private static List<long[]> split(long length, long blockSize, long maxRange) {
+        long block = blockSize > 0 ? blockSize : length;
+        List<long[]> ranges = new ArrayList<>();
+        for (long blockStart = 0; blockStart < length; blockStart += block) {
+            long blockEnd = Math.min(length, blockStart + block);
+            for (long start = blockStart; start < blockEnd; start += maxRange) {
+                ranges.add(new long[] {start, Math.min(blockEnd, start + maxRange)});
+            }
+        }
+        return ranges;
+    }
+
+    private final class Read {
+        private final String mPath;
+        private final List<long[]> mRanges;
+        private final AlluxioChunkConsumer mSink;
+        private final boolean mOrdered;
+        private final AtomicInteger mNextRange = new AtomicInteger();
+        private final AtomicReference<Exception> mError = new AtomicReference<>();
+        private final Object mTurnLock = new Object();
+        private int mTurn;
+
+        private Read(String path, List<long[]> ranges, AlluxioChunkConsumer sink,
+            boolean ordered) {
+            mPath = path;
+            mRanges = ranges;
+            mSink = sink;
+            mOrdered = ordered;
+        }
+
+        private void run() {
+            AlluxioBufferPool pool = mTemplate.getBufferPool();
+            ByteBuffer buf = pool.acquire(mChunkSize);
+            try (FileInStream is = mTemplate.openFile(mPath, mOptions)) {
+                int index;
+                while (mError.get() == null && (index = mNextRange.getAndIncrement()) < mRanges
+                    .size()) {
+                    long[] range = mRanges.get(index);
+                    is.seek(range[0]);
+                    if (mOrdered) {
+                        fill(is, buf, (int) (range[1] - range[0]));
+                        mTemplate.recordBytesRead(range[1] - range[0]);
+                        awaitTurn(index);
+                        try {
+                            mSink.accept(buf, range[0]);
+                        } finally {
+                            passTurn();
+                        }
+                    } else {
+                        stream(is, buf, range[0], range[1]);
+                    }
+                }
+            } catch (Exception e) {
+                mError.compareAndSet(null, e);
+                synchronized (mTurnLock) {
+                    mTurnLock.notifyAll();
+                }
+            } finally {
+                pool.release(buf);
+            }
+        }
+
+        private void stream(FileInStream is, ByteBuffer buf, long start, long end)
+            throws Exception {
+            byte[] bytes = buf.array();
+            long offset = start;
+            while (offset < end) {
+                int bytesRead = is.read(bytes, 0, (int) Math.min(mChunkSize, end - offset));
+                if (bytesRead == -1) {
+                    throw new EOFException("unexpected end of " + mPath + " at " + offset);
+                }
+                buf.clear();
+                buf.limit(bytesRead);
+                mTemplate.recordBytesRead(bytesRead);
+                mSink.accept(buf, offset);
+                offset += bytesRead;
+            }
+        }
+
+        private void fill(FileInStream is, ByteBuffer buf, int len) throws Exception {
+            byte[] bytes = buf.array();
+            int filled = 0;
+            while (filled < len) {
+                int bytesRead = is.read(bytes, filled, len - filled);
+                if (bytesRead == -1) {
+                    throw new EOFException("unexpected end of " + mPath);
+                }
+                filled += bytesRead;
+            }
+            buf.clear();
+            buf.limit(len);
+        }
+
+        private void awaitTurn(int index) throws Exception {
+            synchronized (mTurnLock) {
+                while (mTurn != index) {
+                    if (mError.get() != null) {
+                        throw mError.get();
+                    }
+                    mTurnLock.wait();
+                }
+            }
+        }
+
+        private void passTurn() {
+            synchronized (mTurnLock) {
+                mTurn++;
+                mTurnLock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.policy.FileWriteLocationPolicy;
+
+/**
+ * 模板的块放置策略，为每个要写的文件给出alluxio的FileWriteLocationPolicy。
+ * 设置到模板上之后，不指定worker的写（AlluxioConsts.NON_SPECIFIED_WORKER）都会使用它。
+ *
+ * @see AlluxioTemplate#setPlacementPolicy(AlluxioPlacementPolicy)
+ * @see AlluxioRoundRobinPlacement
+ * @see AlluxioConsistentHashPlacement
+ * @see AlluxioWeightedPlacement
+ */
+public interface AlluxioPlacementPolicy {
+    /**
+     * @param path 要写的alluxio文件路径
+     * @return 这个文件每个块写到哪个worker
+     */
+    FileWriteLocationPolicy policyFor(String path);
+}
@@ -0,0 +1,17 @@
+package com.cds.learn.common.alluxio;
+
+/**
+ * 调用的优先级，AlluxioIoScheduler总是先放行INTERACTIVE的调用
+ *
+ * @see AlluxioIoScheduler#tag(String, AlluxioPriority)
+ */
+public enum AlluxioPriority {
+    /**
+     * 在线查询一类对延迟敏感的调用
+     */
+    INTERACTIVE,
+    /**
+     * 批量读写、递归扫描一类只关心吞吐的调用
+     */
+    BATCH
+}
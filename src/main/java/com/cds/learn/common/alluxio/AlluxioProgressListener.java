@@ -0,0 +1,8 @@
+package com.cds.learn.common.alluxio;
+
+/**
+ * 批量传输的进度回调，每完成一个文件调用一次，可能被多个线程同时调用。
+ */
+public interface AlluxioProgressListener {
+    void onProgress(String path, AlluxioTransferStats stats);
+}
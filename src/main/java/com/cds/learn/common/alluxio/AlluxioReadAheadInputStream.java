@@ -0,0 +1,351 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 带预读的FileInStream包装。连续几次顺序读之后，后台线程会提前把后面的几个区间读进池化的buffer，
+ * 让网络I/O和调用方的计算重叠；一旦出现随机seek，就丢掉预读的数据，退回到直接读。
+ * 不是线程安全的。
+ */
+public class AlluxioReadAheadInputStream extends InputStream {
+
+
+    /**
+     * 连续多少次顺序读之后开始预读
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 2;
+
+    private final FileInStream mIn;
+
+    private final AlluxioBufferPool mBufferPool;
+
+    private final int mChunkSize;
+
+    private final int mChunks;
+
+    private final long mLength;
+
+    private final Deque<Future<ByteBuffer>> mPrefetched = new ArrayDeque<>();
+
+    private final byte[] mOne = new byte[1];
+
+    /**
+     * 丢弃预读时置位，还没开始的预读任务看到后直接返回，不再碰底层流
+     */
+    private volatile boolean mDiscarding;
+
+    private ExecutorService mFetcher;
+
+    private ByteBuffer mCurrent;
+
+    private long mPos;
+
+    private int mSequentialReads;
+
+    private boolean mClosed;
+
+    /**
+     * 预读失败后底层流也没能退回到mPos时置位，之后的读都失败，不能返回错位的数据
+     */
+    private IOException mFailed;
+
+    private long mPrefetchHits;
+
+    private long mPrefetchWaits;
+
+    private long mDirectReads;
+
+    /**
+     * @param in         被包装的流，关闭时一起关闭
+     * @param bufferPool 预读buffer的来源
+     * @param chunkSize  每次预读的字节数
+     * @param chunks     最多提前读多少块，也就是预读占用内存的上限
+     */
+    public AlluxioReadAheadInputStream(FileInStream in, AlluxioBufferPool bufferPool,
+        int chunkSize, int chunks) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize should be positive!");
+        Preconditions.checkArgument(chunks > 0, "chunks should be positive!");
+        mIn = in;
+        mBufferPool = bufferPool;
+        mChunkSize = chunkSize;
+        mChunks = chunks;
+        mLength = in.remaining();
+    }
+
+    @Override public int read() throws IOException {
+        return read(mOne, 0, 1) == -1 ? -1 : mOne[0] & 0xFF;
+    }
+
+    @Override public int read(byte[] b, int off, int len) throws IOException {
+        checkOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (mCurrent == null && mPrefetched.isEmpty()) {
+            int n = mIn.read(b, off, len);
+            mDirectReads++;
+            if (n > 0) {
+                mPos += n;
+                if (++mSequentialReads >= SEQUENTIAL_THRESHOLD) {
+                    fillWindow();
+                }
+            }
+            return n;
+        }
+        if (mCurrent == null) {
+            mCurrent = takeChunk();
+            if (mCurrent == null) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, mCurrent.remaining());
+        mCurrent.get(b, off, n);
+        mPos += n;
+        if (!mCurrent.hasRemaining()) {
+            mBufferPool.release(mCurrent);
+            mCurrent = null;
+            fillWindow();
+        }
+        return n;
+    }
+
+    /**
+     * 跳到文件的pos处。落在当前预读块内时直接移动，否则丢掉所有预读的数据
+     */
+    public void seek(long pos) throws IOException {
+        checkOpen();
+        Preconditions.checkArgument(pos >= 0 && pos <= mLength, "seek position out of range");
+        if (pos == mPos) {
+            return;
+        }
+        if (mCurrent != null) {
+            long chunkStart = mPos - mCurrent.position();
+            if (pos >= chunkStart && pos < chunkStart + mCurrent.limit()) {
+                mCurrent.position((int) (pos - chunkStart));
+                mPos = pos;
+                return;
+            }
+        }
+        discardPrefetched();
+        mIn.seek(pos);
+        mPos = pos;
+        mSequentialReads = 0;
+    }
+
+    @Override public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long target = Math.min(mLength, mPos + n);
+        long skipped = target - mPos;
+        seek(target);
+        return skipped;
+    }
+
+    public long remaining() {
+        return mLength - mPos;
+    }
+
+    @Override public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, remaining());
+    }
+
+    @Override public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        try {
+            discardPrefetched();
+        } finally {
+            if (mFetcher != null) {
+                mFetcher.shutdownNow();
+            }
+            mIn.close();
+        }
+    }
+
+    /**
+     * @return 需要时预读块已经就绪的次数
+     */
+    public long getPrefetchHits() {
+        return mPrefetchHits;
+    }
+
+    /**
+     * @return 需要时预读块还没读完、要等待的次数
+     */
+    public long getPrefetchWaits() {
+        return mPrefetchWaits;
+    }
+
+    /**
+     * @return 没有走预读、直接读底层流的次数
+     */
+    public long getDirectReads() {
+        return mDirectReads;
+    }
+
+    /**
+     * @return 预读命中率，没有用到预读时为0
+     */
+    public double getPrefetchHitRate() {
+        long total = mPrefetchHits + mPrefetchWaits;
+        return total == 0 ? 0 : (double) mPrefetchHits / total;
+    }
+
+    /**
+     * 让在途的预读块保持在mChunks个。预读任务在单线程上按提交顺序执行，所以底层流是顺序读的
+     */
+    private void fillWindow() {
+        if (mFetcher == null) {
+            mFetcher = Executors.newSingleThreadExecutor(
+                AlluxioUtils.daemonThreadFactory("alluxio-read-ahead"));
+        }
+        while (mPrefetched.size() < mChunks) {
+            mPrefetched.addLast(mFetcher.submit(this::fetchChunk));
+        }
+    }
+
+    private ByteBuffer fetchChunk() throws IOException {
+        if (mDiscarding) {
+            return null;
+        }
+        ByteBuffer buf = mBufferPool.acquire(mChunkSize);
+        byte[] bytes = buf.array();
+        int filled = 0;
+        try {
+            while (filled < mChunkSize) {
+                int n = mIn.read(bytes, filled, mChunkSize - filled);
+                if (n == -1) {
+                    break;
+                }
+                filled += n;
+            }
+        } catch (IOException | RuntimeException e) {
+            mBufferPool.release(buf);
+            throw e;
+        }
+        buf.limit(filled);
+        return buf;
+    }
+
+    /**
+     * @return 下一个预读块，到文件末尾时返回null
+     */
+    private ByteBuffer takeChunk() throws IOException {
+        Future<ByteBuffer> future = mPrefetched.peekFirst();
+        if (future.isDone()) {
+            mPrefetchHits++;
+        } else {
+            mPrefetchWaits++;
+        }
+        ByteBuffer chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            // 任务留在队首，discardPrefetched和close仍然会等它结束
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for read-ahead");
+        } catch (ExecutionException e) {
+            throw recover(e.getCause());
+        }
+        mPrefetched.pollFirst();
+        if (chunk.limit() == 0) {
+            mBufferPool.release(chunk);
+            discardPrefetched();
+            return null;
+        }
+        return chunk;
+    }
+
+    /**
+     * 丢掉所有预读的数据，等所有预读任务结束并归还它们的buffer，之后底层流只会被当前线程使用。
+     * 不能用Future#cancel：正在执行的任务被cancel后get立即返回，任务却还在读底层流。
+     */
+    private void discardPrefetched() throws IOException {
+        if (mCurrent != null) {
+            mBufferPool.release(mCurrent);
+            mCurrent = null;
+        }
+        IOException failure = null;
+        boolean interrupted = false;
+        mDiscarding = true;
+        try {
+            Future<ByteBuffer> future;
+            while ((future = mPrefetched.peekFirst()) != null) {
+                try {
+                    ByteBuffer chunk = future.get();
+                    if (chunk != null) {
+                        mBufferPool.release(chunk);
+                    }
+                } catch (InterruptedException e) {
+                    // 任务结束前不能返回，否则底层流会被两个线程同时使用
+                    interrupted = true;
+                    continue;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    failure = cause instanceof IOException ? (IOException) cause :
+                        new IOException("read-ahead failed", cause);
+                }
+                mPrefetched.pollFirst();
+            }
+        } finally {
+            mDiscarding = false;
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 预读失败后等其余的预读任务结束，把底层流退回到mPos，之后改为直接读，
+     * 调用者捕获异常后接着读也不会读到错位的数据；退不回去时整个流进入失败状态
+     *
+     * @return 要抛给调用者的异常
+     */
+    private IOException recover(Throwable cause) {
+        IOException failure = cause instanceof IOException ? (IOException) cause :
+            new IOException("read-ahead failed", cause);
+        try {
+            discardPrefetched();
+        } catch (IOException e) {
+            // 失败的那个任务还在队首，这里会再抛一次同样的异常
+            if (e != cause && e.getCause() != cause) {
+                failure.addSuppressed(e);
+            }
+        }
+        try {
+            mIn.seek(mPos);
+            mSequentialReads = 0;
+        } catch (IOException | RuntimeException e) {
+            failure.addSuppressed(e);
+            mFailed = failure;
+        }
+        return failure;
+    }
+
+    private void checkOpen() throws IOException {
+        if (mClosed) {
+            throw new IOException("the read-ahead stream is closed");
+        }
+        if (mFailed != null) {
+            throw new IOException("the read-ahead stream failed", mFailed);
+        }
+    }
+}
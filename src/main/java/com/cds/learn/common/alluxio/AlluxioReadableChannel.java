@@ -0,0 +1,106 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * 把FileInStream包装成ReadableByteChannel。目标是heap buffer时直接读进它的底层数组，
+ * 是direct buffer时经过一个从池里借来的中转数组，关闭时归还。
+ */
+public class AlluxioReadableChannel implements ReadableByteChannel {
+
+    private static final int TRANSFER_SIZE = 64 * 1024;
+
+    private final FileInStream mInStream;
+
+    private final AlluxioBufferPool mBufferPool;
+
+    private final AlluxioMetricsRegistry mMetrics;
+
+    private final AlluxioTemplate mTemplate;
+
+    private ByteBuffer mTransfer;
+
+    private boolean mOpen = true;
+
+    public AlluxioReadableChannel(FileInStream inStream, AlluxioBufferPool bufferPool) {
+        this(inStream, bufferPool, null);
+    }
+
+    /**
+     * @param metrics 上报读到的字节数，可以为null
+     */
+    public AlluxioReadableChannel(FileInStream inStream, AlluxioBufferPool bufferPool,
+        AlluxioMetricsRegistry metrics) {
+        mInStream = inStream;
+        mBufferPool = bufferPool;
+        mMetrics = metrics;
+        mTemplate = null;
+    }
+
+    /**
+     * 读到的字节数交给模板统计，和其它流一样计入指标和调用者租户的带宽限制
+     */
+    AlluxioReadableChannel(AlluxioTemplate template, FileInStream inStream) {
+        mInStream = inStream;
+        mBufferPool = template.getBufferPool();
+        mMetrics = null;
+        mTemplate = template;
+    }
+
+    @Override public int read(ByteBuffer dst) throws IOException {
+        if (!mOpen) {
+            throw new ClosedChannelException();
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (dst.hasArray()) {
+            int n =
+                mInStream.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if (n > 0) {
+                dst.position(dst.position() + n);
+                recordBytesRead(n);
+            }
+            return n;
+        }
+        if (mTransfer == null) {
+            mTransfer = mBufferPool.acquire(TRANSFER_SIZE);
+        }
+        int n = mInStream.read(mTransfer.array(), 0, Math.min(dst.remaining(), TRANSFER_SIZE));
+        if (n > 0) {
+            dst.put(mTransfer.array(), 0, n);
+            recordBytesRead(n);
+        }
+        return n;
+    }
+
+    private void recordBytesRead(int n) {
+        if (mTemplate != null) {
+            mTemplate.recordBytesRead(n);
+        } else if (mMetrics != null) {
+            mMetrics.onBytesRead(n);
+        }
+    }
+
+    @Override public boolean isOpen() {
+        return mOpen;
+    }
+
+    @Override public void close() throws IOException {
+        if (!mOpen) {
+            return;
+        }
+        mOpen = false;
+        try {
+            mInStream.close();
+        } finally {
+            mBufferPool.release(mTransfer);
+            mTransfer = null;
+        }
+    }
+}
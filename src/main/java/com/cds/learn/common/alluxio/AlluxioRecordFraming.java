@@ -0,0 +1,15 @@
+package com.cds.learn.common.alluxio;
+
+/**
+ * AlluxioRecordWriter写出的记录之间怎么分隔
+ */
+public enum AlluxioRecordFraming {
+    /**
+     * 每条记录后面跟一个'\n'，记录本身不能包含换行
+     */
+    NEWLINE,
+    /**
+     * 每条记录前面是4个字节的大端长度，记录可以包含任何字符
+     */
+    LENGTH_PREFIXED
+}
@@ -0,0 +1,185 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileOutStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 文本记录写入器，适合日志一类一条一条追加的场景。记录用复用的CharsetEncoder直接编码进
+ * 从池里借来的buffer，攒满后整块写进FileOutStream，每条记录没有任何内存分配。
+ * <p>
+ * 写之前先用AlluxioUtils#utf8LenCounter算出编码后的长度：剩余空间放不下整条记录时先把buffer写出，
+ * 所以除了比buffer还大的记录，每次写出都落在记录边界上；长度前缀也直接用它，不需要回填。
+ * 不是线程安全的，一个writer只能由一个线程使用。
+ *
+ * @see AlluxioTemplate#createRecordWriter
+ */
+public class AlluxioRecordWriter implements Closeable {
+
+    private static final int CHAR_CHUNK = 8 * 1024;
+
+    private final AlluxioTemplate mTemplate;
+
+    private final FileOutStream mOutStream;
+
+    private final AlluxioRecordFraming mFraming;
+
+    private final AlluxioBufferPool mBufferPool;
+
+    private final CharsetEncoder mEncoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final char[] mCharArray = new char[CHAR_CHUNK];
+
+    private final CharBuffer mChars = CharBuffer.wrap(mCharArray);
+
+    private ByteBuffer mBuffer;
+
+    private long mRecords;
+
+    private long mBytes;
+
+    private boolean mClosed;
+
+    /**
+     * @param template   用来上报写入字节数和借buffer的模板
+     * @param outStream  已经创建好的文件，关闭writer时一起关闭
+     * @param framing    记录的分隔方式
+     * @param bufferSize 每次写出的最大字节数，不小于16
+     */
+    AlluxioRecordWriter(AlluxioTemplate template, FileOutStream outStream,
+        AlluxioRecordFraming framing, int bufferSize) {
+        mTemplate = template;
+        mOutStream = outStream;
+        mFraming = framing;
+        mBufferPool = template.getBufferPool();
+        mBuffer = mBufferPool.acquire(bufferSize);
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param record 记录内容，NEWLINE分隔时不能包含换行
+     */
+    public void write(CharSequence record) throws IOException {
+        if (mClosed) {
+            throw new IOException("the alluxio record writer is closed");
+        }
+        int length = AlluxioUtils.utf8LenCounter(record);
+        int framed = length + (mFraming == AlluxioRecordFraming.LENGTH_PREFIXED ? 4 : 1);
+        if (framed > mBuffer.remaining() && mBuffer.position() > 0) {
+            flushBuffer();
+        }
+        if (mFraming == AlluxioRecordFraming.LENGTH_PREFIXED) {
+            ensureRemaining(4);
+            mBuffer.putInt(length);
+        }
+        encode(record);
+        if (mFraming == AlluxioRecordFraming.NEWLINE) {
+            ensureRemaining(1);
+            mBuffer.put((byte) '\n');
+        }
+        mRecords++;
+        mBytes += framed;
+    }
+
+    /**
+     * 把攒下的记录写进FileOutStream
+     */
+    public void flush() throws IOException {
+        if (mBuffer != null && mBuffer.position() > 0) {
+            flushBuffer();
+        }
+        mOutStream.flush();
+    }
+
+    @Override public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        try {
+            if (mBuffer.position() > 0) {
+                flushBuffer();
+            }
+        } catch (IOException e) {
+            // 数据不完整，不能让它变成一个看起来正常的文件
+            mOutStream.cancel();
+            throw e;
+        } finally {
+            mBufferPool.release(mBuffer);
+            mBuffer = null;
+        }
+        mOutStream.close();
+    }
+
+    /**
+     * @return 已经写入的记录数
+     */
+    public long getRecords() {
+        return mRecords;
+    }
+
+    /**
+     * @return 已经写入的字节数，包括分隔符和长度前缀
+     */
+    public long getBytes() {
+        return mBytes;
+    }
+
+    /**
+     * 分段把字符拷进复用的CharBuffer再编码，String直接用getChars，不会为每条记录包装一个CharBuffer
+     */
+    private void encode(CharSequence record) throws IOException {
+        mEncoder.reset();
+        mChars.clear();
+        int next = 0;
+        int length = record.length();
+        while (true) {
+            int end = Math.min(length, next + mChars.remaining());
+            int position = mChars.position();
+            if (record instanceof String) {
+                ((String) record).getChars(next, end, mCharArray, position);
+            } else {
+                for (int i = next; i < end; i++) {
+                    mCharArray[position + i - next] = record.charAt(i);
+                }
+            }
+            mChars.position(position + end - next);
+            next = end;
+            mChars.flip();
+            boolean last = next == length;
+            while (mEncoder.encode(mChars, mBuffer, last).isOverflow()) {
+                flushBuffer();
+            }
+            if (last) {
+                break;
+            }
+            // 分段处正好是一个代理对的前半个时，它会留在mChars里等下一段
+            mChars.compact();
+        }
+        while (mEncoder.flush(mBuffer).isOverflow()) {
+            flushBuffer();
+        }
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (mBuffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        int n = mBuffer.position();
+        mOutStream.write(mBuffer.array(), mBuffer.arrayOffset(), n);
+        mTemplate.recordBytesWritten(n);
+        mBuffer.clear();
+    }
+}
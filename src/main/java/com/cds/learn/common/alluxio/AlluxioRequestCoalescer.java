@@ -0,0 +1,162 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并同一路径上并发的只读元数据调用（single flight）：同一时刻对同一个路径的同一个操作只发一次RPC，
+ * 后来的调用者等它结束，拿到同一个结果或者同一个异常。调用结束后立刻从表里删掉，不做任何缓存，
+ * 需要缓存请用AlluxioMetadataCache。
+ * <p>
+ * 模板对路径做了修改之后会调用invalidate，之后的调用者不会再加入修改之前就发出的RPC。
+ *
+ * @see AlluxioTemplate#setRequestCoalescer(AlluxioRequestCoalescer)
+ */
+public class AlluxioRequestCoalescer {
+
+    private final Set<String> mOperations;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> mInFlight =
+        new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Stats> mStats = new ConcurrentHashMap<>();
+
+    /**
+     * 合并getStatus、exists和listStatus
+     */
+    public AlluxioRequestCoalescer() {
+        this("getStatus", "exists", "listStatus");
+    }
+
+    /**
+     * @param operations 要合并的操作名，只有不带options的getStatus、exists和listStatus会走合并
+     */
+    public AlluxioRequestCoalescer(String... operations) {
+        Preconditions.checkArgument(operations.length > 0, "operations should not be empty!");
+        mOperations = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(operations)));
+        for (String operation : operations) {
+            mStats.put(operation, new Stats());
+        }
+    }
+
+    public Set<String> getOperations() {
+        return mOperations;
+    }
+
+    public boolean isEnabled(String operation) {
+        return mOperations.contains(operation);
+    }
+
+    /**
+     * @param operation 操作名
+     * @param path      alluxio路径
+     * @param loader    真正发出RPC的调用，只有第一个到达的调用者会执行它
+     * @return loader的结果，所有合并在一起的调用者拿到的是同一个对象
+     * @throws Exception loader抛出的异常，合并的调用者都会收到
+     */
+    @SuppressWarnings("unchecked") public <T> T coalesce(String operation, String path,
+        Callable<T> loader) throws Exception {
+        Stats stats = mStats.get(operation);
+        if (stats == null) {
+            return loader.call();
+        }
+        stats.mCalls.increment();
+        String key = keyOf(operation, path);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = mInFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            stats.mCoalesced.increment();
+            try {
+                return (T) existing.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+        stats.mLoads.increment();
+        try {
+            T result = loader.call();
+            // 先删再完成，之后到达的调用者会发新的RPC，而不是拿到一个已经结束的结果
+            mInFlight.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            mInFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 让这个路径上正在进行的调用，以及它父目录上正在进行的listStatus不再接收新的调用者，
+     * 在路径被修改之后调用
+     */
+    public void invalidate(String path) {
+        for (String operation : mOperations) {
+            mInFlight.remove(keyOf(operation, path));
+        }
+        int slash = path.lastIndexOf('/', path.length() - 2);
+        if (slash >= 0) {
+            mInFlight.remove(keyOf("listStatus", slash == 0 ? "/" : path.substring(0, slash)));
+        }
+    }
+
+    /**
+     * 递归创建path之后调用，对隐式创建的各级父目录调用invalidate
+     */
+    public void invalidateAncestors(String path) {
+        int slash = path.lastIndexOf('/', path.length() - 2);
+        while (slash > 0) {
+            path = path.substring(0, slash);
+            invalidate(path);
+            slash = path.lastIndexOf('/');
+        }
+    }
+
+    /**
+     * @return 走了合并逻辑的调用次数
+     */
+    public long getCallCount(String operation) {
+        Stats stats = mStats.get(operation);
+        return stats == null ? 0 : stats.mCalls.sum();
+    }
+
+    /**
+     * @return 真正发出的RPC次数
+     */
+    public long getLoadCount(String operation) {
+        Stats stats = mStats.get(operation);
+        return stats == null ? 0 : stats.mLoads.sum();
+    }
+
+    /**
+     * @return 加入了别人正在进行的RPC、因此省掉的调用次数
+     */
+    public long getCoalescedCount(String operation) {
+        Stats stats = mStats.get(operation);
+        return stats == null ? 0 : stats.mCoalesced.sum();
+    }
+
+    private static String keyOf(String operation, String path) {
+        return operation + '\0' + path;
+    }
+
+    private static final class Stats {
+        private final LongAdder mCalls = new LongAdder();
+        private final LongAdder mLoads = new LongAdder();
+        private final LongAdder mCoalesced = new LongAdder();
+    }
+}
@@ -0,0 +1,180 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * execute和executeNoResult的容错策略：可重试的异常按带抖动的指数退避重试，幂等的读请求超过
+ * 延迟分位数还没返回时再发一个重复请求（hedge），连续失败太多次后熔断一段时间。
+ *
+ * @see AlluxioUtils#isRetryable(Exception)
+ * @see AlluxioTemplate#setResiliencePolicy(AlluxioResiliencePolicy)
+ */
+public final class AlluxioResiliencePolicy {
+
+    private int mMaxRetries = 3;
+
+    private long mRetryBaseMs = 50;
+
+    private long mRetryMaxMs = 2000;
+
+    private Set<String> mRetryOperations = new HashSet<>(Arrays
+        .asList("getStatus", "exists", "listStatus", "openFile", "free", "loadMetadata",
+            "setAttribute"));
+
+    private Set<String> mHedgeOperations = new HashSet<>(Arrays.asList("getStatus", "exists"));
+
+    private double mHedgePercentile = 95;
+
+    private long mHedgeMinDelayMs = 5;
+
+    private int mHedgeMinSamples = 100;
+
+    private int mFailureThreshold = 20;
+
+    private long mOpenMs = 5000;
+
+    public static AlluxioResiliencePolicy defaults() {
+        return new AlluxioResiliencePolicy();
+    }
+
+    private AlluxioResiliencePolicy() {
+    }
+
+    public int getMaxRetries() {
+        return mMaxRetries;
+    }
+
+    /**
+     * @param maxRetries 遇到可重试异常时的最大重试次数，0表示不重试
+     */
+    public AlluxioResiliencePolicy setMaxRetries(int maxRetries) {
+        Preconditions.checkArgument(maxRetries >= 0, "maxRetries should not be negative!");
+        mMaxRetries = maxRetries;
+        return this;
+    }
+
+    public long getRetryBaseMs() {
+        return mRetryBaseMs;
+    }
+
+    /**
+     * @param retryBaseMs 第一次重试前等待时间的上限，之后每次翻倍，实际等待时间在0到上限之间随机
+     */
+    public AlluxioResiliencePolicy setRetryBaseMs(long retryBaseMs) {
+        Preconditions.checkArgument(retryBaseMs >= 0, "retryBaseMs should not be negative!");
+        mRetryBaseMs = retryBaseMs;
+        return this;
+    }
+
+    public long getRetryMaxMs() {
+        return mRetryMaxMs;
+    }
+
+    /**
+     * @param retryMaxMs 两次重试之间的最长等待时间
+     */
+    public AlluxioResiliencePolicy setRetryMaxMs(long retryMaxMs) {
+        Preconditions.checkArgument(retryMaxMs >= 0, "retryMaxMs should not be negative!");
+        mRetryMaxMs = retryMaxMs;
+        return this;
+    }
+
+    public Set<String> getRetryOperations() {
+        return Collections.unmodifiableSet(mRetryOperations);
+    }
+
+    /**
+     * @param operations 可以重试的操作名，默认只有幂等的操作。createFile、rename、delete这类操作
+     *                   第一次其实已经成功时，重试会得到误导性的错误
+     */
+    public AlluxioResiliencePolicy setRetryOperations(String... operations) {
+        mRetryOperations = new HashSet<>(Arrays.asList(operations));
+        return this;
+    }
+
+    public Set<String> getHedgeOperations() {
+        return Collections.unmodifiableSet(mHedgeOperations);
+    }
+
+    /**
+     * @param operations 允许发重复请求的操作名，必须是幂等的读操作，传空表示不hedge
+     */
+    public AlluxioResiliencePolicy setHedgeOperations(String... operations) {
+        mHedgeOperations = new HashSet<>(Arrays.asList(operations));
+        return this;
+    }
+
+    public double getHedgePercentile() {
+        return mHedgePercentile;
+    }
+
+    /**
+     * @param hedgePercentile 请求耗时超过这个分位数还没返回时发重复请求，0到100之间
+     */
+    public AlluxioResiliencePolicy setHedgePercentile(double hedgePercentile) {
+        Preconditions.checkArgument(hedgePercentile > 0 && hedgePercentile <= 100,
+            "hedgePercentile should be in (0, 100]!");
+        mHedgePercentile = hedgePercentile;
+        return this;
+    }
+
+    public long getHedgeMinDelayMs() {
+        return mHedgeMinDelayMs;
+    }
+
+    /**
+     * @param hedgeMinDelayMs 发重复请求前至少等待的时间，避免延迟很低时重复请求太多
+     */
+    public AlluxioResiliencePolicy setHedgeMinDelayMs(long hedgeMinDelayMs) {
+        Preconditions
+            .checkArgument(hedgeMinDelayMs >= 0, "hedgeMinDelayMs should not be negative!");
+        mHedgeMinDelayMs = hedgeMinDelayMs;
+        return this;
+    }
+
+    public int getHedgeMinSamples() {
+        return mHedgeMinSamples;
+    }
+
+    /**
+     * @param hedgeMinSamples 一个操作至少有这么多次成功的耗时样本后才开始hedge
+     */
+    public AlluxioResiliencePolicy setHedgeMinSamples(int hedgeMinSamples) {
+        Preconditions
+            .checkArgument(hedgeMinSamples >= 0, "hedgeMinSamples should not be negative!");
+        mHedgeMinSamples = hedgeMinSamples;
+        return this;
+    }
+
+    public int getFailureThreshold() {
+        return mFailureThreshold;
+    }
+
+    /**
+     * @param failureThreshold 连续多少次可重试的失败后熔断，0表示不熔断
+     */
+    public AlluxioResiliencePolicy setFailureThreshold(int failureThreshold) {
+        Preconditions
+            .checkArgument(failureThreshold >= 0, "failureThreshold should not be negative!");
+        mFailureThreshold = failureThreshold;
+        return this;
+    }
+
+    public long getOpenMs() {
+        return mOpenMs;
+    }
+
+    /**
+     * @param openMs 熔断持续的时间，之后放一个请求过去试探
+     */
+    public AlluxioResiliencePolicy setOpenMs(long openMs) {
+        Preconditions.checkArgument(openMs >= 0, "openMs should not be negative!");
+        mOpenMs = openMs;
+        return this;
+    }
+}
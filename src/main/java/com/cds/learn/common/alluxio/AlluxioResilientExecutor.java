@@ -0,0 +1,200 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileSystem;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按AlluxioResiliencePolicy执行模板里的操作：熔断检查、hedge、失败重试。
+ * 策略在创建时拷贝一份，之后再修改policy不会生效。
+ *
+ * @see AlluxioTemplate#setResiliencePolicy(AlluxioResiliencePolicy)
+ */
+public class AlluxioResilientExecutor {
+
+
+    /**
+     * hedge的请求都是很快的元数据请求，所有模板共用一个线程池
+     */
+    private static final ExecutorService HEDGE_EXECUTOR =
+        Executors.newCachedThreadPool(AlluxioUtils.daemonThreadFactory("alluxio-hedge"));
+
+    private final int mMaxRetries;
+
+    private final long mRetryBaseMs;
+
+    private final long mRetryMaxMs;
+
+    private final Set<String> mRetryOperations;
+
+    private final Set<String> mHedgeOperations;
+
+    private final double mHedgePercentile;
+
+    private final long mHedgeMinDelayNanos;
+
+    private final int mHedgeMinSamples;
+
+    private final AlluxioCircuitBreaker mCircuitBreaker;
+
+    private final ConcurrentMap<String, AlluxioLatencyHistogram> mLatencies =
+        new ConcurrentHashMap<>();
+
+    private final AtomicLong mRetries = new AtomicLong();
+
+    private final AtomicLong mHedges = new AtomicLong();
+
+    private final AtomicLong mHedgeWins = new AtomicLong();
+
+    AlluxioResilientExecutor(AlluxioResiliencePolicy policy) {
+        mMaxRetries = policy.getMaxRetries();
+        mRetryBaseMs = policy.getRetryBaseMs();
+        mRetryMaxMs = policy.getRetryMaxMs();
+        mRetryOperations = new HashSet<>(policy.getRetryOperations());
+        mHedgeOperations = new HashSet<>(policy.getHedgeOperations());
+        mHedgePercentile = policy.getHedgePercentile();
+        mHedgeMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(policy.getHedgeMinDelayMs());
+        mHedgeMinSamples = policy.getHedgeMinSamples();
+        mCircuitBreaker =
+            new AlluxioCircuitBreaker(policy.getFailureThreshold(), policy.getOpenMs());
+    }
+
+    /**
+     * @param scheduler 不为null时每次尝试前占用一个执行名额，结束后马上归还，
+     *                  退避等待的重试不占名额，不会让在线请求排在它们后面
+     */
+    <T> T execute(String operation, FileSystem fileSystem, AlluxioCallback<T> action,
+        AlluxioIoScheduler scheduler) throws Exception {
+        boolean retryable = mRetryOperations.contains(operation);
+        int retries = 0;
+        while (true) {
+            AlluxioPriority priority = scheduler == null ? null : scheduler.admit();
+            try {
+                mCircuitBreaker.acquire(operation);
+                try {
+                    T result = mHedgeOperations.contains(operation) ?
+                        executeHedged(operation, fileSystem, action) :
+                        action.doInAlluxio(fileSystem);
+                    mCircuitBreaker.onSuccess();
+                    return result;
+                } catch (Exception e) {
+                    mCircuitBreaker.onFailure(e);
+                    if (!retryable || retries >= mMaxRetries || !AlluxioUtils.isRetryable(e)) {
+                        throw e;
+                    }
+                    mRetries.incrementAndGet();
+                } catch (Error e) {
+                    mCircuitBreaker.onAborted();
+                    throw e;
+                }
+            } finally {
+                if (priority != null) {
+                    scheduler.release(priority);
+                }
+            }
+            Thread.sleep(backoffMs(retries++));
+        }
+    }
+
+    public AlluxioCircuitBreaker getCircuitBreaker() {
+        return mCircuitBreaker;
+    }
+
+    /**
+     * @return 重试的总次数
+     */
+    public long getRetries() {
+        return mRetries.get();
+    }
+
+    /**
+     * @return 发出的重复请求数
+     */
+    public long getHedges() {
+        return mHedges.get();
+    }
+
+    /**
+     * @return 重复请求比原请求先成功返回的次数
+     */
+    public long getHedgeWins() {
+        return mHedgeWins.get();
+    }
+
+    /**
+     * 原请求在线程池里执行，超过延迟分位数还没返回就再发一个，谁先成功用谁的结果。
+     * 输掉的那个请求不会被中断，结果直接丢掉，所以只能用在结果不需要关闭的读操作上
+     */
+    private <T> T executeHedged(String operation, FileSystem fileSystem,
+        AlluxioCallback<T> action) throws Exception {
+        AlluxioLatencyHistogram latency =
+            mLatencies.computeIfAbsent(operation, key -> new AlluxioLatencyHistogram());
+        long start = System.nanoTime();
+        if (latency.getCount() < mHedgeMinSamples) {
+            T result = action.doInAlluxio(fileSystem);
+            latency.record(System.nanoTime() - start);
+            return result;
+        }
+        long delayNanos =
+            Math.max(mHedgeMinDelayNanos, latency.getPercentileNanos(mHedgePercentile));
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(HEDGE_EXECUTOR);
+        Future<T> primary = completion.submit(() -> action.doInAlluxio(fileSystem));
+        Future<T> done = completion.poll(delayNanos, TimeUnit.NANOSECONDS);
+        if (done != null) {
+            T result = getResult(done);
+            latency.record(System.nanoTime() - start);
+            return result;
+        }
+        mHedges.incrementAndGet();
+        completion.submit(() -> action.doInAlluxio(fileSystem));
+        Exception failure = null;
+        for (int i = 0; i < 2; i++) {
+            done = completion.take();
+            try {
+                T result = getResult(done);
+                latency.record(System.nanoTime() - start);
+                if (done != primary) {
+                    mHedgeWins.incrementAndGet();
+                }
+                return result;
+            } catch (Exception e) {
+                if (failure == null || done == primary) {
+                    failure = e;
+                }
+            }
+        }
+        throw failure;
+    }
+
+    private static <T> T getResult(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * full jitter：在0到指数增长的上限之间随机，避免大量客户端在master恢复时同时重试
+     */
+    private long backoffMs(int retries) {
+        long cap = mRetryBaseMs << Math.min(retries, 30);
+        cap = Math.min(cap < 0 ? Long.MAX_VALUE : cap, mRetryMaxMs);
+        return cap == 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,58 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.block.BlockWorkerInfo;
+import alluxio.client.file.policy.FileWriteLocationPolicy;
+import alluxio.wire.WorkerNetAddress;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询放置：所有文件共用一个计数器，每个块依次放到下一个容量够的worker上。
+ */
+public class AlluxioRoundRobinPlacement implements AlluxioPlacementPolicy {
+
+    private final AtomicInteger mNext = new AtomicInteger();
+
+    @Override public FileWriteLocationPolicy policyFor(String path) {
+        return this::next;
+    }
+
+    private WorkerNetAddress next(Iterable<BlockWorkerInfo> workers, long blockSizeBytes) {
+        List<BlockWorkerInfo> candidates = sortedCandidates(workers, blockSizeBytes);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        int index = (mNext.getAndIncrement() & Integer.MAX_VALUE) % candidates.size();
+        return candidates.get(index).getNetAddress();
+    }
+
+    /**
+     * @return 剩余容量放得下一个块的worker，按地址排序，保证每次的顺序一致
+     */
+    static List<BlockWorkerInfo> sortedCandidates(Iterable<BlockWorkerInfo> workers,
+        long blockSizeBytes) {
+        List<BlockWorkerInfo> candidates = new ArrayList<>();
+        for (BlockWorkerInfo worker : workers) {
+            if (fits(worker, blockSizeBytes)) {
+                candidates.add(worker);
+            }
+        }
+        candidates.sort(Comparator.comparing(AlluxioRoundRobinPlacement::keyOf));
+        return candidates;
+    }
+
+    /**
+     * @return worker的剩余容量是否放得下一个块
+     */
+    static boolean fits(BlockWorkerInfo worker, long blockSizeBytes) {
+        return worker.getCapacityBytes() - worker.getUsedBytes() >= blockSizeBytes;
+    }
+
+    static String keyOf(BlockWorkerInfo worker) {
+        WorkerNetAddress address = worker.getNetAddress();
+        return address.getHost() + ":" + address.getDataPort();
+    }
+}
@@ -0,0 +1,123 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AlluxioIoScheduler的配置：同时进行的调用数、留给BATCH的份额和每个租户的限速，0表示不限速。
+ *
+ * @see AlluxioTemplate#setIoScheduler(AlluxioIoScheduler)
+ */
+public final class AlluxioSchedulerPolicy {
+
+    private int mMaxInFlight = 64;
+
+    private int mBatchMaxInFlight = 48;
+
+    private String mDefaultTenant = "default";
+
+    private AlluxioPriority mDefaultPriority = AlluxioPriority.INTERACTIVE;
+
+    private double mDefaultQps;
+
+    private long mDefaultBytesPerSecond;
+
+    private final Map<String, double[]> mTenantLimits = new HashMap<>();
+
+    public static AlluxioSchedulerPolicy defaults() {
+        return new AlluxioSchedulerPolicy();
+    }
+
+    private AlluxioSchedulerPolicy() {
+    }
+
+    public int getMaxInFlight() {
+        return mMaxInFlight;
+    }
+
+    /**
+     * @param maxInFlight 同时在alluxio上执行的调用数，超过的排队
+     */
+    public AlluxioSchedulerPolicy setMaxInFlight(int maxInFlight) {
+        Preconditions.checkArgument(maxInFlight > 0, "maxInFlight should be positive!");
+        mMaxInFlight = maxInFlight;
+        return this;
+    }
+
+    public int getBatchMaxInFlight() {
+        return mBatchMaxInFlight;
+    }
+
+    /**
+     * @param batchMaxInFlight BATCH的调用最多占用的名额，剩下的只给INTERACTIVE用，
+     *                         这样慢的批量调用占满名额时在线调用也不用等它们结束
+     */
+    public AlluxioSchedulerPolicy setBatchMaxInFlight(int batchMaxInFlight) {
+        Preconditions.checkArgument(batchMaxInFlight > 0, "batchMaxInFlight should be positive!");
+        mBatchMaxInFlight = batchMaxInFlight;
+        return this;
+    }
+
+    public String getDefaultTenant() {
+        return mDefaultTenant;
+    }
+
+    /**
+     * @param defaultTenant 没有打标签的调用算在哪个租户上
+     */
+    public AlluxioSchedulerPolicy setDefaultTenant(String defaultTenant) {
+        mDefaultTenant =
+            Preconditions.checkNotNull(defaultTenant, "the default tenant should not be null!");
+        return this;
+    }
+
+    public AlluxioPriority getDefaultPriority() {
+        return mDefaultPriority;
+    }
+
+    /**
+     * @param defaultPriority 没有打标签的调用的优先级
+     */
+    public AlluxioSchedulerPolicy setDefaultPriority(AlluxioPriority defaultPriority) {
+        mDefaultPriority = Preconditions
+            .checkNotNull(defaultPriority, "the default priority should not be null!");
+        return this;
+    }
+
+    /**
+     * @param qps            没有单独设置的租户每秒最多发起的调用数
+     * @param bytesPerSecond 没有单独设置的租户每秒最多读写的字节数
+     */
+    public AlluxioSchedulerPolicy setDefaultLimit(double qps, long bytesPerSecond) {
+        Preconditions.checkArgument(qps >= 0, "qps should not be negative!");
+        Preconditions.checkArgument(bytesPerSecond >= 0, "bytesPerSecond should not be negative!");
+        mDefaultQps = qps;
+        mDefaultBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * @param tenant         租户名
+     * @param qps            这个租户每秒最多发起的调用数
+     * @param bytesPerSecond 这个租户每秒最多读写的字节数
+     */
+    public AlluxioSchedulerPolicy setTenantLimit(String tenant, double qps, long bytesPerSecond) {
+        Preconditions.checkNotNull(tenant, "the tenant should not be null!");
+        Preconditions.checkArgument(qps >= 0, "qps should not be negative!");
+        Preconditions.checkArgument(bytesPerSecond >= 0, "bytesPerSecond should not be negative!");
+        mTenantLimits.put(tenant, new double[] {qps, bytesPerSecond});
+        return this;
+    }
+
+    public double getQps(String tenant) {
+        double[] limit = mTenantLimits.get(tenant);
+        return limit == null ? mDefaultQps : limit[0];
+    }
+
+    public long getBytesPerSecond(String tenant) {
+        double[] limit = mTenantLimits.get(tenant);
+        return limit == null ? mDefaultBytesPerSecond : (long) limit[1];
+    }
+}
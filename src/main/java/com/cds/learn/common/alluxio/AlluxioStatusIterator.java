@@ -0,0 +1,108 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.URIStatus;
+import alluxio.client.file.options.ListStatusOptions;
+import alluxio.exception.FileDoesNotExistException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * 惰性的目录遍历：一次只持有一个目录的listStatus结果，子目录要等迭代到时才去list，
+ * 调用者提前停止迭代时剩下的目录就不会再发请求。
+ * <p>
+ * alluxio 1.0的listStatus不支持分页，单个目录的结果仍然是一次拿回来的，
+ * 但这个目录遍历完之后就可以被回收，不会整棵树同时留在内存里。
+ * 迭代过程中的异常包装成UncheckedIOException或者IllegalStateException抛出。
+ */
+public class AlluxioStatusIterator implements Iterator<URIStatus> {
+
+    private final AlluxioTemplate mTemplate;
+
+    private final String mRoot;
+
+    private final boolean mRecursive;
+
+    private final Predicate<? super URIStatus> mFilter;
+
+    /**
+     * 还没有list过的目录，按栈的顺序处理，深度优先，待处理的只是路径字符串
+     */
+    private final Deque<String> mPendingDirs = new ArrayDeque<>();
+
+    private List<URIStatus> mCurrent;
+
+    private int mIndex;
+
+    private URIStatus mNext;
+
+    /**
+     * @param template  用来listStatus的模板
+     * @param root      起点目录
+     * @param recursive 是否遍历子目录
+     * @param filter    只返回满足条件的项，不影响是否进入子目录，传null表示不过滤
+     */
+    public AlluxioStatusIterator(AlluxioTemplate template, String root, boolean recursive,
+        Predicate<? super URIStatus> filter) {
+        mTemplate = template;
+        mRoot = root;
+        mRecursive = recursive;
+        mFilter = filter;
+        mPendingDirs.push(root);
+    }
+
+    @Override public boolean hasNext() {
+        while (mNext == null) {
+            if (mCurrent != null && mIndex < mCurrent.size()) {
+                URIStatus status = mCurrent.get(mIndex++);
+                if (mRecursive && status.isFolder()) {
+                    mPendingDirs.push(status.getPath());
+                }
+                if (mFilter == null || mFilter.test(status)) {
+                    mNext = status;
+                }
+                continue;
+            }
+            // 这个目录已经迭代完，先放掉引用再去list下一个
+            mCurrent = null;
+            String dir = mPendingDirs.poll();
+            if (dir == null) {
+                return false;
+            }
+            mCurrent = list(dir);
+            mIndex = 0;
+        }
+        return true;
+    }
+
+    @Override public URIStatus next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        URIStatus next = mNext;
+        mNext = null;
+        return next;
+    }
+
+    private List<URIStatus> list(String dir) {
+        try {
+            return mTemplate.listStatus(dir, ListStatusOptions.defaults());
+        } catch (FileDoesNotExistException e) {
+            if (dir.equals(mRoot)) {
+                throw new IllegalStateException("failed to list " + dir, e);
+            }
+            // 遍历过程中被删掉的子目录直接跳过
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to list " + dir, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("failed to list " + dir, e);
+        }
+    }
+}
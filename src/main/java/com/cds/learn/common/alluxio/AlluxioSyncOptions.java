@@ -0,0 +1,156 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.ReadType;
+import alluxio.client.WriteType;
+import com.google.common.base.Preconditions;
+
+/**
+ * 目录树复制和同步的参数。
+ */
+public final class AlluxioSyncOptions {
+
+    private int mParallelism = 8;
+
+    private int mWalkParallelism = 8;
+
+    private int mChunkSize = 4 * 1024 * 1024;
+
+    private ReadType mReadType = ReadType.NO_CACHE;
+
+    private WriteType mWriteType = WriteType.CACHE_THROUGH;
+
+    private String mTargetWorker = AlluxioConsts.NON_SPECIFIED_WORKER;
+
+    private boolean mSkipUnchanged = true;
+
+    private boolean mDeleteExtraneous = false;
+
+    private String mCheckpointFile;
+
+    private AlluxioProgressListener mProgressListener;
+
+    public static AlluxioSyncOptions defaults() {
+        return new AlluxioSyncOptions();
+    }
+
+    private AlluxioSyncOptions() {
+    }
+
+    public int getParallelism() {
+        return mParallelism;
+    }
+
+    /**
+     * @param parallelism 同时复制的文件数
+     */
+    public AlluxioSyncOptions setParallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism should be positive!");
+        mParallelism = parallelism;
+        return this;
+    }
+
+    public int getWalkParallelism() {
+        return mWalkParallelism;
+    }
+
+    /**
+     * @param walkParallelism 遍历源目录树时同时进行的listStatus的最大数目
+     */
+    public AlluxioSyncOptions setWalkParallelism(int walkParallelism) {
+        Preconditions.checkArgument(walkParallelism > 0, "walkParallelism should be positive!");
+        mWalkParallelism = walkParallelism;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return mChunkSize;
+    }
+
+    /**
+     * @param chunkSize 复制时每个线程从buffer池借的buffer大小
+     */
+    public AlluxioSyncOptions setChunkSize(int chunkSize) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize should be positive!");
+        mChunkSize = chunkSize;
+        return this;
+    }
+
+    public ReadType getReadType() {
+        return mReadType;
+    }
+
+    /**
+     * @param readType 读源文件的方式，默认NO_CACHE，避免一次大批量同步把内存层冲掉
+     */
+    public AlluxioSyncOptions setReadType(ReadType readType) {
+        mReadType = Preconditions.checkNotNull(readType);
+        return this;
+    }
+
+    public WriteType getWriteType() {
+        return mWriteType;
+    }
+
+    public AlluxioSyncOptions setWriteType(WriteType writeType) {
+        mWriteType = Preconditions.checkNotNull(writeType);
+        return this;
+    }
+
+    public String getTargetWorker() {
+        return mTargetWorker;
+    }
+
+    /**
+     * @param targetWorker AlluxioConsts里的位置策略，或者一个worker的主机名
+     */
+    public AlluxioSyncOptions setTargetWorker(String targetWorker) {
+        mTargetWorker = Preconditions.checkNotNull(targetWorker);
+        return this;
+    }
+
+    public boolean isSkipUnchanged() {
+        return mSkipUnchanged;
+    }
+
+    /**
+     * @param skipUnchanged 目标文件长度相同并且修改时间不早于源文件时跳过，false表示全部重新复制
+     */
+    public AlluxioSyncOptions setSkipUnchanged(boolean skipUnchanged) {
+        mSkipUnchanged = skipUnchanged;
+        return this;
+    }
+
+    public boolean isDeleteExtraneous() {
+        return mDeleteExtraneous;
+    }
+
+    /**
+     * @param deleteExtraneous 复制完之后删掉目标里源目录没有的文件和目录，也就是做成镜像
+     */
+    public AlluxioSyncOptions setDeleteExtraneous(boolean deleteExtraneous) {
+        mDeleteExtraneous = deleteExtraneous;
+        return this;
+    }
+
+    public String getCheckpointFile() {
+        return mCheckpointFile;
+    }
+
+    /**
+     * @param checkpointFile 本地的断点文件，记录已经完成的文件，中断后用同一个文件重跑会跳过它们，
+     *                       同步成功后删除。为null表示不记录断点
+     */
+    public AlluxioSyncOptions setCheckpointFile(String checkpointFile) {
+        mCheckpointFile = checkpointFile;
+        return this;
+    }
+
+    public AlluxioProgressListener getProgressListener() {
+        return mProgressListener;
+    }
+
+    public AlluxioSyncOptions setProgressListener(AlluxioProgressListener progressListener) {
+        mProgressListener = progressListener;
+        return this;
+    }
+}
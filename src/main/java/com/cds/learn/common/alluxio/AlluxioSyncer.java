@@ -0,0 +1,279 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.FileOutStream;
+import alluxio.client.file.URIStatus;
+import alluxio.client.file.options.CreateFileOptions;
+import alluxio.client.file.options.GetStatusOptions;
+import alluxio.client.file.options.OpenFileOptions;
+import alluxio.exception.FileAlreadyExistsException;
+import alluxio.exception.FileDoesNotExistException;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 把alluxio上的一棵目录树复制或者同步到另一个路径下，源和目标都可以是挂载进来的UFS目录。
+ * <p>
+ * 源目录树用AlluxioTreeWalker并行遍历，每个文件先和目标的URIStatus比较，长度相同并且目标的修改时间
+ * 不早于源文件（也就是源文件在上次复制之后没有改过）就跳过，否则交给复制线程池。复制先写到目标目录下的
+ * 临时文件，完整写完再改名，所以目标路径上不会出现写了一半的文件。已经完成的文件可以记到本地的断点文件里，
+ * 中断后重跑时连目标的getStatus都不用再发。
+ */
+public class AlluxioSyncer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlluxioSyncer.class);
+
+    private static final String TEMP_SUFFIX = ".alluxio-sync";
+
+    private final AlluxioTemplate mTemplate;
+
+    private final AlluxioSyncOptions mOptions;
+
+    public AlluxioSyncer(AlluxioTemplate template, AlluxioSyncOptions options) {
+        mTemplate =
+            Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        mOptions = Preconditions.checkNotNull(options, "the sync options should not be null!");
+    }
+
+    /**
+     * @param srcPath 源文件或者目录
+     * @param dstPath 目标路径，srcPath是目录时它下面的文件按相对路径放到dstPath下
+     * @return 复制、跳过和删除的文件数以及吞吐
+     * @throws Exception 任何一个文件失败都会让同步失败，断点文件会保留下来
+     */
+    public AlluxioTransferStats sync(String srcPath, String dstPath) throws Exception {
+        String srcRoot = trimSlash(mTemplate.getStatus(srcPath).getPath());
+        String dstRoot = trimSlash(dstPath);
+        AlluxioTransferStats stats = new AlluxioTransferStats();
+        Checkpoint checkpoint =
+            mOptions.getCheckpointFile() == null ? null : new Checkpoint(
+                Paths.get(mOptions.getCheckpointFile()));
+
+        try {
+            new AlluxioTreeProcessor(mTemplate, mOptions.getWalkParallelism(),
+                mOptions.getParallelism(), "alluxio-sync").run(srcRoot, (status, depth) -> {
+                String relative = status.getPath().substring(srcRoot.length());
+                String dst = dstRoot + relative;
+                if (status.isFolder()) {
+                    createDirectory(dst);
+                    return null;
+                }
+                stats.addFilesTotal(1);
+                return () -> syncFile(status, relative, dst, checkpoint, stats);
+            });
+            if (mOptions.isDeleteExtraneous()) {
+                deleteExtraneous(srcRoot, dstRoot, stats);
+            }
+        } finally {
+            // run返回时所有复制都已经结束，不会再有任务往断点文件里写
+            stats.finish();
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+        }
+        if (checkpoint != null) {
+            checkpoint.delete();
+        }
+        return stats;
+    }
+
+    private void syncFile(URIStatus src, String relative, String dst, Checkpoint checkpoint,
+        AlluxioTransferStats stats) throws Exception {
+        if (checkpoint != null && checkpoint.isDone(relative, src)) {
+            skipped(dst, stats);
+            return;
+        }
+        URIStatus existing = statusOf(dst);
+        if (existing != null && existing.isFolder()) {
+            throw new IOException("cannot overwrite directory " + dst + " with file "
+                + src.getPath());
+        }
+        if (existing != null && mOptions.isSkipUnchanged()
+            && existing.getLength() == src.getLength()
+            && existing.getLastModificationTimeMs() >= src.getLastModificationTimeMs()) {
+            skipped(dst, stats);
+        } else {
+            copy(src, dst, existing != null, stats);
+            stats.fileDone();
+            AlluxioProgressListener listener = mOptions.getProgressListener();
+            if (listener != null) {
+                listener.onProgress(dst, stats);
+            }
+        }
+        if (checkpoint != null) {
+            checkpoint.done(relative, src);
+        }
+    }
+
+    private void skipped(String dst, AlluxioTransferStats stats) {
+        stats.fileSkipped();
+        AlluxioProgressListener listener = mOptions.getProgressListener();
+        if (listener != null) {
+            listener.onProgress(dst, stats);
+        }
+    }
+
+    private void copy(URIStatus src, String dst, boolean replace, AlluxioTransferStats stats)
+        throws Exception {
+        String temp = tempOf(dst);
+        CreateFileOptions options =
+            mTemplate.writeOptions(dst, mOptions.getWriteType(), mOptions.getTargetWorker())
+                .setRecursive(true).setBlockSizeBytes(src.getBlockSizeBytes());
+        FileOutStream os;
+        try {
+            os = mTemplate.createFile(temp, options);
+        } catch (FileAlreadyExistsException e) {
+            // 上一次同步中断时留下的临时文件
+            mTemplate.delete(temp);
+            os = mTemplate.createFile(temp, options);
+        }
+        AlluxioBufferPool pool = mTemplate.getBufferPool();
+        ByteBuffer buf = pool.acquire(mOptions.getChunkSize());
+        try (FileInStream is = mTemplate.openFile(src.getPath(),
+            OpenFileOptions.defaults().setReadType(mOptions.getReadType()))) {
+            byte[] bytes = buf.array();
+            int n;
+            while ((n = is.read(bytes, 0, bytes.length)) != -1) {
+                os.write(bytes, 0, n);
+                stats.addBytes(n);
+                mTemplate.recordBytesRead(n);
+                mTemplate.recordBytesWritten(n);
+            }
+            os.close();
+        } catch (Exception e) {
+            os.cancel();
+            throw e;
+        } finally {
+            pool.release(buf);
+        }
+        if (replace) {
+            mTemplate.delete(dst);
+        }
+        mTemplate.rename(temp, dst);
+    }
+
+    private void createDirectory(String dst) throws Exception {
+        try {
+            mTemplate.createDirRecursive(dst);
+        } catch (FileAlreadyExistsException e) {
+            // 目录已经存在
+        }
+    }
+
+    /**
+     * 遍历目标目录树，删掉源目录里没有对应路径的文件和目录，包括中断后留下的临时文件
+     */
+    private void deleteExtraneous(String srcRoot, String dstRoot, AlluxioTransferStats stats)
+        throws Exception {
+        new AlluxioTreeWalker(mTemplate, mOptions.getWalkParallelism(),
+            AlluxioTreeWalker.UNLIMITED_DEPTH).walk(dstRoot, (status, depth) -> {
+            if (depth == 0) {
+                return true;
+            }
+            String src = srcRoot + status.getPath().substring(dstRoot.length());
+            if (mTemplate.exists(src)) {
+                return true;
+            }
+            if (status.isFolder()) {
+                mTemplate.deleteRecursive(status.getPath());
+            } else {
+                mTemplate.delete(status.getPath());
+            }
+            stats.fileDeleted();
+            return false;
+        });
+    }
+
+    /**
+     * 不走元数据缓存，目标可能刚被别的进程改过
+     */
+    private URIStatus statusOf(String path) throws Exception {
+        try {
+            return mTemplate.getStatus(path, GetStatusOptions.defaults());
+        } catch (FileDoesNotExistException e) {
+            return null;
+        }
+    }
+
+    private static String tempOf(String dst) {
+        int slash = dst.lastIndexOf('/');
+        return dst.substring(0, slash + 1) + "." + dst.substring(slash + 1) + TEMP_SUFFIX;
+    }
+
+    private static String trimSlash(String path) {
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) :
+            path;
+    }
+
+    /**
+     * 只追加的断点文件，每行是“长度 修改时间 相对路径”。每完成一个文件写一行并flush，
+     * 进程崩溃时最多丢掉最后一行，对应的文件下次会和目标比较后跳过或者重新复制。
+     */
+    private static final class Checkpoint implements Closeable {
+        private final Path mFile;
+        private final Map<String, long[]> mDone = new HashMap<>();
+        private final Writer mWriter;
+
+        private Checkpoint(Path file) throws IOException {
+            mFile = file;
+            if (Files.exists(file)) {
+                try (BufferedReader reader = Files
+                    .newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split(" ", 3);
+                        if (fields.length != 3) {
+                            continue;
+                        }
+                        try {
+                            mDone.put(fields[2], new long[] {Long.parseLong(fields[0]),
+                                Long.parseLong(fields[1])});
+                        } catch (NumberFormatException e) {
+                            // 崩溃时写了一半的行
+                        }
+                    }
+                }
+                LOG.info("resuming sync from " + file + ", " + mDone.size() + " files done");
+            }
+            mWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        /**
+         * 只在加载时写入，之后只读，可以被多个线程同时调用
+         */
+        private boolean isDone(String relative, URIStatus src) {
+            long[] done = mDone.get(relative);
+            return done != null && done[0] == src.getLength()
+                && done[1] == src.getLastModificationTimeMs();
+        }
+
+        private synchronized void done(String relative, URIStatus src) throws IOException {
+            mWriter.write(src.getLength() + " " + src.getLastModificationTimeMs() + " " + relative
+                + "\n");
+            mWriter.flush();
+        }
+
+        @Override public synchronized void close() throws IOException {
+            mWriter.close();
+        }
+
+        private void delete() throws IOException {
+            Files.deleteIfExists(mFile);
+        }
+    }
+}
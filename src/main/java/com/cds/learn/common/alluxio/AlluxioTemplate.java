@@ -1,7 +1,6 @@
 package com.cds.learn.common.alluxio;
 
 import alluxio.AlluxioURI;
-import alluxio.Constants;
 import alluxio.client.ClientContext;
 import alluxio.client.ReadType;
 import alluxio.client.WriteType;
@@ -22,6 +21,7 @@ import alluxio.client.file.options.OpenFileOptions;
 import alluxio.client.file.options.RenameOptions;
 import alluxio.client.file.options.SetAttributeOptions;
 import alluxio.client.file.options.UnmountOptions;
+import alluxio.client.file.policy.FileWriteLocationPolicy;
 import alluxio.client.file.policy.MostAvailableFirstPolicy;
 import alluxio.client.file.policy.SpecificHostPolicy;
 import alluxio.exception.AlluxioException;
@@ -29,11 +29,23 @@ import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 命名规则采用官方写法，也就是说如果是成员变量，那么在变量名前加“m”。
@@ -44,6 +56,26 @@ import java.util.List;
 
     private final FileSystem mFileSystem;
 
+    private volatile AlluxioMetadataCache mMetadataCache;
+
+    private volatile AlluxioBufferPool mBufferPool = AlluxioBufferPool.getDefault();
+
+    private volatile AlluxioMetricsRegistry mMetricsRegistry;
+
+    private volatile AlluxioLocalCache mLocalCache;
+
+    private volatile AlluxioResilientExecutor mResilientExecutor;
+
+    private volatile AlluxioTieringScheduler mTieringScheduler;
+
+    private volatile AlluxioPlacementPolicy mPlacementPolicy;
+
+    private volatile AlluxioTracer mTracer;
+
+    private volatile AlluxioRequestCoalescer mRequestCoalescer;
+
+    private volatile AlluxioIoScheduler mIoScheduler;
+
     /**
      * use this constructor if you use all default alluxio-site configuration
      */
@@ -55,34 +87,345 @@ import java.util.List;
     }
 
     /**
-     * 用自定义的路径来初始化
+     * 用自定义的路径来初始化，同一个master的客户端由AlluxioClientManager缓存复用
      *
      * @param masterLocation 比如alluxio://localhost:19999
+     * @see AlluxioClientManager#getDefault()
      */
     public AlluxioTemplate(String masterLocation) {
-        ClientContext.getConf()
-            .set(Constants.MASTER_HOSTNAME, new AlluxioURI(masterLocation).getHost());
-        ClientContext.init();
-        mFileSystem = FileSystem.Factory.get();
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Connecting to Master..." + ClientContext.getMasterAddress());
+        mFileSystem = AlluxioClientManager.getDefault().getFileSystem(masterLocation);
+    }
+
+    /**
+     * 用已经创建好的FileSystem来初始化，比如测试和benchmark里用的本地替身
+     *
+     * @param fileSystem 所有操作都会在这个FileSystem上执行
+     */
+    public AlluxioTemplate(FileSystem fileSystem) {
+        mFileSystem = Preconditions.checkNotNull(fileSystem, "the file system should not be null!");
+    }
+
+    /**
+     * 设置元数据缓存，之后不带options的exists、getStatus和listStatus会优先读缓存
+     *
+     * @param metadataCache 传null表示关闭缓存
+     */
+    public void setMetadataCache(AlluxioMetadataCache metadataCache) {
+        mMetadataCache = metadataCache;
+    }
+
+    public AlluxioMetadataCache getMetadataCache() {
+        return mMetadataCache;
+    }
+
+    /**
+     * 设置流式读写使用的buffer池，默认是进程内共享的池
+     */
+    public void setBufferPool(AlluxioBufferPool bufferPool) {
+        mBufferPool = Preconditions.checkNotNull(bufferPool, "the buffer pool should not be null!");
+    }
+
+    public AlluxioBufferPool getBufferPool() {
+        return mBufferPool;
+    }
+
+    /**
+     * 设置埋点，execute和executeNoResult的每次调用以及流式读写的字节数都会上报给它
+     *
+     * @param metricsRegistry 传null表示关闭埋点
+     * @see AlluxioMetrics
+     */
+    public void setMetricsRegistry(AlluxioMetricsRegistry metricsRegistry) {
+        mMetricsRegistry = metricsRegistry;
+    }
+
+    public AlluxioMetricsRegistry getMetricsRegistry() {
+        return mMetricsRegistry;
+    }
+
+    /**
+     * 设置客户端本地的磁盘缓存，之后read会优先从本地读
+     *
+     * @param localCache 传null表示关闭本地缓存
+     * @see #read(String, OpenFileOptions, int, AlluxioChunkConsumer)
+     */
+    public void setLocalCache(AlluxioLocalCache localCache) {
+        mLocalCache = localCache;
+    }
+
+    public AlluxioLocalCache getLocalCache() {
+        return mLocalCache;
+    }
+
+    /**
+     * 设置容错策略，之后execute和executeNoResult会按策略重试、hedge和熔断
+     *
+     * @param policy 传null表示关闭，失败直接抛给调用者
+     * @see AlluxioResiliencePolicy
+     */
+    public void setResiliencePolicy(AlluxioResiliencePolicy policy) {
+        mResilientExecutor = policy == null ? null : new AlluxioResilientExecutor(policy);
+    }
+
+    /**
+     * @return 当前的容错执行器，可以查看熔断状态和重试次数，没有设置策略时为null
+     */
+    public AlluxioResilientExecutor getResilientExecutor() {
+        return mResilientExecutor;
+    }
+
+    /**
+     * 设置分层调度器，之后每次openFile都会记录一次访问，一般由AlluxioTieringScheduler#start调用
+     *
+     * @param tieringScheduler 传null表示不再记录
+     */
+    public void setTieringScheduler(AlluxioTieringScheduler tieringScheduler) {
+        mTieringScheduler = tieringScheduler;
+    }
+
+    public AlluxioTieringScheduler getTieringScheduler() {
+        return mTieringScheduler;
+    }
+
+    /**
+     * 设置块放置策略，之后不指定worker的写都由它决定块放在哪里
+     *
+     * @param placementPolicy 传null表示交给alluxio的默认策略
+     * @see AlluxioPlacementPolicy
+     */
+    public void setPlacementPolicy(AlluxioPlacementPolicy placementPolicy) {
+        mPlacementPolicy = placementPolicy;
+    }
+
+    public AlluxioPlacementPolicy getPlacementPolicy() {
+        return mPlacementPolicy;
+    }
+
+    /**
+     * 设置调用追踪，之后execute、executeNoResult和流式读写都会按阶段记录纳秒级耗时
+     *
+     * @param tracer 传null表示关闭追踪
+     * @see AlluxioTracer#getSlowTraces()
+     */
+    public void setTracer(AlluxioTracer tracer) {
+        mTracer = tracer;
+    }
+
+    public AlluxioTracer getTracer() {
+        return mTracer;
+    }
+
+    /**
+     * 设置请求合并，之后同一路径上并发的getStatus、exists和listStatus只发一次RPC
+     *
+     * @param requestCoalescer 传null表示关闭合并
+     * @see AlluxioRequestCoalescer#getCoalescedCount(String)
+     */
+    public void setRequestCoalescer(AlluxioRequestCoalescer requestCoalescer) {
+        mRequestCoalescer = requestCoalescer;
+    }
+
+    public AlluxioRequestCoalescer getRequestCoalescer() {
+        return mRequestCoalescer;
+    }
+
+    /**
+     * 设置I/O调度，之后execute和executeNoResult按租户限速、按优先级排队，流式读写按租户限制带宽
+     *
+     * @param ioScheduler 传null表示不再调度
+     * @see AlluxioIoScheduler#tag(String, AlluxioPriority)
+     */
+    public void setIoScheduler(AlluxioIoScheduler ioScheduler) {
+        mIoScheduler = ioScheduler;
+    }
+
+    public AlluxioIoScheduler getIoScheduler() {
+        return mIoScheduler;
+    }
+
+    private AlluxioTraceSpan trace(String operation) {
+        AlluxioTracer tracer = mTracer;
+        return tracer == null ? AlluxioTraceSpan.NOOP : tracer.begin(operation);
+    }
+
+    void recordBytesRead(long bytes) {
+        AlluxioMetricsRegistry metrics = mMetricsRegistry;
+        if (metrics != null) {
+            metrics.onBytesRead(bytes);
+        }
+        AlluxioIoScheduler scheduler = mIoScheduler;
+        if (scheduler != null) {
+            scheduler.onBytes(bytes);
+        }
+    }
+
+    void recordBytesWritten(long bytes) {
+        AlluxioMetricsRegistry metrics = mMetricsRegistry;
+        if (metrics != null) {
+            metrics.onBytesWritten(bytes);
+        }
+        AlluxioIoScheduler scheduler = mIoScheduler;
+        if (scheduler != null) {
+            scheduler.onBytes(bytes);
+        }
+    }
+
+    private void recordAccess(String path) {
+        AlluxioTieringScheduler scheduler = mTieringScheduler;
+        if (scheduler != null) {
+            scheduler.recordAccess(path);
+        }
+    }
+
+    private void invalidate(String... paths) {
+        AlluxioMetadataCache cache = mMetadataCache;
+        if (cache != null) {
+            for (String path : paths) {
+                cache.invalidate(path);
+            }
+        }
+        AlluxioRequestCoalescer coalescer = mRequestCoalescer;
+        if (coalescer != null) {
+            for (String path : paths) {
+                coalescer.invalidate(path);
+            }
+        }
+    }
+
+    /**
+     * 递归创建之后调用，中间缺失的父目录是隐式创建的，它们之前缓存的不存在和父目录的列表也要失效
+     */
+    private void invalidateCreated(String path) {
+        invalidate(path);
+        AlluxioMetadataCache cache = mMetadataCache;
+        if (cache != null) {
+            cache.invalidateAncestors(path);
+        }
+        AlluxioRequestCoalescer coalescer = mRequestCoalescer;
+        if (coalescer != null) {
+            coalescer.invalidateAncestors(path);
+        }
+    }
+
+    /**
+     * 打开了请求合并并且操作在合并范围内时，和同一路径上正在进行的同一操作共享结果
+     */
+    private <T> T executeCoalesced(String operation, String path, AlluxioCallback<T> action)
+        throws Exception {
+        return executeCoalesced(operation, path, action, UnaryOperator.identity());
+    }
+
+    /**
+     * @param share 结果要被多个调用者共享时对它做的处理，比如包装成不可修改的，不合并时不调用
+     */
+    private <T> T executeCoalesced(String operation, String path, AlluxioCallback<T> action,
+        UnaryOperator<T> share) throws Exception {
+        AlluxioRequestCoalescer coalescer = mRequestCoalescer;
+        if (coalescer == null || !coalescer.isEnabled(operation)) {
+            return execute(operation, action);
         }
+        return coalescer.coalesce(operation, path, () -> share.apply(execute(operation, action)));
     }
 
     public <T> T execute(AlluxioCallback<T> action) throws Exception {
+        return execute("execute", action);
+    }
+
+    /**
+     * 执行一个有名字的操作，名字用于埋点统计
+     *
+     * @param operation 操作名，比如getStatus
+     * @param action    在alluxio上执行的操作
+     * @throws Exception
+     */
+    public <T> T execute(String operation, AlluxioCallback<T> action) throws Exception {
         Preconditions.checkNotNull(action, "the alluxio action should not be null!");
+        AlluxioIoScheduler scheduler = mIoScheduler;
+        AlluxioResilientExecutor resilient = mResilientExecutor;
+        if (scheduler == null || resilient != null) {
+            // 有重试时由resilient在每次尝试时占用名额，退避的时候让出来
+            return doExecute(operation, action, resilient, scheduler);
+        }
+        AlluxioPriority priority = scheduler.admit();
         try {
-            return action.doInAlluxio(mFileSystem);
+            return doExecute(operation, action, null, null);
+        } finally {
+            scheduler.release(priority);
+        }
+    }
+
+    private <T> T doExecute(String operation, AlluxioCallback<T> action,
+        AlluxioResilientExecutor resilient, AlluxioIoScheduler scheduler) throws Exception {
+        AlluxioMetricsRegistry metrics = mMetricsRegistry;
+        long start = 0;
+        if (metrics != null) {
+            metrics.onStart(operation);
+            start = System.nanoTime();
+        }
+        try (AlluxioTraceSpan ignored = trace(operation)) {
+            T result = resilient == null ? action.doInAlluxio(mFileSystem) :
+                resilient.execute(operation, mFileSystem, action, scheduler);
+            if (metrics != null) {
+                metrics.onComplete(operation, System.nanoTime() - start, null);
+            }
+            return result;
         } catch (Exception e) {
+            if (metrics != null) {
+                metrics.onComplete(operation, System.nanoTime() - start, e);
+            }
             AlluxioUtils.handleAlluxioException(e);
             throw e;
         }
     }
 
     public void executeNoResult(AlluxioNoResult action) throws Exception {
+        executeNoResult("executeNoResult", action);
+    }
+
+    /**
+     * @param operation 操作名，用于埋点统计
+     * @see #execute(String, AlluxioCallback)
+     */
+    public void executeNoResult(String operation, AlluxioNoResult action) throws Exception {
+        Preconditions.checkNotNull(action, "the alluxio action should not be null!");
+        AlluxioIoScheduler scheduler = mIoScheduler;
+        AlluxioResilientExecutor resilient = mResilientExecutor;
+        if (scheduler == null || resilient != null) {
+            doExecuteNoResult(operation, action, resilient, scheduler);
+            return;
+        }
+        AlluxioPriority priority = scheduler.admit();
         try {
-            action.doInAlluxio(mFileSystem);
+            doExecuteNoResult(operation, action, null, null);
+        } finally {
+            scheduler.release(priority);
+        }
+    }
+
+    private void doExecuteNoResult(String operation, AlluxioNoResult action,
+        AlluxioResilientExecutor resilient, AlluxioIoScheduler scheduler) throws Exception {
+        AlluxioMetricsRegistry metrics = mMetricsRegistry;
+        long start = 0;
+        if (metrics != null) {
+            metrics.onStart(operation);
+            start = System.nanoTime();
+        }
+        try (AlluxioTraceSpan ignored = trace(operation)) {
+            if (resilient == null) {
+                action.doInAlluxio(mFileSystem);
+            } else {
+                resilient.execute(operation, mFileSystem, fileSystem -> {
+                    action.doInAlluxio(fileSystem);
+                    return null;
+                }, scheduler);
+            }
+            if (metrics != null) {
+                metrics.onComplete(operation, System.nanoTime() - start, null);
+            }
         } catch (Exception e) {
+            if (metrics != null) {
+                metrics.onComplete(operation, System.nanoTime() - start, e);
+            }
             AlluxioUtils.handleAlluxioException(e);
             throw e;
         }
@@ -93,7 +436,14 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#createFile(AlluxioURI)
      */
     public FileOutStream createFile(String path) throws Exception {
-        return execute(fileSystem -> fileSystem.createFile(new AlluxioURI(path)));
+        FileWriteLocationPolicy policy = locationPolicyOf(path, AlluxioConsts.NON_SPECIFIED_WORKER);
+        if (policy != null) {
+            return createFile(path, CreateFileOptions.defaults().setLocationPolicy(policy));
+        }
+        FileOutStream os = execute("createFile",
+            fileSystem -> fileSystem.createFile(new AlluxioURI(path)));
+        invalidate(path);
+        return os;
     }
 
     /**
@@ -105,7 +455,15 @@ import java.util.List;
     public FileOutStream createFileRecursive(String path) throws Exception {
         CreateFileOptions options = CreateFileOptions.defaults();
         options.setRecursive(true);
-        return execute(fileSystem -> fileSystem.createFile(new AlluxioURI(path), options));
+        FileWriteLocationPolicy policy = locationPolicyOf(path, AlluxioConsts.NON_SPECIFIED_WORKER);
+        if (policy != null) {
+            options.setLocationPolicy(policy);
+        }
+        FileOutStream os =
+            execute("createFile",
+                fileSystem -> fileSystem.createFile(new AlluxioURI(path), options));
+        invalidateCreated(path);
+        return os;
     }
 
     /**
@@ -117,29 +475,124 @@ import java.util.List;
     public FileOutStream createFileRecursive(String path, long size) throws Exception {
         CreateFileOptions options = CreateFileOptions.defaults();
         options.setRecursive(true);
+        FileWriteLocationPolicy policy = locationPolicyOf(path, AlluxioConsts.NON_SPECIFIED_WORKER);
+        if (policy != null) {
+            options.setLocationPolicy(policy);
+        }
         options.setBlockSizeBytes(1024 * 1024 * size);
-        return execute(fileSystem -> fileSystem.createFile(new AlluxioURI(path), options));
+        FileOutStream os =
+            execute("createFile",
+                fileSystem -> fileSystem.createFile(new AlluxioURI(path), options));
+        invalidateCreated(path);
+        return os;
     }
 
     /**
      * @see alluxio.client.file.FileSystem#createFile(AlluxioURI, CreateFileOptions)
      */
     public FileOutStream createFile(String path, CreateFileOptions options) throws Exception {
-        return execute(fileSystem -> fileSystem.createFile(new AlluxioURI(path), options));
+        FileOutStream os =
+            execute("createFile",
+                fileSystem -> fileSystem.createFile(new AlluxioURI(path), options));
+        if (options.isRecursive()) {
+            invalidateCreated(path);
+        } else {
+            invalidate(path);
+        }
+        return os;
+    }
+
+    /**
+     * 创建一个带写缓冲的文件，小的写会被攒成大块由后台线程写出
+     *
+     * @param path    alluxio 文件路径
+     * @param options 创建文件的参数
+     * @throws Exception
+     * @see AlluxioBufferedWriter
+     */
+    public AlluxioBufferedWriter createBufferedWriter(String path, CreateFileOptions options)
+        throws Exception {
+        return new AlluxioBufferedWriter(this, path, options,
+            AlluxioBufferedWriter.DEFAULT_FLUSH_SIZE, 4);
+    }
+
+    /**
+     * 创建一个容器文件，把很多小的逻辑文件打包写进去
+     *
+     * @see AlluxioContainerWriter
+     * @see AlluxioContainerReader
+     */
+    public AlluxioContainerWriter createContainer(String path, CreateFileOptions options)
+        throws Exception {
+        return new AlluxioContainerWriter(this, path, options);
+    }
+
+    /**
+     * 创建文件，写入时同时计算校验和，关闭时把摘要写到旁边的摘要文件里
+     *
+     * @param path    alluxio 文件路径
+     * @param options 创建文件的参数，摘要文件使用同样的写类型
+     * @param type    校验和算法
+     * @throws Exception
+     * @see AlluxioDigest
+     */
+    public AlluxioChecksumOutputStream createFileWithChecksum(String path,
+        CreateFileOptions options, AlluxioChecksumType type) throws Exception {
+        Preconditions.checkNotNull(type, "the checksum type should not be null!");
+        return new AlluxioChecksumOutputStream(this, path, createFile(path, options), type,
+            options.getWriteType());
+    }
+
+    /**
+     * 创建一个文本记录文件，记录直接编码进复用的buffer，按记录边界整块写出
+     *
+     * @param path    alluxio 文件路径
+     * @param options 创建文件的参数
+     * @param framing 记录的分隔方式
+     * @throws Exception
+     * @see AlluxioRecordWriter
+     */
+    public AlluxioRecordWriter createRecordWriter(String path, CreateFileOptions options,
+        AlluxioRecordFraming framing) throws Exception {
+        Preconditions.checkNotNull(framing, "the record framing should not be null!");
+        return new AlluxioRecordWriter(this, createFile(path, options), framing,
+            AlluxioBufferedWriter.DEFAULT_FLUSH_SIZE);
     }
 
     private FileOutStream getFileOutStream(AlluxioURI uri, WriteType type, String targetWorker)
         throws AlluxioException, IOException {
+        return mFileSystem.createFile(uri, writeOptions(uri.getPath(), type, targetWorker));
+    }
 
+    /**
+     * 根据写类型和目标worker拼出创建文件的参数
+     *
+     * @param path         要写的文件路径，放置策略可能会用到
+     * @param type         写类型
+     * @param targetWorker AlluxioConsts里的位置策略，或者一个worker的主机名
+     */
+    CreateFileOptions writeOptions(String path, WriteType type, String targetWorker) {
         CreateFileOptions writeOptions = CreateFileOptions.defaults().setWriteType(type);
+        FileWriteLocationPolicy policy = locationPolicyOf(path, targetWorker);
+        if (policy != null) {
+            writeOptions.setLocationPolicy(policy);
+        }
+        return writeOptions;
+    }
 
+    /**
+     * @param targetWorker AlluxioConsts里的位置策略，或者一个worker的主机名
+     * @return 对应的位置策略，不指定worker并且没有设置放置策略时返回null，交给alluxio决定
+     */
+    private FileWriteLocationPolicy locationPolicyOf(String path, String targetWorker) {
         if (targetWorker.equals(AlluxioConsts.MOST_AVAILABLE_FIRST)) {
-            writeOptions.setLocationPolicy(new MostAvailableFirstPolicy());
-        } else if (!targetWorker.equals(AlluxioConsts.NON_SPECIFIED_WORKER)) {
-            writeOptions.setLocationPolicy(new SpecificHostPolicy(targetWorker));
+            return new MostAvailableFirstPolicy();
         }
-
-        return mFileSystem.createFile(uri, writeOptions);
+        if (!targetWorker.equals(AlluxioConsts.NON_SPECIFIED_WORKER)) {
+            return new SpecificHostPolicy(targetWorker);
+        }
+        AlluxioPlacementPolicy placement = mPlacementPolicy;
+        return placement == null ? null : placement.policyFor(path);
     }
 
     private void writeFile(AlluxioURI uri, String msg, WriteType type, String targetWorker)
@@ -150,122 +603,298 @@ import java.util.List;
             .isCache() ? " memory" : "") + (type.isThrough() ? " disk" : ""));
         //        }
 
-        AlluxioUtils.TimeMeasure tm = new AlluxioUtils.TimeMeasure();
-        tm.start();
-
-        ByteBuffer buf = ByteBuffer.wrap(msg.getBytes(Charset.forName("UTF-8")));
+        long start = System.nanoTime();
+        ByteBuffer buf = ByteBuffer.wrap(msg.getBytes(StandardCharsets.UTF_8));
         //因为FileOutStream实现了AutoCloseable接口，所以使用try with resource语法，
         // 减少了finally来关闭资源，称之为Automatic Resource Management(自动资源管理)。
-        try (FileOutStream os = getFileOutStream(uri, type, targetWorker)) {
-            os.write(buf.array());
+        try (AlluxioTraceSpan span = trace("writeFile")) {
+            span.phase(AlluxioTracer.OPEN);
+            try (FileOutStream os = getFileOutStream(uri, type, targetWorker)) {
+                span.phase(AlluxioTracer.TRANSFER);
+                os.write(buf.array());
+                recordBytesWritten(buf.capacity());
+                span.phase(AlluxioTracer.CLOSE);
+            }
         } catch (Exception e) {
             throw new IOException(e);
         }
-        tm.pause();
         if (LOG.isDebugEnabled()) {
-            LOG.debug("[write File] ElapsedTime = " + tm.getElapsedTime() + " ms!");
+            LOG.debug("[write File] ElapsedTime = " + (System.nanoTime() - start) / 1000 + " us!");
         }
     }
 
-    private void writeLargeFile(AlluxioURI uri, String msg, double sizeMB, WriteType type,
-        String targetWorker) throws IOException, AlluxioException {
-
-
-        AlluxioUtils.TimeMeasure tm = new AlluxioUtils.TimeMeasure();
-        tm.start();
+    private void readFile(AlluxioURI uri, ReadType type, boolean toPrint)
+        throws IOException, AlluxioException {
+        readFile(uri, type, toPrint, AlluxioConsts.NON_SPECIFIED_WORKER);
+    }
 
-        int remainSizeByte = (int) sizeMB * 1024 * 1024;
-        int len = AlluxioUtils.utf8LenCounter(msg);
+    private void readFile(AlluxioURI uri, ReadType type, boolean toPrint, String cacheLocation)
+        throws AlluxioException, IOException {
 
-        if (remainSizeByte == 0 || len == 0) {
-            LOG.error(
-                "[the len is 0 or the remain size byte is 0]: " + "the the remain size byte is"
-                    + remainSizeByte + " the len is :" + len);
-            return;
+        OpenFileOptions readOptions = OpenFileOptions.defaults().setReadType(type);
+        FileWriteLocationPolicy policy = locationPolicyOf(uri.getPath(), cacheLocation);
+        if (policy != null) {
+            readOptions.setLocationPolicy(policy);
         }
 
-        ByteBuffer buf = ByteBuffer.wrap(msg.getBytes(Charset.forName("UTF-8")));
-        try (FileOutStream os = getFileOutStream(uri, type, targetWorker)) {
-            while ((remainSizeByte -= len) > 0) {
-                os.write(buf.array());
+        try (AlluxioTraceSpan span = trace("readFile")) {
+            span.phase(AlluxioTracer.OPEN);
+            try (FileInStream is = mFileSystem.openFile(uri, readOptions)) {
+                transfer(is, AlluxioConsts.DEFAULT_READ_BUFFER_SIZE, span, (chunk, offset) -> {
+                    // 只有需要打印的时候才解码成字符串
+                    if (toPrint) {
+                        LOG.info(StandardCharsets.UTF_8.decode(chunk).toString());
+                    }
+                });
+                span.phase(AlluxioTracer.CLOSE);
             }
         } catch (Exception e) {
             throw new IOException(e);
         }
-        tm.pause();
+    }
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("[write large File] ElapsedTime = " + tm.getElapsedTime() + " ms!");
+    /**
+     * 流式读取整个文件，使用默认的buffer大小
+     *
+     * @see #read(String, OpenFileOptions, int, AlluxioChunkConsumer)
+     */
+    public long read(String path, AlluxioChunkConsumer consumer) throws Exception {
+        return read(path, OpenFileOptions.defaults(), AlluxioConsts.DEFAULT_READ_BUFFER_SIZE,
+            consumer);
+    }
+
+    /**
+     * 流式读取整个文件，数据读进从buffer池借来的可复用buffer，再一块一块交给consumer，
+     * 不会解码成字符串，每次调用几乎没有内存分配。设置了本地缓存时先查本地缓存。
+     *
+     * @param path       alluxio 路径
+     * @param options    打开文件的参数
+     * @param bufferSize 每块数据的最大字节数
+     * @param consumer   回调，拿到的buffer只在回调期间有效
+     * @return 读到的总字节数
+     * @throws Exception
+     */
+    public long read(String path, OpenFileOptions options, int bufferSize,
+        AlluxioChunkConsumer consumer) throws Exception {
+        Preconditions.checkNotNull(consumer, "the consumer should not be null!");
+        AlluxioLocalCache localCache = mLocalCache;
+        if (localCache != null) {
+            return localCache.read(this, getStatus(path), options, bufferSize, consumer);
+        }
+        try (AlluxioTraceSpan span = trace("read")) {
+            span.phase(AlluxioTracer.OPEN);
+            try (FileInStream is = openFile(path, options)) {
+                long bytes = transfer(is, bufferSize, span, consumer);
+                span.phase(AlluxioTracer.CLOSE);
+                return bytes;
+            }
         }
     }
 
-    private void writeLargeFileLocal(String filepath, String msg, double sizeMB)
-        throws IOException, AlluxioException {
-        AlluxioUtils.TimeMeasure tm = new AlluxioUtils.TimeMeasure();
-        tm.start();
+    /**
+     * 以ReadableByteChannel的方式打开文件，调用者负责关闭
+     *
+     * @see #openChannel(String, OpenFileOptions)
+     */
+    public ReadableByteChannel openChannel(String path) throws Exception {
+        return openChannel(path, OpenFileOptions.defaults());
+    }
 
-        int remainSizeByte = (int) sizeMB * 1024 * 1024;
-        int len = AlluxioUtils.utf8LenCounter(msg);
+    /**
+     * 以ReadableByteChannel的方式打开文件，调用者负责关闭
+     *
+     * @param path    alluxio 路径
+     * @param options 打开文件的参数
+     * @throws Exception
+     * @see AlluxioReadableChannel
+     */
+    public ReadableByteChannel openChannel(String path, OpenFileOptions options) throws Exception {
+        return new AlluxioReadableChannel(this, openFile(path, options));
+    }
 
-        if (remainSizeByte == 0 || len == 0) {
-            LOG.error("Zero length input!");
-            return;
-        }
-        ByteBuffer buf = ByteBuffer.wrap(msg.getBytes(Charset.forName("UTF-8")));
-        FileOutputStream os = new FileOutputStream(filepath);
-        try {
-            while ((remainSizeByte -= len) > 0) {
-                os.write(buf.array());
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new IOException(e);
-        } finally {
-            os.flush();
-            os.getFD().sync();
-            os.close();
+    /**
+     * 打开文件并套上预读，适合顺序扫描时调用方每读一段还要花时间处理的场景，调用者负责关闭
+     *
+     * @param path      alluxio 路径
+     * @param options   打开文件的参数
+     * @param chunkSize 每次预读的字节数，一般取块大小或者它的约数
+     * @param chunks    最多提前读多少块
+     * @throws Exception
+     * @see AlluxioReadAheadInputStream
+     */
+    public AlluxioReadAheadInputStream openFileWithReadAhead(String path, OpenFileOptions options,
+        int chunkSize, int chunks) throws Exception {
+        return new AlluxioReadAheadInputStream(openFile(path, options), mBufferPool, chunkSize,
+            chunks);
+    }
+
+    /**
+     * 打开文件，读取时同时计算校验和，有摘要文件的话读到末尾时校验，调用者负责关闭
+     *
+     * @param path    alluxio 路径
+     * @param options 打开文件的参数
+     * @throws Exception
+     * @see AlluxioChecksumInputStream
+     */
+    public AlluxioChecksumInputStream openFileWithChecksum(String path, OpenFileOptions options)
+        throws Exception {
+        AlluxioDigest expected = AlluxioDigest.read(this, path);
+        AlluxioChecksumType type =
+            expected == null ? AlluxioChecksumType.CRC32C : expected.getType();
+        return new AlluxioChecksumInputStream(this, path, openFile(path, options), type,
+            expected);
+    }
+
+    /**
+     * 递归删除文件或目录，连同它的摘要文件，否则同名的新文件会用旧摘要校验。
+     * 比deleteRecursive多一次exists，只在用过createFileWithChecksum的路径上使用
+     *
+     * @param path alluxio 路径
+     * @throws Exception
+     */
+    public void deleteWithChecksum(String path) throws Exception {
+        deleteRecursive(path);
+        deleteSidecar(path);
+    }
+
+    /**
+     * 重命名文件，摘要文件跟着移动，目标上残留的摘要文件属于以前的内容，先删掉。
+     * 比rename多两次exists，只在用过createFileWithChecksum的路径上使用
+     *
+     * @param src 源路径
+     * @param dst 目标路径
+     * @throws Exception
+     */
+    public void renameWithChecksum(String src, String dst) throws Exception {
+        rename(src, dst);
+        deleteSidecar(dst);
+        String srcSidecar = AlluxioDigest.sidecarOf(src);
+        if (exists(srcSidecar)) {
+            rename(srcSidecar, AlluxioDigest.sidecarOf(dst));
         }
-        tm.pause();
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("[write large File to local] ElapsedTime = " + tm.getElapsedTime() + " ms!");
+    }
+
+    private void deleteSidecar(String path) throws Exception {
+        String sidecar = AlluxioDigest.sidecarOf(path);
+        if (exists(sidecar)) {
+            delete(sidecar);
         }
     }
 
-    private void readFile(AlluxioURI uri, ReadType type, boolean toPrint)
-        throws IOException, AlluxioException {
-        readFile(uri, type, toPrint, AlluxioConsts.NON_SPECIFIED_WORKER);
+    /**
+     * 并行读取一个大文件，数据块一读到就连同在文件中的偏移交给sink，顺序不确定
+     *
+     * @param path        alluxio 文件路径
+     * @param parallelism 同时打开的流的数目
+     * @param sink        回调，会被多个线程同时调用，必须是线程安全的
+     * @return 读到的总字节数
+     * @throws Exception
+     * @see AlluxioParallelReader
+     */
+    public long readParallel(String path, int parallelism, AlluxioChunkConsumer sink)
+        throws Exception {
+        return new AlluxioParallelReader(this, parallelism, AlluxioConsts.DEFAULT_READ_BUFFER_SIZE,
+            OpenFileOptions.defaults()).read(path, sink, false);
     }
 
-    private void readFile(AlluxioURI uri, ReadType type, boolean toPrint, String cacheLocation)
-        throws AlluxioException, IOException {
+    /**
+     * 并行读取一个大文件，但是按文件顺序把数据交给sink，sink不会被并发调用
+     *
+     * @see #readParallel(String, int, AlluxioChunkConsumer)
+     */
+    public long readParallelOrdered(String path, int parallelism, AlluxioChunkConsumer sink)
+        throws Exception {
+        return new AlluxioParallelReader(this, parallelism, AlluxioConsts.DEFAULT_READ_BUFFER_SIZE,
+            OpenFileOptions.defaults()).read(path, sink, true);
+    }
+
+    /**
+     * 并行读取一个大文件，按偏移写到target的对应位置
+     *
+     * @param target 目标文件，由调用者负责打开和关闭
+     * @see #readParallel(String, int, AlluxioChunkConsumer)
+     */
+    public long readParallel(String path, int parallelism, FileChannel target) throws Exception {
+        Preconditions.checkNotNull(target, "the target channel should not be null!");
+        return readParallel(path, parallelism, (chunk, offset) -> {
+            long position = offset;
+            while (chunk.hasRemaining()) {
+                position += target.write(chunk, position);
+            }
+        });
+    }
 
-        AlluxioUtils.TimeMeasure tm = new AlluxioUtils.TimeMeasure();
-        tm.start();
+    /**
+     * 把本地文件或者目录树并行上传到alluxio
+     *
+     * @param localPath 本地文件或者目录
+     * @param dstPath   alluxio上的目标路径
+     * @param options   并发度、块大小、写类型和位置策略等参数
+     * @return 上传的文件数、字节数和吞吐
+     * @throws Exception
+     * @see AlluxioUploader
+     */
+    public AlluxioTransferStats upload(String localPath, String dstPath,
+        AlluxioUploadOptions options) throws Exception {
+        return new AlluxioUploader(this, options).upload(Paths.get(localPath), dstPath);
+    }
 
-        OpenFileOptions readOptions = OpenFileOptions.defaults().setReadType(type);
-        if (!cacheLocation.equals(AlluxioConsts.NON_SPECIFIED_WORKER) && !cacheLocation
-            .equals(AlluxioConsts.MOST_AVAILABLE_FIRST)) {
-            readOptions.setLocationPolicy(new SpecificHostPolicy(cacheLocation));
-        }
+    /**
+     * 把alluxio上的文件或者目录树并行复制到另一个路径，没有变化的文件会跳过，可以断点续传
+     *
+     * @param srcPath 源文件或者目录，可以在挂载的UFS下
+     * @param dstPath 目标路径
+     * @param options 并发度、比较方式、断点文件和是否删除多余文件等参数
+     * @return 复制、跳过和删除的文件数以及吞吐
+     * @throws Exception
+     * @see AlluxioSyncer
+     */
+    public AlluxioTransferStats sync(String srcPath, String dstPath, AlluxioSyncOptions options)
+        throws Exception {
+        return new AlluxioSyncer(this, options).sync(srcPath, dstPath);
+    }
+
+    /**
+     * 重新读一遍文件或者目录树下的文件，和保存的摘要比较，默认同时校验8个文件
+     *
+     * @see #verify(String, int)
+     */
+    public AlluxioVerifyResult verify(String path) throws Exception {
+        return verify(path, 8);
+    }
 
+    /**
+     * @param path        文件或者目录
+     * @param parallelism 同时校验的文件数
+     * @return 校验通过、不一致和没有摘要的文件
+     * @throws Exception
+     * @see AlluxioChecksumVerifier
+     */
+    public AlluxioVerifyResult verify(String path, int parallelism) throws Exception {
+        return new AlluxioChecksumVerifier(this, parallelism).verify(path);
+    }
 
-        //ByteBuffer buf = ByteBuffer.allocate((int) is.remaining());
-        //noinspection ResultOfMethodCallIgnored
-        try (FileInStream is = mFileSystem.openFile(uri, readOptions)) {
-            byte[] bytes = new byte[10000000];
+    private long transfer(FileInStream is, int bufferSize, AlluxioTraceSpan span,
+        AlluxioChunkConsumer consumer) throws Exception {
+        ByteBuffer buf = mBufferPool.acquire(bufferSize);
+        try {
+            byte[] bytes = buf.array();
+            long offset = 0;
             int bytesRead;
-            while ((bytesRead = is.read(bytes)) != -1) {
-                String msg = new String(bytes, 0, bytesRead, Charset.forName("UTF-8"));
-                if (toPrint) {
-                    LOG.info("");
+            span.phase(AlluxioTracer.FIRST_BYTE);
+            while ((bytesRead = is.read(bytes, 0, bufferSize)) != -1) {
+                if (offset == 0) {
+                    span.phase(AlluxioTracer.TRANSFER);
                 }
+                buf.clear().limit(bytesRead);
+                consumer.accept(buf, offset);
+                offset += bytesRead;
+                recordBytesRead(bytesRead);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new IOException(e);
+            return offset;
+        } finally {
+            mBufferPool.release(buf);
         }
-
-        tm.pause();
     }
 
     /**
@@ -274,7 +903,9 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#createDirectory(AlluxioURI)
      */
     public void createDirectory(String path) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.createDirectory(new AlluxioURI(path)));
+        executeNoResult("createDirectory",
+            fileSystem -> fileSystem.createDirectory(new AlluxioURI(path)));
+        invalidate(path);
     }
 
     /**
@@ -284,7 +915,13 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#createDirectory(AlluxioURI, CreateDirectoryOptions)
      */
     public void createDirectory(String path, CreateDirectoryOptions options) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.createDirectory(new AlluxioURI(path), options));
+        executeNoResult("createDirectory",
+            fileSystem -> fileSystem.createDirectory(new AlluxioURI(path), options));
+        if (options.isRecursive()) {
+            invalidateCreated(path);
+        } else {
+            invalidate(path);
+        }
     }
 
     /**
@@ -296,7 +933,9 @@ import java.util.List;
     public void createDirRecursive(String path) throws Exception {
         CreateDirectoryOptions options = CreateDirectoryOptions.defaults();
         options.setRecursive(true);
-        executeNoResult(fileSystem -> fileSystem.createDirectory(new AlluxioURI(path), options));
+        executeNoResult("createDirectory",
+            fileSystem -> fileSystem.createDirectory(new AlluxioURI(path), options));
+        invalidateCreated(path);
     }
 
     /**
@@ -305,7 +944,8 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#delete(AlluxioURI)
      */
     public void delete(String path) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.delete(new AlluxioURI(path)));
+        executeNoResult("delete", fileSystem -> fileSystem.delete(new AlluxioURI(path)));
+        invalidate(path);
     }
 
     /**
@@ -314,7 +954,8 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#delete(AlluxioURI, DeleteOptions)
      */
     public void delete(String path, DeleteOptions options) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.delete(new AlluxioURI(path), options));
+        executeNoResult("delete", fileSystem -> fileSystem.delete(new AlluxioURI(path), options));
+        invalidate(path);
     }
 
     /**
@@ -327,7 +968,8 @@ import java.util.List;
     public void deleteRecursive(String path) throws Exception {
         DeleteOptions options = DeleteOptions.defaults();
         options.setRecursive(true);
-        executeNoResult(fileSystem -> fileSystem.delete(new AlluxioURI(path), options));
+        executeNoResult("delete", fileSystem -> fileSystem.delete(new AlluxioURI(path), options));
+        invalidate(path);
     }
 
 
@@ -335,28 +977,43 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#exists(AlluxioURI)
      */
     public boolean exists(String path) throws Exception {
-        return execute(fileSystem -> fileSystem.exists(new AlluxioURI(path)));
+        AlluxioMetadataCache cache = mMetadataCache;
+        if (cache == null) {
+            return executeCoalesced("exists", path,
+                fileSystem -> fileSystem.exists(new AlluxioURI(path)));
+        }
+        Boolean cached = cache.getExists(path);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.getGeneration();
+        boolean exists = executeCoalesced("exists", path,
+            fileSystem -> fileSystem.exists(new AlluxioURI(path)));
+        cache.putExists(path, exists, generation);
+        return exists;
     }
 
     /**
      * @see alluxio.client.file.FileSystem#exists(AlluxioURI, ExistsOptions)
      */
     public boolean exists(String path, ExistsOptions options) throws Exception {
-        return execute(fileSystem -> fileSystem.exists(new AlluxioURI(path), options));
+        return execute("exists", fileSystem -> fileSystem.exists(new AlluxioURI(path), options));
     }
 
     /**
      * @see alluxio.client.file.FileSystem#free(AlluxioURI)
      */
     public void free(String path) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.free(new AlluxioURI(path)));
+        executeNoResult("free", fileSystem -> fileSystem.free(new AlluxioURI(path)));
+        invalidate(path);
     }
 
     /**
      * @see alluxio.client.file.FileSystem#free(AlluxioURI, FreeOptions)
      */
     public void free(String path, FreeOptions options) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.free(new AlluxioURI(path), options));
+        executeNoResult("free", fileSystem -> fileSystem.free(new AlluxioURI(path), options));
+        invalidate(path);
     }
 
     /**
@@ -367,7 +1024,8 @@ import java.util.List;
     public void freeRecursive(String path) throws Exception {
         FreeOptions options = FreeOptions.defaults();
         options.setRecursive(true);
-        executeNoResult(fileSystem -> fileSystem.free(new AlluxioURI(path), options));
+        executeNoResult("free", fileSystem -> fileSystem.free(new AlluxioURI(path), options));
+        invalidate(path);
     }
 
 
@@ -375,21 +1033,49 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#getStatus(AlluxioURI)
      */
     public URIStatus getStatus(String path) throws Exception {
-        return execute(fileSystem -> fileSystem.getStatus(new AlluxioURI(path)));
+        AlluxioMetadataCache cache = mMetadataCache;
+        if (cache == null) {
+            return executeCoalesced("getStatus", path,
+                fileSystem -> fileSystem.getStatus(new AlluxioURI(path)));
+        }
+        URIStatus cached = cache.getStatus(path);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.getGeneration();
+        URIStatus status = executeCoalesced("getStatus", path,
+            fileSystem -> fileSystem.getStatus(new AlluxioURI(path)));
+        cache.putStatus(path, status, generation);
+        return status;
     }
 
     /**
      * @see alluxio.client.file.FileSystem#getStatus(AlluxioURI, GetStatusOptions)
      */
     public URIStatus getStatus(String path, GetStatusOptions options) throws Exception {
-        return execute(fileSystem -> fileSystem.getStatus(new AlluxioURI(path), options));
+        return execute("getStatus",
+            fileSystem -> fileSystem.getStatus(new AlluxioURI(path), options));
     }
 
     /**
+     * 打开元数据缓存或者请求合并时返回的列表是不可修改的，因为它可能被多个调用者共享
+     *
      * @see alluxio.client.file.FileSystem#listStatus(AlluxioURI)
      */
     public List<URIStatus> listStatus(String path) throws Exception {
-        return execute(fileSystem -> fileSystem.listStatus(new AlluxioURI(path)));
+        AlluxioMetadataCache cache = mMetadataCache;
+        if (cache == null) {
+            return executeCoalesced("listStatus", path,
+                fileSystem -> fileSystem.listStatus(new AlluxioURI(path)),
+                Collections::unmodifiableList);
+        }
+        List<URIStatus> cached = cache.getListStatus(path);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.getGeneration();
+        return cache.putListStatus(path, executeCoalesced("listStatus", path,
+            fileSystem -> fileSystem.listStatus(new AlluxioURI(path))), generation);
     }
 
 
@@ -397,22 +1083,105 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#listStatus(AlluxioURI, ListStatusOptions)
      */
     public List<URIStatus> listStatus(String path, ListStatusOptions options) throws Exception {
-        return execute(fileSystem -> fileSystem.listStatus(new AlluxioURI(path), options));
+        return execute("listStatus",
+            fileSystem -> fileSystem.listStatus(new AlluxioURI(path), options));
+    }
+
+
+    /**
+     * 以Stream的方式惰性地列出目录下的项，不使用元数据缓存
+     *
+     * @see #listStatusStream(String, boolean, Predicate)
+     */
+    public Stream<URIStatus> listStatusStream(String path) {
+        return listStatusStream(path, false, null);
+    }
+
+    /**
+     * 以Stream的方式惰性地列出目录下的项，子目录在流被消费到时才会去list，
+     * limit、findFirst、anyMatch这类短路操作会提前结束遍历。需要长时间持有结果时，
+     * 可以用map(AlluxioFileSummary::of)只保留需要的字段。
+     *
+     * @param path      alluxio 目录
+     * @param recursive 是否包括所有子目录下的项
+     * @param filter    只返回满足条件的项，不影响是否进入子目录，传null表示不过滤
+     * @see AlluxioStatusIterator
+     */
+    public Stream<URIStatus> listStatusStream(String path, boolean recursive,
+        Predicate<? super URIStatus> filter) {
+        Iterator<URIStatus> iterator = new AlluxioStatusIterator(this, path, recursive, filter);
+        return StreamSupport.stream(Spliterators
+            .spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * 把root下的目录树导出成按列存放的快照文件，之后可以用AlluxioNamespaceSnapshot离线查询和比较
+     *
+     * @param root        导出的起点
+     * @param file        本地快照文件
+     * @param parallelism 同时进行的listStatus的最大数目
+     * @return 导出的条目数
+     * @throws Exception
+     * @see AlluxioNamespaceExporter
+     * @see AlluxioNamespaceSnapshot#open(String)
+     */
+    public int exportNamespace(String root, String file, int parallelism) throws Exception {
+        return new AlluxioNamespaceExporter(this, parallelism).export(root, file);
+    }
+
+    /**
+     * 压测：按options并发地写、读一批文件，对每种WriteType以及本地磁盘分别统计吞吐和延迟分位数
+     *
+     * @param options 压测参数
+     * @return 每个测试对象一份报告
+     * @throws Exception
+     * @see AlluxioLoadGenerator
+     */
+    public List<AlluxioLoadReport> runLoad(AlluxioLoadOptions options) throws Exception {
+        return new AlluxioLoadGenerator(this, options).run();
+    }
+
+    /**
+     * 并行遍历root下的整棵目录树，兄弟目录的listStatus会被同时发出
+     *
+     * @param root        起点路径
+     * @param visitor     回调，会被多个线程同时调用，返回false可以剪掉一个目录
+     * @param parallelism 同时进行的listStatus的最大数目
+     * @return 访问过的文件和目录数
+     * @throws Exception
+     * @see AlluxioTreeWalker
+     */
+    public long walk(String root, AlluxioTreeVisitor visitor, int parallelism) throws Exception {
+        return walk(root, visitor, parallelism, AlluxioTreeWalker.UNLIMITED_DEPTH);
     }
 
+    /**
+     * 并行遍历root下的目录树，深度超过maxDepth的目录不再展开
+     *
+     * @param maxDepth 最大遍历深度，root本身是0
+     * @see #walk(String, AlluxioTreeVisitor, int)
+     */
+    public long walk(String root, AlluxioTreeVisitor visitor, int parallelism, int maxDepth)
+        throws Exception {
+        return new AlluxioTreeWalker(this, parallelism, maxDepth).walk(root, visitor);
+    }
 
     /**
      * @see alluxio.client.file.FileSystem#loadMetadata(AlluxioURI)
      */
     public void loadMetadata(String path) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.loadMetadata(new AlluxioURI(path)));
+        executeNoResult("loadMetadata",
+            fileSystem -> fileSystem.loadMetadata(new AlluxioURI(path)));
+        invalidate(path);
     }
 
     /**
      * @see alluxio.client.file.FileSystem#loadMetadata(AlluxioURI, LoadMetadataOptions)
      */
     public void loadMetadata(String path, LoadMetadataOptions options) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.loadMetadata(new AlluxioURI(path), options));
+        executeNoResult("loadMetadata",
+            fileSystem -> fileSystem.loadMetadata(new AlluxioURI(path), options));
+        invalidate(path);
     }
 
     /**
@@ -423,37 +1192,44 @@ import java.util.List;
     public void loadMetadataRecursive(String path) throws Exception {
         LoadMetadataOptions options = LoadMetadataOptions.defaults();
         options.setRecursive(true);
-        executeNoResult(fileSystem -> fileSystem.loadMetadata(new AlluxioURI(path), options));
+        executeNoResult("loadMetadata",
+            fileSystem -> fileSystem.loadMetadata(new AlluxioURI(path), options));
+        invalidate(path);
     }
 
     /**
      * @see alluxio.client.file.FileSystem#mount(AlluxioURI, AlluxioURI)
      */
     public void mount(String alluxioPath, String ufsPath) throws Exception {
-        executeNoResult(
+        executeNoResult("mount",
             fileSystem -> fileSystem.mount(new AlluxioURI(alluxioPath), new AlluxioURI(ufsPath)));
+        invalidate(alluxioPath);
     }
 
     /**
      * @see alluxio.client.file.FileSystem#mount(AlluxioURI, AlluxioURI, MountOptions)
      */
     public void mount(String alluxioPath, String ufsPath, MountOptions options) throws Exception {
-        executeNoResult(fileSystem -> fileSystem
+        executeNoResult("mount", fileSystem -> fileSystem
             .mount(new AlluxioURI(alluxioPath), new AlluxioURI(ufsPath), options));
+        invalidate(alluxioPath);
     }
 
     /**
      * @see alluxio.client.file.FileSystem#openFile(AlluxioURI)
      */
     public FileInStream openFile(String path) throws Exception {
-        return execute(fileSystem -> fileSystem.openFile(new AlluxioURI(path)));
+        recordAccess(path);
+        return execute("openFile", fileSystem -> fileSystem.openFile(new AlluxioURI(path)));
     }
 
     /**
      * @see alluxio.client.file.FileSystem#openFile(AlluxioURI, OpenFileOptions)
      */
     public FileInStream openFile(String path, OpenFileOptions options) throws Exception {
-        return execute(fileSystem -> fileSystem.openFile(new AlluxioURI(path), options));
+        recordAccess(path);
+        return execute("openFile",
+            fileSystem -> fileSystem.openFile(new AlluxioURI(path), options));
     }
 
 
@@ -461,15 +1237,18 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#rename(AlluxioURI, AlluxioURI)
      */
     public void rename(String src, String dst) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.rename(new AlluxioURI(src), new AlluxioURI(dst)));
+        executeNoResult("rename",
+            fileSystem -> fileSystem.rename(new AlluxioURI(src), new AlluxioURI(dst)));
+        invalidate(src, dst);
     }
 
     /**
      * @see alluxio.client.file.FileSystem#rename(AlluxioURI, AlluxioURI, RenameOptions)
      */
     public void rename(String src, String dst, RenameOptions options) throws Exception {
-        executeNoResult(
+        executeNoResult("rename",
             fileSystem -> fileSystem.rename(new AlluxioURI(src), new AlluxioURI(dst), options));
+        invalidate(src, dst);
     }
 
 
@@ -477,7 +1256,9 @@ import java.util.List;
      * @see alluxio.client.file.FileSystem#setAttribute(AlluxioURI)
      */
     public void setAttribute(String path) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.setAttribute(new AlluxioURI(path)));
+        executeNoResult("setAttribute",
+            fileSystem -> fileSystem.setAttribute(new AlluxioURI(path)));
+        invalidate(path);
     }
 
     /**
@@ -485,21 +1266,107 @@ import java.util.List;
      */
     // FIXME: 2016/5/12 这里持久化属性不可用，原因未知！！！！！！
     public void setAttribute(String path, SetAttributeOptions options) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.setAttribute(new AlluxioURI(path), options));
+        executeNoResult("setAttribute",
+            fileSystem -> fileSystem.setAttribute(new AlluxioURI(path), options));
+        invalidate(path);
     }
 
     /**
      * @see alluxio.client.file.FileSystem#unmount(AlluxioURI)
      */
     public void unmount(String path) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.unmount(new AlluxioURI(path)));
+        executeNoResult("unmount", fileSystem -> fileSystem.unmount(new AlluxioURI(path)));
+        invalidate(path);
     }
 
     /**
      * @see alluxio.client.file.FileSystem#unmount(AlluxioURI, UnmountOptions)
      */
     public void unmount(String path, UnmountOptions options) throws Exception {
-        executeNoResult(fileSystem -> fileSystem.unmount(new AlluxioURI(path), options));
+        executeNoResult("unmount", fileSystem -> fileSystem.unmount(new AlluxioURI(path), options));
+        invalidate(path);
+    }
+
+    /**
+     * 批量递归删除，使用默认的批量参数
+     *
+     * @see #deleteAll(Collection, AlluxioBatchOptions)
+     */
+    public AlluxioBatchResult deleteAll(Collection<String> paths) throws Exception {
+        return deleteAll(paths, AlluxioBatchOptions.defaults());
+    }
+
+    /**
+     * 批量递归删除，请求通过线程池并发发出，单个路径失败不会影响其他路径。删除不是幂等的，不重试
+     *
+     * @param paths   要删除的alluxio路径
+     * @param options 并发度和在途请求数
+     * @return 每个路径的执行结果
+     * @throws Exception
+     */
+    public AlluxioBatchResult deleteAll(Collection<String> paths, AlluxioBatchOptions options)
+        throws Exception {
+        return new AlluxioBatchExecutor(options).run(paths, this::deleteRecursive, false);
+    }
+
+    /**
+     * 批量递归free，使用默认的批量参数
+     *
+     * @see #freeAll(Collection, AlluxioBatchOptions)
+     */
+    public AlluxioBatchResult freeAll(Collection<String> paths) throws Exception {
+        return freeAll(paths, AlluxioBatchOptions.defaults());
+    }
+
+    /**
+     * 批量递归free，请求通过线程池并发发出，单个路径失败不会影响其他路径
+     *
+     * @param paths   要free的alluxio路径
+     * @param options 并发度、在途请求数和重试参数
+     * @return 每个路径的执行结果
+     * @throws Exception
+     */
+    public AlluxioBatchResult freeAll(Collection<String> paths, AlluxioBatchOptions options)
+        throws Exception {
+        return new AlluxioBatchExecutor(options).run(paths, this::freeRecursive, true);
+    }
+
+    /**
+     * 批量重命名，使用默认的批量参数
+     *
+     * @see #renameAll(Map, AlluxioBatchOptions)
+     */
+    public AlluxioBatchResult renameAll(Map<String, String> srcToDst) throws Exception {
+        return renameAll(srcToDst, AlluxioBatchOptions.defaults());
+    }
+
+    /**
+     * 批量重命名，结果按源路径记录。重命名不是幂等的，不重试
+     *
+     * @param srcToDst 源路径到目标路径的映射
+     * @param options  并发度和在途请求数
+     * @return 每个源路径的执行结果
+     * @throws Exception
+     */
+    public AlluxioBatchResult renameAll(Map<String, String> srcToDst, AlluxioBatchOptions options)
+        throws Exception {
+        return new AlluxioBatchExecutor(options)
+            .run(srcToDst.keySet(), src -> rename(src, srcToDst.get(src)), false);
+    }
+
+    /**
+     * 对一批路径设置同样的属性
+     *
+     * @param paths      alluxio路径
+     * @param attributes 要设置的属性
+     * @param options    并发度、在途请求数和重试参数
+     * @return 每个路径的执行结果
+     * @throws Exception
+     */
+    public AlluxioBatchResult setAttributeAll(Collection<String> paths,
+        SetAttributeOptions attributes, AlluxioBatchOptions options) throws Exception {
+        return new AlluxioBatchExecutor(options)
+            .run(paths, path -> setAttribute(path, attributes), true);
     }
 
     public static void main(String[] args) throws Exception {
@@ -0,0 +1,127 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.ReadType;
+import com.google.common.base.Preconditions;
+
+/**
+ * AlluxioTieringScheduler的参数。
+ */
+public final class AlluxioTieringOptions {
+
+    private long mIntervalMs = 60 * 1000;
+
+    private long mMemoryBudgetBytes = 10L * 1024 * 1024 * 1024;
+
+    private long mMaxPromoteBytesPerInterval = 1024L * 1024 * 1024;
+
+    private int mMaxDemotionsPerInterval = 100;
+
+    private double mDecay = 0.5;
+
+    private double mMinHotScore = 2;
+
+    private ReadType mPromoteReadType = ReadType.CACHE_PROMOTE;
+
+    public static AlluxioTieringOptions defaults() {
+        return new AlluxioTieringOptions();
+    }
+
+    private AlluxioTieringOptions() {
+    }
+
+    public long getIntervalMs() {
+        return mIntervalMs;
+    }
+
+    /**
+     * @param intervalMs 两次调度之间的间隔
+     */
+    public AlluxioTieringOptions setIntervalMs(long intervalMs) {
+        Preconditions.checkArgument(intervalMs > 0, "intervalMs should be positive!");
+        mIntervalMs = intervalMs;
+        return this;
+    }
+
+    public long getMemoryBudgetBytes() {
+        return mMemoryBudgetBytes;
+    }
+
+    /**
+     * @param memoryBudgetBytes 热文件最多占用的alluxio内存
+     */
+    public AlluxioTieringOptions setMemoryBudgetBytes(long memoryBudgetBytes) {
+        Preconditions
+            .checkArgument(memoryBudgetBytes > 0, "memoryBudgetBytes should be positive!");
+        mMemoryBudgetBytes = memoryBudgetBytes;
+        return this;
+    }
+
+    public long getMaxPromoteBytesPerInterval() {
+        return mMaxPromoteBytesPerInterval;
+    }
+
+    /**
+     * @param maxPromoteBytesPerInterval 每次调度最多读进内存的字节数，避免预热抢占正常读写的带宽
+     */
+    public AlluxioTieringOptions setMaxPromoteBytesPerInterval(long maxPromoteBytesPerInterval) {
+        Preconditions.checkArgument(maxPromoteBytesPerInterval >= 0,
+            "maxPromoteBytesPerInterval should not be negative!");
+        mMaxPromoteBytesPerInterval = maxPromoteBytesPerInterval;
+        return this;
+    }
+
+    public int getMaxDemotionsPerInterval() {
+        return mMaxDemotionsPerInterval;
+    }
+
+    /**
+     * @param maxDemotionsPerInterval 每次调度最多free的文件数
+     */
+    public AlluxioTieringOptions setMaxDemotionsPerInterval(int maxDemotionsPerInterval) {
+        Preconditions.checkArgument(maxDemotionsPerInterval >= 0,
+            "maxDemotionsPerInterval should not be negative!");
+        mMaxDemotionsPerInterval = maxDemotionsPerInterval;
+        return this;
+    }
+
+    public double getDecay() {
+        return mDecay;
+    }
+
+    /**
+     * @param decay 每次调度时旧的访问热度乘上的系数，越小越看重最近的访问
+     */
+    public AlluxioTieringOptions setDecay(double decay) {
+        Preconditions.checkArgument(decay >= 0 && decay < 1, "decay should be in [0, 1)!");
+        mDecay = decay;
+        return this;
+    }
+
+    public double getMinHotScore() {
+        return mMinHotScore;
+    }
+
+    /**
+     * @param minHotScore 热度低于这个值的文件不会被预热
+     */
+    public AlluxioTieringOptions setMinHotScore(double minHotScore) {
+        Preconditions.checkArgument(minHotScore >= 0, "minHotScore should not be negative!");
+        mMinHotScore = minHotScore;
+        return this;
+    }
+
+    public ReadType getPromoteReadType() {
+        return mPromoteReadType;
+    }
+
+    /**
+     * @param promoteReadType 预热时读文件用的ReadType，必须是会缓存的类型
+     */
+    public AlluxioTieringOptions setPromoteReadType(ReadType promoteReadType) {
+        Preconditions.checkNotNull(promoteReadType, "promoteReadType should not be null!");
+        Preconditions.checkArgument(promoteReadType != ReadType.NO_CACHE,
+            "promoteReadType should cache the data!");
+        mPromoteReadType = promoteReadType;
+        return this;
+    }
+}
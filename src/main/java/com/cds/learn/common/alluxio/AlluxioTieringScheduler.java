@@ -0,0 +1,247 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.URIStatus;
+import alluxio.client.file.options.OpenFileOptions;
+import alluxio.exception.FileDoesNotExistException;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 根据访问频率管理alluxio内存里放哪些文件。模板的openFile会记录每个路径的访问次数，
+ * 后台线程定期把访问次数折算成按时间衰减的热度，在内存预算之内把最热的文件用会缓存的ReadType读一遍
+ * 放进内存，之前由它放进内存、现在已经不热的文件则free掉。
+ * <p>
+ * 只会free自己放进内存的文件，别的客户端放进去的不会动。每次调度预热的字节数和free的文件数都有上限。
+ */
+public class AlluxioTieringScheduler implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlluxioTieringScheduler.class);
+
+
+    /**
+     * 热度低于这个值并且不在管理中的路径会被忘掉
+     */
+    private static final double FORGET_SCORE = 0.01;
+
+    private final AlluxioTemplate mTemplate;
+
+    private final AlluxioTieringOptions mOptions;
+
+    private final ConcurrentMap<String, Access> mAccesses = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService mExecutor;
+
+    private volatile Thread mWorker;
+
+    private final AtomicLong mPromotions = new AtomicLong();
+
+    private final AtomicLong mPromotedBytes = new AtomicLong();
+
+    private final AtomicLong mDemotions = new AtomicLong();
+
+    /**
+     * @param template 被管理的模板，start之后它的openFile会被记录
+     * @param options  调度参数
+     */
+    public AlluxioTieringScheduler(AlluxioTemplate template, AlluxioTieringOptions options) {
+        Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        Preconditions.checkNotNull(options, "the tiering options should not be null!");
+        mTemplate = template;
+        mOptions = options;
+        mExecutor = Executors.newSingleThreadScheduledExecutor(
+            AlluxioUtils.daemonThreadFactory("alluxio-tiering"));
+    }
+
+    /**
+     * 开始记录模板的访问并定期调度
+     */
+    public void start() {
+        mTemplate.setTieringScheduler(this);
+        mExecutor.scheduleWithFixedDelay(this::runOnce, mOptions.getIntervalMs(),
+            mOptions.getIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override public void close() {
+        if (mTemplate.getTieringScheduler() == this) {
+            mTemplate.setTieringScheduler(null);
+        }
+        mExecutor.shutdownNow();
+    }
+
+    /**
+     * 记录一次访问，由模板的openFile调用。调度线程自己预热时的读不算
+     */
+    public void recordAccess(String path) {
+        if (Thread.currentThread() == mWorker) {
+            return;
+        }
+        mAccesses.computeIfAbsent(path, key -> new Access()).mHits.increment();
+    }
+
+    /**
+     * 执行一次调度，正常情况下由后台线程定期调用
+     */
+    public synchronized void runOnce() {
+        mWorker = Thread.currentThread();
+        try {
+            List<Map.Entry<String, Access>> ranked = new ArrayList<>(mAccesses.entrySet());
+            for (Map.Entry<String, Access> entry : ranked) {
+                Access access = entry.getValue();
+                access.mScore = access.mScore * mOptions.getDecay() + access.mHits.sumThenReset();
+            }
+            ranked.sort((a, b) -> Double.compare(b.getValue().mScore, a.getValue().mScore));
+            Set<String> hot = promote(ranked);
+            demote(ranked, hot);
+            mAccesses.entrySet().removeIf(
+                entry -> !entry.getValue().mManaged && entry.getValue().mScore < FORGET_SCORE);
+        } catch (Exception e) {
+            LOG.warn("alluxio tiering round failed", e);
+        } finally {
+            mWorker = null;
+        }
+    }
+
+    /**
+     * @return 预热过的文件数
+     */
+    public long getPromotions() {
+        return mPromotions.get();
+    }
+
+    /**
+     * @return 预热时读进内存的字节数
+     */
+    public long getPromotedBytes() {
+        return mPromotedBytes.get();
+    }
+
+    /**
+     * @return free过的文件数
+     */
+    public long getDemotions() {
+        return mDemotions.get();
+    }
+
+    /**
+     * 按热度从高到低装进内存预算，装得下但还不完全在内存里的文件在本轮的预热额度内读一遍
+     *
+     * @return 这一轮认定的热文件
+     */
+    private Set<String> promote(List<Map.Entry<String, Access>> ranked) {
+        Set<String> hot = new HashSet<>();
+        long budget = mOptions.getMemoryBudgetBytes();
+        long promoteBudget = mOptions.getMaxPromoteBytesPerInterval();
+        OpenFileOptions readOptions =
+            OpenFileOptions.defaults().setReadType(mOptions.getPromoteReadType());
+        for (Map.Entry<String, Access> entry : ranked) {
+            if (entry.getValue().mScore < mOptions.getMinHotScore()) {
+                break;
+            }
+            String path = entry.getKey();
+            URIStatus status;
+            try {
+                status = mTemplate.getStatus(path);
+            } catch (FileDoesNotExistException e) {
+                mAccesses.remove(path);
+                continue;
+            } catch (Exception e) {
+                LOG.warn("failed to get the status of " + path, e);
+                continue;
+            }
+            if (status.isFolder() || status.getLength() > budget) {
+                continue;
+            }
+            budget -= status.getLength();
+            hot.add(path);
+            long missing = status.getLength() * (100 - status.getInMemoryPercentage()) / 100;
+            if (missing == 0) {
+                continue;
+            }
+            if (missing > promoteBudget) {
+                // 这一轮的额度不够了，下一轮再读
+                continue;
+            }
+            try {
+                long bytes = readThrough(path, readOptions);
+                promoteBudget -= missing;
+                entry.getValue().mManaged = true;
+                mPromotions.incrementAndGet();
+                mPromotedBytes.addAndGet(bytes);
+            } catch (Exception e) {
+                LOG.warn("failed to promote " + path, e);
+            }
+        }
+        return hot;
+    }
+
+    /**
+     * 直接从alluxio读一遍，不经过本地缓存，数据读完就丢掉
+     */
+    private long readThrough(String path, OpenFileOptions options) throws Exception {
+        AlluxioBufferPool pool = mTemplate.getBufferPool();
+        ByteBuffer buf = pool.acquire(AlluxioConsts.DEFAULT_READ_BUFFER_SIZE);
+        try (FileInStream is = mTemplate.openFile(path, options)) {
+            byte[] bytes = buf.array();
+            long total = 0;
+            int n;
+            while ((n = is.read(bytes, 0, bytes.length)) != -1) {
+                total += n;
+            }
+            mTemplate.recordBytesRead(total);
+            return total;
+        } finally {
+            pool.release(buf);
+        }
+    }
+
+    private void demote(List<Map.Entry<String, Access>> ranked, Set<String> hot) {
+        int demotions = 0;
+        // 从最冷的开始
+        for (int i = ranked.size() - 1; i >= 0; i--) {
+            if (demotions >= mOptions.getMaxDemotionsPerInterval()) {
+                return;
+            }
+            Map.Entry<String, Access> entry = ranked.get(i);
+            if (!entry.getValue().mManaged || hot.contains(entry.getKey())) {
+                continue;
+            }
+            try {
+                mTemplate.free(entry.getKey());
+                demotions++;
+                mDemotions.incrementAndGet();
+            } catch (FileDoesNotExistException e) {
+                // 文件已经不在了，也就不用再管
+            } catch (Exception e) {
+                LOG.warn("failed to demote " + entry.getKey(), e);
+                continue;
+            }
+            entry.getValue().mManaged = false;
+        }
+    }
+
+    private static final class Access {
+        private final LongAdder mHits = new LongAdder();
+        private volatile double mScore;
+        /**
+         * 是不是由调度器放进内存的，只有这样的文件才会被free
+         */
+        private volatile boolean mManaged;
+    }
+}
@@ -0,0 +1,58 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限速，令牌按纳秒连续补充，桶里最多攒一秒的量。
+ * 一次可以取走比桶里多的令牌，欠下的部分由后面的调用等待偿还，
+ * 所以大块的读写不用拆开，长期的平均速率也不会超过设定值。
+ */
+public class AlluxioTokenBucket {
+
+    private final double mTokensPerNano;
+
+    private final double mBurst;
+
+    private double mTokens;
+
+    private long mLastNanos;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数
+     */
+    public AlluxioTokenBucket(double ratePerSecond) {
+        Preconditions.checkArgument(ratePerSecond > 0, "ratePerSecond should be positive!");
+        mTokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        mBurst = Math.max(1, ratePerSecond);
+        mTokens = mBurst;
+        mLastNanos = System.nanoTime();
+    }
+
+    /**
+     * 取走令牌，不等待
+     *
+     * @return 调用者还要等多少纳秒才算拿到了这些令牌，0表示不用等
+     */
+    public synchronized long reserve(double tokens) {
+        long now = System.nanoTime();
+        mTokens = Math.min(mBurst, mTokens + (now - mLastNanos) * mTokensPerNano);
+        mLastNanos = now;
+        mTokens -= tokens;
+        return mTokens >= 0 ? 0 : (long) Math.ceil(-mTokens / mTokensPerNano);
+    }
+
+    /**
+     * 取走令牌，不够时睡到够为止
+     *
+     * @return 等待的纳秒数
+     */
+    public long acquire(double tokens) throws InterruptedException {
+        long wait = reserve(tokens);
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        return wait;
+    }
+}
@@ -0,0 +1,105 @@
+package com.cds.learn.common.alluxio;
+
+/**
+ * 一条导出的慢调用trace，按开始时间排好序的节点列表，第0个节点是整个调用。
+ */
+public final class AlluxioTrace {
+
+    private final String mThread;
+
+    private final long mTimestampMs;
+
+    private final String[] mNames;
+
+    private final int[] mDepths;
+
+    private final long[] mOffsetNanos;
+
+    private final long[] mDurationNanos;
+
+    private final int mDropped;
+
+    AlluxioTrace(String thread, long timestampMs, String[] names, int[] depths, long[] offsetNanos,
+        long[] durationNanos, int dropped) {
+        mThread = thread;
+        mTimestampMs = timestampMs;
+        mNames = names;
+        mDepths = depths;
+        mOffsetNanos = offsetNanos;
+        mDurationNanos = durationNanos;
+        mDropped = dropped;
+    }
+
+    public String getOperation() {
+        return mNames[0];
+    }
+
+    public String getThread() {
+        return mThread;
+    }
+
+    /**
+     * @return 调用结束时的墙钟时间
+     */
+    public long getTimestampMs() {
+        return mTimestampMs;
+    }
+
+    public long getElapsedNanos() {
+        return mDurationNanos[0];
+    }
+
+    public int getNodeCount() {
+        return mNames.length;
+    }
+
+    public String getName(int node) {
+        return mNames[node];
+    }
+
+    /**
+     * @return 嵌套深度，整个调用为0
+     */
+    public int getDepth(int node) {
+        return mDepths[node];
+    }
+
+    /**
+     * @return 相对整个调用开始时间的偏移
+     */
+    public long getOffsetNanos(int node) {
+        return mOffsetNanos[node];
+    }
+
+    public long getDurationNanos(int node) {
+        return mDurationNanos[node];
+    }
+
+    /**
+     * @return 超出AlluxioTraceSpan#MAX_NODES而没有记录的节点数
+     */
+    public int getDropped() {
+        return mDropped;
+    }
+
+    /**
+     * 每个节点一行，按深度缩进，时间单位是微秒
+     */
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < mNames.length; i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            for (int d = 0; d < mDepths[i]; d++) {
+                sb.append("  ");
+            }
+            sb.append(mNames[i]).append(" +").append(mOffsetNanos[i] / 1000).append("us ")
+                .append(mDurationNanos[i] / 1000).append("us");
+        }
+        if (mDropped > 0) {
+            sb.append("\n(").append(mDropped).append(" nodes dropped)");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.cds.learn.common.alluxio;
+
+/**
+ * 一次被追踪的调用，由AlluxioTracer按线程复用，每个线程只有一个实例，记录时不分配内存。
+ * <p>
+ * 同一线程上嵌套的调用（比如read里面的openFile）不会新开一条trace，而是作为当前阶段的子节点。
+ * 用法：
+ * <pre>
+ * try (AlluxioTraceSpan span = tracer.begin("readFile")) {
+ *     span.phase(AlluxioTracer.OPEN);
+ *     ...
+ *     span.phase(AlluxioTracer.TRANSFER);
+ *     ...
+ * }
+ * </pre>
+ * 每次close结束最近一次begin或enter，以及它下面还没结束的phase。
+ */
+public final class AlluxioTraceSpan implements AutoCloseable {
+
+    /**
+     * 一条trace最多记录的节点数，超出的节点只计数不记录
+     */
+    static final int MAX_NODES = 32;
+
+    /**
+     * 没有设置tracer时使用，所有方法都什么也不做
+     */
+    static final AlluxioTraceSpan NOOP = new AlluxioTraceSpan(null);
+
+    private final AlluxioTracer mTracer;
+
+    private final String[] mNames = new String[MAX_NODES];
+
+    private final int[] mDepths = new int[MAX_NODES];
+
+    private final long[] mStarts = new long[MAX_NODES];
+
+    private final long[] mEnds = new long[MAX_NODES];
+
+    private int mCount;
+
+    private int mDropped;
+
+    /**
+     * 还没结束的节点，值是节点下标，超出MAX_NODES的节点为-1
+     */
+    private final int[] mStack = new int[MAX_NODES];
+
+    /**
+     * 对应的节点是不是用phase开启的，phase会在下一个phase开始或者所属的节点结束时自动结束
+     */
+    private final boolean[] mSequential = new boolean[MAX_NODES];
+
+    private int mTop;
+
+    /**
+     * 栈太深时多出来的层数，只用来保证begin/close配对
+     */
+    private int mOverflow;
+
+    private boolean mSampled;
+
+    private long mRoots;
+
+    AlluxioTraceSpan(AlluxioTracer tracer) {
+        mTracer = tracer;
+    }
+
+    boolean isActive() {
+        return mTop > 0 || mOverflow > 0;
+    }
+
+    /**
+     * 开始一条新的trace，只由AlluxioTracer在没有活动trace的线程上调用
+     */
+    void start(String operation, int sampleEvery) {
+        mSampled = mRoots++ % sampleEvery == 0;
+        mCount = 0;
+        mDropped = 0;
+        push(operation, false);
+    }
+
+    /**
+     * 在当前节点下开启一个子节点，需要用close结束
+     *
+     * @param name 节点名，最好是常量，trace只保存引用
+     */
+    public AlluxioTraceSpan enter(String name) {
+        if (mTracer != null) {
+            push(name, false);
+        }
+        return this;
+    }
+
+    /**
+     * 结束当前节点下正在进行的phase，开始下一个。phase不需要close，所属节点结束时一起结束
+     *
+     * @param name 阶段名，比如AlluxioTracer#OPEN
+     */
+    public void phase(String name) {
+        if (mTracer == null || mOverflow > 0) {
+            return;
+        }
+        if (mTop > 0 && mSequential[mTop - 1]) {
+            pop(mSampled ? System.nanoTime() : 0);
+        }
+        push(name, true);
+    }
+
+    /**
+     * 结束最近一次begin或enter开启的节点
+     */
+    @Override public void close() {
+        if (mTracer == null) {
+            return;
+        }
+        long now = mSampled ? System.nanoTime() : 0;
+        if (mOverflow > 0) {
+            mOverflow--;
+            return;
+        }
+        while (mTop > 0 && mSequential[mTop - 1]) {
+            pop(now);
+        }
+        if (mTop > 0) {
+            pop(now);
+        }
+        if (mTop == 0 && mSampled) {
+            mTracer.finish(this);
+        }
+    }
+
+    private void push(String name, boolean sequential) {
+        if (mTop == MAX_NODES) {
+            mOverflow++;
+            return;
+        }
+        int index = -1;
+        if (mSampled) {
+            if (mCount < MAX_NODES) {
+                index = mCount++;
+                mNames[index] = name;
+                mDepths[index] = mTop;
+                mStarts[index] = System.nanoTime();
+                mEnds[index] = 0;
+            } else {
+                mDropped++;
+            }
+        }
+        mStack[mTop] = index;
+        mSequential[mTop] = sequential;
+        mTop++;
+    }
+
+    private void pop(long now) {
+        int index = mStack[--mTop];
+        if (index >= 0) {
+            mEnds[index] = now;
+        }
+    }
+
+    long getElapsedNanos() {
+        return mEnds[0] - mStarts[0];
+    }
+
+    /**
+     * 把复用的数据拷贝成一个不可变的快照，只在需要导出时调用
+     */
+    AlluxioTrace snapshot() {
+        String[] names = new String[mCount];
+        int[] depths = new int[mCount];
+        long[] offsets = new long[mCount];
+        long[] durations = new long[mCount];
+        for (int i = 0; i < mCount; i++) {
+            names[i] = mNames[i];
+            depths[i] = mDepths[i];
+            offsets[i] = mStarts[i] - mStarts[0];
+            durations[i] = mEnds[i] - mStarts[i];
+        }
+        return new AlluxioTrace(Thread.currentThread().getName(), System.currentTimeMillis(),
+            names, depths, offsets, durations, mDropped);
+    }
+}
@@ -0,0 +1,118 @@
+package com.cds.learn.common.alluxio;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 纳秒精度的调用追踪，用来看清单次readFile、writeFile或者元数据调用的时间花在了哪里。
+ * <p>
+ * 每个线程复用一个AlluxioTraceSpan，记录时只有System.nanoTime，没有锁也没有内存分配。
+ * 每个线程每sampleEvery条trace记录一条，没被采样的调用只维护嵌套层数。
+ * 采样到的调用超过慢调用阈值时拷贝成AlluxioTrace，放进一个固定大小的环形缓冲区，
+ * 只有这一步会分配内存。
+ *
+ * @see AlluxioTemplate#setTracer(AlluxioTracer)
+ */
+public class AlluxioTracer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlluxioTracer.class);
+
+    public static final String OPEN = "open";
+
+    public static final String FIRST_BYTE = "firstByte";
+
+    public static final String TRANSFER = "transfer";
+
+    public static final String CLOSE = "close";
+
+    private final int mSampleEvery;
+
+    private final long mSlowNanos;
+
+    private final ThreadLocal<AlluxioTraceSpan> mSpans;
+
+    private final AtomicReferenceArray<AlluxioTrace> mSlowTraces;
+
+    private final AtomicLong mSlowCount = new AtomicLong();
+
+    private final AtomicLong mSampledCount = new AtomicLong();
+
+    /**
+     * @param sampleEvery   每个线程每多少条trace采样一条，1表示全部采样
+     * @param slowMicros    超过这个耗时的采样trace会被导出，单位微秒
+     * @param maxSlowTraces 最多保留最近的多少条慢trace
+     */
+    public AlluxioTracer(int sampleEvery, long slowMicros, int maxSlowTraces) {
+        Preconditions.checkArgument(sampleEvery > 0, "sampleEvery should be positive!");
+        Preconditions.checkArgument(slowMicros >= 0, "slowMicros should not be negative!");
+        Preconditions.checkArgument(maxSlowTraces > 0, "maxSlowTraces should be positive!");
+        mSampleEvery = sampleEvery;
+        mSlowNanos = slowMicros * 1000L;
+        mSpans = ThreadLocal.withInitial(() -> new AlluxioTraceSpan(this));
+        mSlowTraces = new AtomicReferenceArray<>(maxSlowTraces);
+    }
+
+    /**
+     * 开始一次调用，当前线程已经有活动的trace时作为它的子节点
+     *
+     * @param operation 操作名，最好是常量
+     * @return 当前线程复用的span，必须用close结束，close之后不能再使用
+     */
+    public AlluxioTraceSpan begin(String operation) {
+        AlluxioTraceSpan span = mSpans.get();
+        if (span.isActive()) {
+            return span.enter(operation);
+        }
+        span.start(operation, mSampleEvery);
+        return span;
+    }
+
+    void finish(AlluxioTraceSpan span) {
+        mSampledCount.incrementAndGet();
+        if (span.getElapsedNanos() < mSlowNanos) {
+            return;
+        }
+        AlluxioTrace trace = span.snapshot();
+        long slot = mSlowCount.getAndIncrement();
+        mSlowTraces.set((int) (slot % mSlowTraces.length()), trace);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("slow alluxio call:\n" + trace);
+        }
+    }
+
+    /**
+     * @return 最近的慢trace，最新的在前
+     */
+    public List<AlluxioTrace> getSlowTraces() {
+        long count = mSlowCount.get();
+        int size = (int) Math.min(count, mSlowTraces.length());
+        List<AlluxioTrace> traces = new ArrayList<>(size);
+        for (long i = count - 1; i >= count - size; i--) {
+            AlluxioTrace trace = mSlowTraces.get((int) (i % mSlowTraces.length()));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * @return 被采样并完成的trace数
+     */
+    public long getSampledCount() {
+        return mSampledCount.get();
+    }
+
+    /**
+     * @return 超过阈值的trace总数，包括已经被环形缓冲区覆盖掉的
+     */
+    public long getSlowCount() {
+        return mSlowCount.get();
+    }
+}
@@ -0,0 +1,95 @@
+package com.cds.learn.common.alluxio;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量传输的进度和吞吐统计，多个线程可以同时更新。
+ */
+public class AlluxioTransferStats {
+
+    private final long mStartNanos = System.nanoTime();
+
+    private final AtomicLong mFilesTotal = new AtomicLong();
+
+    private final AtomicLong mFilesDone = new AtomicLong();
+
+    private final AtomicLong mFilesSkipped = new AtomicLong();
+
+    private final AtomicLong mFilesDeleted = new AtomicLong();
+
+    private final AtomicLong mBytes = new AtomicLong();
+
+    private volatile long mEndNanos;
+
+    void addFilesTotal(long files) {
+        mFilesTotal.addAndGet(files);
+    }
+
+    void fileDone() {
+        mFilesDone.incrementAndGet();
+    }
+
+    void fileSkipped() {
+        mFilesSkipped.incrementAndGet();
+    }
+
+    void fileDeleted() {
+        mFilesDeleted.incrementAndGet();
+    }
+
+    void addBytes(long bytes) {
+        mBytes.addAndGet(bytes);
+    }
+
+    void finish() {
+        mEndNanos = System.nanoTime();
+    }
+
+    public long getFilesTotal() {
+        return mFilesTotal.get();
+    }
+
+    public long getFilesDone() {
+        return mFilesDone.get();
+    }
+
+    /**
+     * @return 因为没有变化而跳过的文件数
+     */
+    public long getFilesSkipped() {
+        return mFilesSkipped.get();
+    }
+
+    /**
+     * @return 同步时因为源目录里已经没有而从目标删掉的文件和目录数
+     */
+    public long getFilesDeleted() {
+        return mFilesDeleted.get();
+    }
+
+    public long getBytes() {
+        return mBytes.get();
+    }
+
+    public long getElapsedMs() {
+        long end = mEndNanos == 0 ? System.nanoTime() : mEndNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - mStartNanos);
+    }
+
+    /**
+     * @return 从开始到现在（或者结束时）的平均吞吐，单位字节每秒
+     */
+    public double getBytesPerSecond() {
+        long end = mEndNanos == 0 ? System.nanoTime() : mEndNanos;
+        long elapsed = end - mStartNanos;
+        return elapsed <= 0 ? 0 : mBytes.get() * 1e9 / elapsed;
+    }
+
+    @Override public String toString() {
+        return "AlluxioTransferStats{files=" + getFilesDone() + "/" + getFilesTotal() + ", skipped="
+            + getFilesSkipped() + ", deleted=" + getFilesDeleted() + ", bytes=" + getBytes()
+            + ", elapsedMs=" + getElapsedMs() + ", MB/s="
+            + String.format("%.2f", getBytesPerSecond() / (1024 * 1024)) + "}";
+    }
+}
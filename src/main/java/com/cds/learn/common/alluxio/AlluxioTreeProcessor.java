@@ -0,0 +1,119 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.URIStatus;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 遍历一棵目录树，把挑出来的文件交给线程池处理，AlluxioSyncer和AlluxioChecksumVerifier共用。
+ * 遍历比处理快得多，排队的文件数有上限，遍历线程在这里等待，内存里不会堆积整棵树。
+ * 任何一个文件出错都会停止遍历，还在排队的任务直接跳过；返回或者抛出异常之前总会等已经开始的任务结束，
+ * 调用者返回之后不会再有任务在写目标。
+ */
+final class AlluxioTreeProcessor {
+
+
+    /**
+     * 对一个文件的处理
+     */
+    interface FileTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * 遍历时的回调，在遍历线程上调用，必须是线程安全的
+     */
+    interface FileVisitor {
+        /**
+         * @return 要交给线程池的处理，不需要处理时返回null
+         */
+        FileTask visit(URIStatus status, int depth) throws Exception;
+    }
+
+    private final AlluxioTemplate mTemplate;
+
+    private final int mWalkParallelism;
+
+    private final int mParallelism;
+
+    private final String mThreadPrefix;
+
+    /**
+     * @param template        用来遍历的模板
+     * @param walkParallelism 同时进行的listStatus的最大数目
+     * @param parallelism     同时处理的文件数
+     * @param threadPrefix    处理线程的名字前缀
+     */
+    AlluxioTreeProcessor(AlluxioTemplate template, int walkParallelism, int parallelism,
+        String threadPrefix) {
+        mTemplate = template;
+        mWalkParallelism = walkParallelism;
+        mParallelism = parallelism;
+        mThreadPrefix = threadPrefix;
+    }
+
+    /**
+     * @param root    起点路径
+     * @param visitor 挑出要处理的文件
+     * @throws Exception 遍历或者处理时遇到的第一个异常，处理时抛出的Error包装成ExecutionException
+     */
+    void run(String root, FileVisitor visitor) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(mParallelism,
+            AlluxioUtils.daemonThreadFactory(mThreadPrefix));
+        int permits = mParallelism * 2;
+        Semaphore inFlight = new Semaphore(permits);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        try {
+            new AlluxioTreeWalker(mTemplate, mWalkParallelism, AlluxioTreeWalker.UNLIMITED_DEPTH)
+                .walk(root, (status, depth) -> {
+                    if (error.get() != null) {
+                        throw error.get();
+                    }
+                    FileTask task = visitor.visit(status, depth);
+                    if (task != null) {
+                        inFlight.acquire();
+                        submit(executor, inFlight, error, task);
+                    }
+                    return true;
+                });
+        } catch (Exception e) {
+            // 排队的任务看到后直接返回
+            error.compareAndSet(null, e);
+        } finally {
+            // 不能直接shutdownNow返回：正在处理的任务会在调用者返回之后继续执行，
+            // 被丢掉的排队任务也不会归还许可
+            inFlight.acquireUninterruptibly(permits);
+            executor.shutdownNow();
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+    }
+
+    private static void submit(ExecutorService executor, Semaphore inFlight,
+        AtomicReference<Exception> error, FileTask task) {
+        try {
+            executor.execute(AlluxioIoScheduler.propagate(() -> {
+                try {
+                    if (error.get() == null) {
+                        task.run();
+                    }
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                } catch (Error e) {
+                    error.compareAndSet(null, new ExecutionException(e));
+                } finally {
+                    inFlight.release();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+}
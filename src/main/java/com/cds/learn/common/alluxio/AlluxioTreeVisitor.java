@@ -0,0 +1,15 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.URIStatus;
+
+/**
+ * 遍历目录树时的回调，会被多个线程同时调用，实现必须是线程安全的。
+ */
+public interface AlluxioTreeVisitor {
+    /**
+     * @param status 当前访问到的文件或者目录
+     * @param depth  相对于遍历起点的深度，起点本身是0
+     * @return 对目录返回false表示不再深入这个目录，对文件返回值会被忽略
+     */
+    boolean visit(URIStatus status, int depth) throws Exception;
+}
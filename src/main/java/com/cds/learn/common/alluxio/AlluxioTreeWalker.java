@@ -0,0 +1,121 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.URIStatus;
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 并行的目录树遍历。兄弟目录的listStatus会被同时发出，每拿到一层的结果就逐个交给visitor，
+ * 内存里只保留待遍历目录的路径，不会保存整棵树。
+ */
+public class AlluxioTreeWalker {
+
+    /**
+     * 不限制深度
+     */
+    public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+
+    private final AlluxioTemplate mTemplate;
+
+    private final int mParallelism;
+
+    private final int mMaxDepth;
+
+    /**
+     * @param template    用来发出listStatus的模板
+     * @param parallelism 同时进行的listStatus的最大数目
+     * @param maxDepth    最大遍历深度，起点是0，超过这个深度的目录不再展开
+     */
+    public AlluxioTreeWalker(AlluxioTemplate template, int parallelism, int maxDepth) {
+        Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        Preconditions.checkArgument(parallelism > 0, "parallelism should be positive!");
+        Preconditions.checkArgument(maxDepth >= 0, "maxDepth should not be negative!");
+        mTemplate = template;
+        mParallelism = parallelism;
+        mMaxDepth = maxDepth;
+    }
+
+    /**
+     * 从root开始遍历，遍历结束或者出错时返回。出错时不会再展开新的目录，等正在进行的listStatus结束后
+     * 抛出第一个异常，listStatus或者visitor抛出的Error包装成ExecutionException。
+     *
+     * @param root    起点路径，本身也会交给visitor
+     * @param visitor 回调，返回false可以剪掉一个目录
+     * @return 访问过的文件和目录数
+     * @throws Exception
+     */
+    public long walk(String root, AlluxioTreeVisitor visitor) throws Exception {
+        Preconditions.checkNotNull(visitor, "the visitor should not be null!");
+        URIStatus rootStatus = mTemplate.getStatus(root);
+        if (!visitor.visit(rootStatus, 0) || !rootStatus.isFolder() || mMaxDepth == 0) {
+            return 1;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(mParallelism,
+            AlluxioUtils.daemonThreadFactory("alluxio-walker"));
+        Walk walk = new Walk(executor, visitor);
+        try {
+            walk.submit(rootStatus.getPath(), 1);
+            walk.mDone.await();
+        } finally {
+            executor.shutdownNow();
+        }
+        if (walk.mError.get() != null) {
+            throw walk.mError.get();
+        }
+        return walk.mVisited.get() + 1;
+    }
+
+    private final class Walk {
+        private final ExecutorService mExecutor;
+        private final AlluxioTreeVisitor mVisitor;
+        private final AtomicLong mPending = new AtomicLong();
+        private final AtomicLong mVisited = new AtomicLong();
+        private final AtomicReference<Exception> mError = new AtomicReference<>();
+        private final CountDownLatch mDone = new CountDownLatch(1);
+
+        private Walk(ExecutorService executor, AlluxioTreeVisitor visitor) {
+            mExecutor = executor;
+            mVisitor = visitor;
+        }
+
+        private void submit(String dir, int depth) {
+            mPending.incrementAndGet();
+            mExecutor.execute(AlluxioIoScheduler.propagate(() -> {
+                try {
+                    if (mError.get() == null) {
+                        list(dir, depth);
+                    }
+                } catch (Throwable t) {
+                    // Error也要记下来，否则walk会正常返回一棵不完整的树
+                    mError.compareAndSet(null,
+                        t instanceof Exception ? (Exception) t : new ExecutionException(t));
+                } finally {
+                    if (mPending.decrementAndGet() == 0) {
+                        mDone.countDown();
+                    }
+                }
+            }));
+        }
+
+        private void list(String dir, int depth) throws Exception {
+            List<URIStatus> children = mTemplate.listStatus(dir);
+            for (URIStatus child : children) {
+                if (mError.get() != null) {
+                    return;
+                }
+                mVisited.incrementAndGet();
+                if (mVisitor.visit(child, depth) && child.isFolder() && depth < mMaxDepth) {
+                    submit(child.getPath(), depth + 1);
+                }
+            }
+        }
+    }
+}
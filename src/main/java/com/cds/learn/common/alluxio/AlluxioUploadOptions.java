@@ -0,0 +1,113 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.WriteType;
+import com.google.common.base.Preconditions;
+
+/**
+ * 本地文件上传到alluxio的参数。
+ */
+public final class AlluxioUploadOptions {
+
+    private int mParallelism = 8;
+
+    private long mBlockSizeBytes = 0;
+
+    private WriteType mWriteType = WriteType.CACHE_THROUGH;
+
+    private String mTargetWorker = AlluxioConsts.NON_SPECIFIED_WORKER;
+
+    private int mMapWindowBytes = 64 * 1024 * 1024;
+
+    private int mChunkSize = AlluxioConsts.DEFAULT_READ_BUFFER_SIZE;
+
+    private AlluxioProgressListener mProgressListener;
+
+    public static AlluxioUploadOptions defaults() {
+        return new AlluxioUploadOptions();
+    }
+
+    private AlluxioUploadOptions() {
+    }
+
+    public int getParallelism() {
+        return mParallelism;
+    }
+
+    /**
+     * @param parallelism 同时写的文件数
+     */
+    public AlluxioUploadOptions setParallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism should be positive!");
+        mParallelism = parallelism;
+        return this;
+    }
+
+    public long getBlockSizeBytes() {
+        return mBlockSizeBytes;
+    }
+
+    /**
+     * @param blockSizeBytes alluxio文件的块大小，0表示使用集群默认值
+     */
+    public AlluxioUploadOptions setBlockSizeBytes(long blockSizeBytes) {
+        Preconditions.checkArgument(blockSizeBytes >= 0, "blockSizeBytes should not be negative!");
+        mBlockSizeBytes = blockSizeBytes;
+        return this;
+    }
+
+    public WriteType getWriteType() {
+        return mWriteType;
+    }
+
+    public AlluxioUploadOptions setWriteType(WriteType writeType) {
+        mWriteType = Preconditions.checkNotNull(writeType);
+        return this;
+    }
+
+    public String getTargetWorker() {
+        return mTargetWorker;
+    }
+
+    /**
+     * @param targetWorker AlluxioConsts里的位置策略，或者一个worker的主机名
+     */
+    public AlluxioUploadOptions setTargetWorker(String targetWorker) {
+        mTargetWorker = Preconditions.checkNotNull(targetWorker);
+        return this;
+    }
+
+    public int getMapWindowBytes() {
+        return mMapWindowBytes;
+    }
+
+    /**
+     * @param mapWindowBytes 每次mmap本地文件的窗口大小
+     */
+    public AlluxioUploadOptions setMapWindowBytes(int mapWindowBytes) {
+        Preconditions.checkArgument(mapWindowBytes > 0, "mapWindowBytes should be positive!");
+        mMapWindowBytes = mapWindowBytes;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return mChunkSize;
+    }
+
+    /**
+     * @param chunkSize 每次写FileOutStream的字节数
+     */
+    public AlluxioUploadOptions setChunkSize(int chunkSize) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize should be positive!");
+        mChunkSize = chunkSize;
+        return this;
+    }
+
+    public AlluxioProgressListener getProgressListener() {
+        return mProgressListener;
+    }
+
+    public AlluxioUploadOptions setProgressListener(AlluxioProgressListener progressListener) {
+        mProgressListener = progressListener;
+        return this;
+    }
+}
@@ -0,0 +1,124 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileOutStream;
+import alluxio.client.file.options.CreateFileOptions;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 把本地的文件或者目录树并行上传到alluxio。本地文件按窗口mmap后分块写进FileOutStream，
+ * 多个文件同时写，以占满到集群的网络带宽。任何一个文件失败都会让整个上传失败。
+ */
+public class AlluxioUploader {
+
+
+    private final AlluxioTemplate mTemplate;
+
+    private final AlluxioUploadOptions mOptions;
+
+    public AlluxioUploader(AlluxioTemplate template, AlluxioUploadOptions options) {
+        mTemplate =
+            Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        mOptions = Preconditions.checkNotNull(options, "the upload options should not be null!");
+    }
+
+    /**
+     * @param localPath 本地文件或者目录
+     * @param dstPath   alluxio上的目标路径，localPath是目录时它下面的文件按相对路径放到dstPath下
+     * @return 上传的统计
+     * @throws Exception
+     */
+    public AlluxioTransferStats upload(Path localPath, String dstPath) throws Exception {
+        boolean isDirectory = Files.isDirectory(localPath);
+        List<Path> files;
+        if (isDirectory) {
+            try (Stream<Path> stream = Files.walk(localPath)) {
+                files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+        } else {
+            files = new ArrayList<>();
+            files.add(localPath);
+        }
+
+        AlluxioTransferStats stats = new AlluxioTransferStats();
+        stats.addFilesTotal(files.size());
+        ExecutorService executor = Executors.newFixedThreadPool(mOptions.getParallelism(),
+            AlluxioUtils.daemonThreadFactory("alluxio-upload"));
+        try {
+            List<Future<?>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                String dst = isDirectory ? join(dstPath, localPath, file) : dstPath;
+                futures.add(executor.submit(AlluxioIoScheduler.propagate(() -> {
+                    uploadFile(file, dst, stats);
+                    return null;
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            stats.finish();
+        }
+        return stats;
+    }
+
+    private void uploadFile(Path file, String dst, AlluxioTransferStats stats) throws Exception {
+        CreateFileOptions options =
+            mTemplate.writeOptions(dst, mOptions.getWriteType(), mOptions.getTargetWorker())
+                .setRecursive(true);
+        if (mOptions.getBlockSizeBytes() > 0) {
+            options.setBlockSizeBytes(mOptions.getBlockSizeBytes());
+        }
+        AlluxioBufferPool pool = mTemplate.getBufferPool();
+        ByteBuffer chunk = pool.acquire(mOptions.getChunkSize());
+        FileOutStream os = mTemplate.createFile(dst, options);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] bytes = chunk.array();
+            for (long position = 0; position < size; position += mOptions.getMapWindowBytes()) {
+                long window = Math.min(mOptions.getMapWindowBytes(), size - position);
+                MappedByteBuffer mapped =
+                    channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+                while (mapped.hasRemaining()) {
+                    int len = Math.min(bytes.length, mapped.remaining());
+                    mapped.get(bytes, 0, len);
+                    os.write(bytes, 0, len);
+                    stats.addBytes(len);
+                    mTemplate.recordBytesWritten(len);
+                }
+            }
+            os.close();
+        } catch (IOException | RuntimeException e) {
+            os.cancel();
+            throw e;
+        } finally {
+            pool.release(chunk);
+        }
+        stats.fileDone();
+        AlluxioProgressListener listener = mOptions.getProgressListener();
+        if (listener != null) {
+            listener.onProgress(dst, stats);
+        }
+    }
+
+    private static String join(String dstPath, Path root, Path file) {
+        String relative = root.relativize(file).toString().replace(file.getFileSystem()
+            .getSeparator(), "/");
+        return dstPath.endsWith("/") ? dstPath + relative : dstPath + "/" + relative;
+    }
+}
@@ -10,11 +10,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AlluxioUtils {
 
     private static final Logger LOG = LoggerFactory.getLogger(AlluxioUtils.class);
 
+    private static final ConcurrentMap<String, AtomicInteger> POOL_IDS = new ConcurrentHashMap<>();
+
     //如下都是日志没什么意思
     static public boolean outputEnable = true;
 
@@ -32,6 +39,10 @@ public class AlluxioUtils {
         }
     }
 
+    /**
+     * 不编码直接算出UTF-8编码后的字节数，和String#getBytes(UTF_8)的结果一致：
+     * 不成对的代理字符会被替换成'?'，算1个字节
+     */
     static public int utf8LenCounter(CharSequence sequence) {
         int count = 0;
         for (int i = 0, len = sequence.length(); i < len; i++) {
@@ -40,9 +51,12 @@ public class AlluxioUtils {
                 count++;
             } else if (ch <= 0x7FF) {
                 count += 2;
-            } else if (Character.isHighSurrogate(ch)) {
+            } else if (Character.isHighSurrogate(ch) && i + 1 < len && Character
+                .isLowSurrogate(sequence.charAt(i + 1))) {
                 count += 4;
                 ++i;
+            } else if (Character.isSurrogate(ch)) {
+                count++;
             } else {
                 count += 3;
             }
@@ -72,34 +86,90 @@ public class AlluxioUtils {
     }
 
 
-    static public class TimeMeasure {
+    /**
+     * 判断失败的调用值不值得重试。路径不存在、已经存在、路径非法、目录非空这些是确定性的错误，
+     * 重试也一样；IOException一般是连接断开或者master切换，过一会儿可能就好了。
+     * 熔断器打开时抛出的异常不重试。
+     */
+    public static boolean isRetryable(Exception exception) {
+        if (exception instanceof FileAlreadyExistsException
+            || exception instanceof InvalidPathException
+            || exception instanceof DirectoryNotEmptyException
+            || exception instanceof FileDoesNotExistException
+            || exception instanceof AlluxioCircuitOpenException) {
+            return false;
+        }
+        return exception instanceof IOException;
+    }
+
+    /**
+     * 模板内部线程池用的线程工厂：都是守护线程，不会拦着进程退出；
+     * 线程名是prefix-池编号-线程编号，同一个前缀的池依次编号
+     */
+    static ThreadFactory daemonThreadFactory(String prefix) {
+        String pool =
+            prefix + "-" + POOL_IDS.computeIfAbsent(prefix, p -> new AtomicInteger())
+                .incrementAndGet() + "-";
+        AtomicInteger threadId = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, pool + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+
+    /**
+     * 简单的秒表，用System.nanoTime计时。pause累加这一段的耗时，cont开始新的一段，
+     * getElapsedTime只读不改状态，可以多次调用。不是线程安全的。
+     *
+     * @deprecated 追踪模板内部的耗时请用AlluxioTracer
+     */
+    @Deprecated static public class TimeMeasure {
         private long m_startTime = 0;
-        private long m_endTime = 0;
         private long m_elapsedTime = 0;
+        private boolean m_running = false;
 
         public TimeMeasure() {
         }
 
         public void start() {
-            m_startTime = System.currentTimeMillis();
+            m_elapsedTime = 0;
+            m_startTime = System.nanoTime();
+            m_running = true;
         }
 
         public void pause() {
-            m_endTime = System.currentTimeMillis();
+            if (m_running) {
+                m_elapsedTime += System.nanoTime() - m_startTime;
+                m_running = false;
+            }
         }
 
         public void cont() {
-            m_elapsedTime += m_endTime - m_startTime;
-            m_startTime = System.currentTimeMillis();
+            if (!m_running) {
+                m_startTime = System.nanoTime();
+                m_running = true;
+            }
         }
 
         public void reset() {
-            m_startTime = m_endTime = m_elapsedTime = 0;
+            m_startTime = m_elapsedTime = 0;
+            m_running = false;
         }
 
+        /**
+         * @return 累计耗时，单位毫秒
+         */
         public long getElapsedTime() {
-            m_elapsedTime += m_endTime - m_startTime;
-            return m_elapsedTime;
+            return TimeUnit.NANOSECONDS.toMillis(getElapsedNanos());
+        }
+
+        /**
+         * @return 累计耗时，单位纳秒，正在计时的这一段也算在内
+         */
+        public long getElapsedNanos() {
+            return m_elapsedTime + (m_running ? System.nanoTime() - m_startTime : 0);
         }
     }
 }
@@ -0,0 +1,74 @@
+package com.cds.learn.common.alluxio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次校验的结果，多个线程可以同时更新。
+ */
+public class AlluxioVerifyResult {
+
+    private final AtomicLong mVerified = new AtomicLong();
+
+    private final AtomicLong mBytes = new AtomicLong();
+
+    private final Collection<String> mMismatched = new ConcurrentLinkedQueue<>();
+
+    private final Collection<String> mMissing = new ConcurrentLinkedQueue<>();
+
+    void verified(long bytes) {
+        mVerified.incrementAndGet();
+        mBytes.addAndGet(bytes);
+    }
+
+    void mismatched(String path) {
+        mMismatched.add(path);
+    }
+
+    void missing(String path) {
+        mMissing.add(path);
+    }
+
+    /**
+     * @return 校验通过的文件数
+     */
+    public long getVerified() {
+        return mVerified.get();
+    }
+
+    /**
+     * @return 校验通过的文件的总字节数
+     */
+    public long getBytes() {
+        return mBytes.get();
+    }
+
+    /**
+     * @return 重新算出的摘要和保存的不一致的文件
+     */
+    public List<String> getMismatched() {
+        return new ArrayList<>(mMismatched);
+    }
+
+    /**
+     * @return 没有摘要文件的文件
+     */
+    public List<String> getMissing() {
+        return new ArrayList<>(mMissing);
+    }
+
+    /**
+     * @return 没有不一致的文件，没有摘要的文件不算失败
+     */
+    public boolean isOk() {
+        return mMismatched.isEmpty();
+    }
+
+    @Override public String toString() {
+        return "AlluxioVerifyResult{verified=" + getVerified() + ", bytes=" + getBytes()
+            + ", mismatched=" + mMismatched.size() + ", missing=" + mMissing.size() + "}";
+    }
+}
@@ -0,0 +1,70 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.block.BlockWorkerInfo;
+import alluxio.client.file.policy.FileWriteLocationPolicy;
+import alluxio.wire.WorkerNetAddress;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按剩余容量加权随机放置：剩余空间越多的worker被选中的概率越大。剩余空间取自AlluxioWorkerStats的快照，
+ * 减去本客户端最近分配出去的块，所以不会像MostAvailableFirstPolicy那样在master更新之前
+ * 把所有块都写到同一个worker上。
+ */
+public class AlluxioWeightedPlacement implements AlluxioPlacementPolicy {
+
+    private final AlluxioWorkerStats mStats;
+
+    /**
+     * @param stats worker容量的缓存快照
+     */
+    public AlluxioWeightedPlacement(AlluxioWorkerStats stats) {
+        mStats = Preconditions.checkNotNull(stats, "the worker stats should not be null!");
+    }
+
+    @Override public FileWriteLocationPolicy policyFor(String path) {
+        return this::choose;
+    }
+
+    private WorkerNetAddress choose(Iterable<BlockWorkerInfo> workers, long blockSizeBytes) {
+        // 权重只取一次：快照可能在两次遍历之间刷新，按变了的权重选会越过总和
+        List<BlockWorkerInfo> snapshot = new ArrayList<>();
+        for (BlockWorkerInfo worker : workers) {
+            snapshot.add(worker);
+        }
+        long[] weights = new long[snapshot.size()];
+        long total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = weightOf(snapshot.get(i), blockSizeBytes);
+            total += weights[i];
+        }
+        if (total <= 0) {
+            return null;
+        }
+        long pick = ThreadLocalRandom.current().nextLong(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                BlockWorkerInfo worker = snapshot.get(i);
+                mStats.recordAssigned(AlluxioRoundRobinPlacement.keyOf(worker), blockSizeBytes);
+                return worker.getNetAddress();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 放下这个块之后还剩的空间，放不下时为0
+     */
+    private long weightOf(BlockWorkerInfo worker, long blockSizeBytes) {
+        long available = mStats.getAvailableBytes(AlluxioRoundRobinPlacement.keyOf(worker));
+        if (available < 0) {
+            // 快照里还没有这个新加入的worker
+            available = worker.getCapacityBytes() - worker.getUsedBytes();
+        }
+        return Math.max(0, available - blockSizeBytes);
+    }
+}
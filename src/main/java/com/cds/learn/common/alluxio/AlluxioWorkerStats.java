@@ -0,0 +1,115 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.block.AlluxioBlockStore;
+import alluxio.client.block.BlockWorkerInfo;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * worker容量和负载的缓存快照。快照定期从master刷新，两次刷新之间本客户端分配出去的块会累加到
+ * 对应worker的已用空间上，这样在master还没感知到之前，新的写也不会全都挤到同一个worker上。
+ */
+public class AlluxioWorkerStats {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlluxioWorkerStats.class);
+
+    /**
+     * 拉取worker列表，默认用AlluxioBlockStore
+     */
+    public interface Source {
+        List<BlockWorkerInfo> getWorkerInfoList() throws Exception;
+    }
+
+    private final Source mSource;
+
+    private final long mRefreshNanos;
+
+    private volatile Map<String, Long> mAvailable = new HashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> mAssigned = new ConcurrentHashMap<>();
+
+    private volatile long mRefreshedAt;
+
+    private volatile boolean mLoaded;
+
+    /**
+     * @param refreshMs 快照的有效期
+     */
+    public AlluxioWorkerStats(long refreshMs) {
+        this(() -> AlluxioBlockStore.get().getWorkerInfoList(), refreshMs);
+    }
+
+    /**
+     * @param source    worker列表的来源
+     * @param refreshMs 快照的有效期
+     */
+    public AlluxioWorkerStats(Source source, long refreshMs) {
+        Preconditions.checkNotNull(source, "the worker source should not be null!");
+        Preconditions.checkArgument(refreshMs > 0, "refreshMs should be positive!");
+        mSource = source;
+        mRefreshNanos = refreshMs * 1000000L;
+    }
+
+    /**
+     * @param worker worker的host:dataPort
+     * @return 估计的剩余字节数，快照里没有这个worker时返回-1
+     */
+    public long getAvailableBytes(String worker) {
+        refreshIfStale();
+        Long available = mAvailable.get(worker);
+        if (available == null) {
+            return -1;
+        }
+        AtomicLong assigned = mAssigned.get(worker);
+        return Math.max(0, available - (assigned == null ? 0 : assigned.get()));
+    }
+
+    /**
+     * 记录本客户端往worker上分配了一个块
+     */
+    public void recordAssigned(String worker, long bytes) {
+        mAssigned.computeIfAbsent(worker, key -> new AtomicLong()).addAndGet(bytes);
+    }
+
+    /**
+     * 立刻从master刷新快照，清掉累计的分配量
+     */
+    public synchronized void refresh() throws Exception {
+        Map<String, Long> available = new HashMap<>();
+        for (BlockWorkerInfo worker : mSource.getWorkerInfoList()) {
+            available.put(AlluxioRoundRobinPlacement.keyOf(worker),
+                worker.getCapacityBytes() - worker.getUsedBytes());
+        }
+        mAvailable = available;
+        mAssigned.clear();
+        mRefreshedAt = System.nanoTime();
+        mLoaded = true;
+    }
+
+    private void refreshIfStale() {
+        if (mLoaded && System.nanoTime() - mRefreshedAt < mRefreshNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (mLoaded && System.nanoTime() - mRefreshedAt < mRefreshNanos) {
+                return;
+            }
+            try {
+                refresh();
+            } catch (Exception e) {
+                // 继续用旧的快照，过一个周期再试
+                LOG.warn("failed to refresh the alluxio worker stats", e);
+                mRefreshedAt = System.nanoTime();
+                mLoaded = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.cds.learn.common.alluxio;
+
+import java.util.zip.Checksum;
+
+/**
+ * 流式的xxHash64，结果和官方实现一致。不足32字节的尾巴先攒在内部数组里，凑够一个stripe再处理，
+ * 所以任意切分的update序列得到的值都一样。比CRC32C快，但不是标准的存储校验和。
+ */
+public final class AlluxioXxHash64 implements Checksum {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long P3 = 0x165667B19E3779F9L;
+
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private final long mSeed;
+
+    private final byte[] mStripe = new byte[32];
+
+    private int mStripeSize;
+
+    private long mTotal;
+
+    private long mV1;
+
+    private long mV2;
+
+    private long mV3;
+
+    private long mV4;
+
+    public AlluxioXxHash64() {
+        this(0);
+    }
+
+    public AlluxioXxHash64(long seed) {
+        mSeed = seed;
+        reset();
+    }
+
+    @Override public void update(int b) {
+        mStripe[mStripeSize++] = (byte) b;
+        mTotal++;
+        if (mStripeSize == 32) {
+            stripe(mStripe, 0);
+            mStripeSize = 0;
+        }
+    }
+
+    @Override public void update(byte[] b, int off, int len) {
+        mTotal += len;
+        int end = off + len;
+        if (mStripeSize > 0) {
+            int fill = Math.min(32 - mStripeSize, len);
+            System.arraycopy(b, off, mStripe, mStripeSize, fill);
+            mStripeSize += fill;
+            off += fill;
+            if (mStripeSize < 32) {
+                return;
+            }
+            stripe(mStripe, 0);
+            mStripeSize = 0;
+        }
+        for (; off + 32 <= end; off += 32) {
+            stripe(b, off);
+        }
+        if (off < end) {
+            System.arraycopy(b, off, mStripe, 0, end - off);
+            mStripeSize = end - off;
+        }
+    }
+
+    @Override public long getValue() {
+        long h;
+        if (mTotal >= 32) {
+            h = Long.rotateLeft(mV1, 1) + Long.rotateLeft(mV2, 7) + Long.rotateLeft(mV3, 12)
+                + Long.rotateLeft(mV4, 18);
+            h = merge(h, mV1);
+            h = merge(h, mV2);
+            h = merge(h, mV3);
+            h = merge(h, mV4);
+        } else {
+            h = mSeed + P5;
+        }
+        h += mTotal;
+        int p = 0;
+        for (; p + 8 <= mStripeSize; p += 8) {
+            h ^= round(0, readLong(mStripe, p));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (p + 4 <= mStripeSize) {
+            h ^= (readInt(mStripe, p) & 0xffffffffL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            p += 4;
+        }
+        for (; p < mStripeSize; p++) {
+            h ^= (mStripe[p] & 0xff) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    @Override public void reset() {
+        mV1 = mSeed + P1 + P2;
+        mV2 = mSeed + P2;
+        mV3 = mSeed;
+        mV4 = mSeed - P1;
+        mTotal = 0;
+        mStripeSize = 0;
+    }
+
+    private void stripe(byte[] b, int off) {
+        mV1 = round(mV1, readLong(b, off));
+        mV2 = round(mV2, readLong(b, off + 8));
+        mV3 = round(mV3, readLong(b, off + 16));
+        mV4 = round(mV4, readLong(b, off + 24));
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long merge(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * P1 + P4;
+    }
+
+    private static long readLong(byte[] b, int off) {
+        return (readInt(b, off) & 0xffffffffL) | ((long) readInt(b, off + 4) << 32);
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16
+            | (b[off + 3] & 0xff) << 24;
+    }
+}
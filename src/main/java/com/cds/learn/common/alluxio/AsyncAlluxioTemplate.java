@@ -0,0 +1,825 @@
+package com.cds.learn.common.alluxio;
+
+import alluxio.client.file.FileInStream;
+import alluxio.client.file.FileOutStream;
+import alluxio.client.file.URIStatus;
+import alluxio.client.file.options.CreateDirectoryOptions;
+import alluxio.client.file.options.CreateFileOptions;
+import alluxio.client.file.options.DeleteOptions;
+import alluxio.client.file.options.ExistsOptions;
+import alluxio.client.file.options.FreeOptions;
+import alluxio.client.file.options.GetStatusOptions;
+import alluxio.client.file.options.ListStatusOptions;
+import alluxio.client.file.options.LoadMetadataOptions;
+import alluxio.client.file.options.MountOptions;
+import alluxio.client.file.options.OpenFileOptions;
+import alluxio.client.file.options.RenameOptions;
+import alluxio.client.file.options.SetAttributeOptions;
+import alluxio.client.file.options.UnmountOptions;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AlluxioTemplate的异步版本，每个操作都返回CompletableFuture。
+ * 同时执行的操作数受maxConcurrency限制，超出的操作在队列里排队，不会阻塞调用线程；
+ * 每个操作可以有超时，超时后future以TimeoutException结束，底层调用结束后才释放并发名额，
+ * 超时后才返回的流会被自动关闭。
+ */
+public class AsyncAlluxioTemplate implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAlluxioTemplate.class);
+
+    /**
+     * 不设置超时
+     */
+    public static final long NO_TIMEOUT = 0;
+
+
+    private final AlluxioTemplate mTemplate;
+
+    private final Executor mExecutor;
+
+    private final boolean mOwnsExecutor;
+
+    private final int mMaxConcurrency;
+
+    private final long mDefaultTimeoutMs;
+
+    private final AtomicInteger mRunning = new AtomicInteger();
+
+    private final Queue<Task<?>> mWaiting = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledThreadPoolExecutor mTimer;
+
+    /**
+     * 使用默认的executor：JDK支持虚拟线程时每个操作一个虚拟线程，否则使用线程池
+     *
+     * @param template       实际执行操作的模板
+     * @param maxConcurrency 同时执行的最大操作数
+     * @param defaultTimeoutMs 默认超时，单位毫秒，NO_TIMEOUT表示不超时
+     */
+    public AsyncAlluxioTemplate(AlluxioTemplate template, int maxConcurrency,
+        long defaultTimeoutMs) {
+        this(template, defaultExecutor(), true, maxConcurrency, defaultTimeoutMs);
+    }
+
+    /**
+     * @param template         实际执行操作的模板
+     * @param executor         执行操作的executor，由调用者负责关闭
+     * @param maxConcurrency   同时执行的最大操作数
+     * @param defaultTimeoutMs 默认超时，单位毫秒，NO_TIMEOUT表示不超时
+     */
+    public AsyncAlluxioTemplate(AlluxioTemplate template, Executor executor, int maxConcurrency,
+        long defaultTimeoutMs) {
+        this(template, executor, false, maxConcurrency, defaultTimeoutMs);
+    }
+
+    private AsyncAlluxioTemplate(AlluxioTemplate template, Executor executor, boolean ownsExecutor,
+        int maxConcurrency, long defaultTimeoutMs) {
+        Preconditions.checkNotNull(template, "the alluxio template should not be null!");
+        Preconditions.checkNotNull(executor, "the executor should not be null!");
+        Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency should be positive!");
+        Preconditions.checkArgument(defaultTimeoutMs >= 0, "timeout should not be negative!");
+        mTemplate = template;
+        mExecutor = executor;
+        mOwnsExecutor = ownsExecutor;
+        mMaxConcurrency = maxConcurrency;
+        mDefaultTimeoutMs = defaultTimeoutMs;
+        mTimer = new ScheduledThreadPoolExecutor(1,
+            AlluxioUtils.daemonThreadFactory("alluxio-async-timer"));
+        // 大部分操作在超时之前就结束了，取消的超时任务不能一直留在队列里
+        mTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * JDK 21以上用虚拟线程，否则用可伸缩的线程池，线程数受maxConcurrency限制
+     */
+    private static ExecutorService defaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("virtual threads are not available, fall back to a thread pool");
+            }
+            return Executors.newCachedThreadPool(AlluxioUtils.daemonThreadFactory("alluxio-async"));
+        }
+    }
+
+    public AlluxioTemplate getTemplate() {
+        return mTemplate;
+    }
+
+    /**
+     * @return 正在执行的操作数
+     */
+    public int getRunningCount() {
+        return mRunning.get();
+    }
+
+    /**
+     * @return 因为并发限制还在排队的操作数
+     */
+    public int getWaitingCount() {
+        return mWaiting.size();
+    }
+
+    public <T> CompletableFuture<T> executeAsync(AlluxioCallback<T> action) {
+        return executeAsync(action, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param action    在alluxio上执行的操作
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#execute(AlluxioCallback)
+     */
+    public <T> CompletableFuture<T> executeAsync(AlluxioCallback<T> action, long timeoutMs) {
+        Preconditions.checkNotNull(action, "the alluxio action should not be null!");
+        return submit(() -> mTemplate.execute(action), timeoutMs);
+    }
+
+    public CompletableFuture<Void> executeNoResultAsync(AlluxioNoResult action) {
+        return executeNoResultAsync(action, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#executeNoResult(AlluxioNoResult)
+     */
+    public CompletableFuture<Void> executeNoResultAsync(AlluxioNoResult action, long timeoutMs) {
+        Preconditions.checkNotNull(action, "the alluxio action should not be null!");
+        return submit(() -> {
+            mTemplate.executeNoResult(action);
+            return null;
+        }, timeoutMs);
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call, long timeoutMs) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = null;
+        if (timeoutMs > 0) {
+            try {
+                timeout = mTimer.schedule(() -> future.completeExceptionally(
+                    new TimeoutException("alluxio operation timed out after " + timeoutMs + " ms")),
+                    timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+                return future;
+            }
+        }
+        // 在提交的线程上取标签，执行的线程可能是之前为别的租户创建的
+        mWaiting.add(new Task<>(AlluxioIoScheduler.propagate(call), future, timeout));
+        drain();
+        return future;
+    }
+
+    /**
+     * 在不超过并发限制的前提下把排队的操作交给executor
+     */
+    private void drain() {
+        while (!mWaiting.isEmpty()) {
+            int running = mRunning.get();
+            if (running >= mMaxConcurrency) {
+                return;
+            }
+            if (!mRunning.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            Task<?> task = mWaiting.poll();
+            if (task == null) {
+                mRunning.decrementAndGet();
+                continue;
+            }
+            try {
+                mExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // 一般是executor已经关闭了，这个操作不会再执行
+                mRunning.decrementAndGet();
+                task.reject(e);
+            }
+        }
+    }
+
+    private static void closeQuietly(Object result) {
+        if (result instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) result).close();
+            } catch (Exception e) {
+                LOG.warn("failed to close the result of a timed out alluxio operation", e);
+            }
+        }
+    }
+
+    @Override public void close() {
+        mTimer.shutdownNow();
+        if (mOwnsExecutor) {
+            ((ExecutorService) mExecutor).shutdown();
+        }
+    }
+
+    /**
+     * 排队中的一个操作
+     */
+    private final class Task<T> implements Runnable {
+
+        private final Callable<T> mCall;
+
+        private final CompletableFuture<T> mFuture;
+
+        private final ScheduledFuture<?> mTimeout;
+
+        private Task(Callable<T> call, CompletableFuture<T> future, ScheduledFuture<?> timeout) {
+            mCall = call;
+            mFuture = future;
+            mTimeout = timeout;
+        }
+
+        @Override public void run() {
+            try {
+                if (!mFuture.isDone()) {
+                    T result = mCall.call();
+                    if (!mFuture.complete(result)) {
+                        closeQuietly(result);
+                    }
+                }
+            } catch (Throwable e) {
+                mFuture.completeExceptionally(e);
+            } finally {
+                cancelTimeout();
+                mRunning.decrementAndGet();
+                drain();
+            }
+        }
+
+        private void reject(RejectedExecutionException e) {
+            cancelTimeout();
+            mFuture.completeExceptionally(e);
+        }
+
+        private void cancelTimeout() {
+            if (mTimeout != null) {
+                mTimeout.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * @see AlluxioTemplate#createFile(String)
+     */
+    public CompletableFuture<FileOutStream> createFile(String path) {
+        return createFile(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#createFile(String)
+     */
+    public CompletableFuture<FileOutStream> createFile(String path, long timeoutMs) {
+        return submit(() -> mTemplate.createFile(path), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#createFile(String, CreateFileOptions)
+     */
+    public CompletableFuture<FileOutStream> createFile(String path, CreateFileOptions options) {
+        return createFile(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#createFile(String, CreateFileOptions)
+     */
+    public CompletableFuture<FileOutStream> createFile(String path, CreateFileOptions options,
+        long timeoutMs) {
+        return submit(() -> mTemplate.createFile(path, options), timeoutMs);
+    }
+
+    /**
+     * 需要单独的超时时，用setRecursive(true)的options调用createFile(String, CreateFileOptions, long)
+     *
+     * @see AlluxioTemplate#createFileRecursive(String)
+     */
+    public CompletableFuture<FileOutStream> createFileRecursive(String path) {
+        return submit(() -> mTemplate.createFileRecursive(path), mDefaultTimeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#createFileRecursive(String, long)
+     */
+    public CompletableFuture<FileOutStream> createFileRecursive(String path, long size) {
+        return createFileRecursive(path, size, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#createFileRecursive(String, long)
+     */
+    public CompletableFuture<FileOutStream> createFileRecursive(String path, long size,
+        long timeoutMs) {
+        return submit(() -> mTemplate.createFileRecursive(path, size), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#createDirectory(String)
+     */
+    public CompletableFuture<Void> createDirectory(String path) {
+        return createDirectory(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#createDirectory(String)
+     */
+    public CompletableFuture<Void> createDirectory(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.createDirectory(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#createDirectory(String, CreateDirectoryOptions)
+     */
+    public CompletableFuture<Void> createDirectory(String path, CreateDirectoryOptions options) {
+        return createDirectory(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#createDirectory(String, CreateDirectoryOptions)
+     */
+    public CompletableFuture<Void> createDirectory(String path, CreateDirectoryOptions options,
+        long timeoutMs) {
+        return submit(() -> {
+            mTemplate.createDirectory(path, options);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#createDirRecursive(String)
+     */
+    public CompletableFuture<Void> createDirRecursive(String path) {
+        return createDirRecursive(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#createDirRecursive(String)
+     */
+    public CompletableFuture<Void> createDirRecursive(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.createDirRecursive(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#delete(String)
+     */
+    public CompletableFuture<Void> delete(String path) {
+        return delete(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#delete(String)
+     */
+    public CompletableFuture<Void> delete(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.delete(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#delete(String, DeleteOptions)
+     */
+    public CompletableFuture<Void> delete(String path, DeleteOptions options) {
+        return delete(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#delete(String, DeleteOptions)
+     */
+    public CompletableFuture<Void> delete(String path, DeleteOptions options, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.delete(path, options);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#deleteRecursive(String)
+     */
+    public CompletableFuture<Void> deleteRecursive(String path) {
+        return deleteRecursive(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#deleteRecursive(String)
+     */
+    public CompletableFuture<Void> deleteRecursive(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.deleteRecursive(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#exists(String)
+     */
+    public CompletableFuture<Boolean> exists(String path) {
+        return exists(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#exists(String)
+     */
+    public CompletableFuture<Boolean> exists(String path, long timeoutMs) {
+        return submit(() -> mTemplate.exists(path), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#exists(String, ExistsOptions)
+     */
+    public CompletableFuture<Boolean> exists(String path, ExistsOptions options) {
+        return exists(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#exists(String, ExistsOptions)
+     */
+    public CompletableFuture<Boolean> exists(String path, ExistsOptions options, long timeoutMs) {
+        return submit(() -> mTemplate.exists(path, options), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#free(String)
+     */
+    public CompletableFuture<Void> free(String path) {
+        return free(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#free(String)
+     */
+    public CompletableFuture<Void> free(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.free(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#free(String, FreeOptions)
+     */
+    public CompletableFuture<Void> free(String path, FreeOptions options) {
+        return free(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#free(String, FreeOptions)
+     */
+    public CompletableFuture<Void> free(String path, FreeOptions options, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.free(path, options);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#freeRecursive(String)
+     */
+    public CompletableFuture<Void> freeRecursive(String path) {
+        return freeRecursive(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#freeRecursive(String)
+     */
+    public CompletableFuture<Void> freeRecursive(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.freeRecursive(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#getStatus(String)
+     */
+    public CompletableFuture<URIStatus> getStatus(String path) {
+        return getStatus(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#getStatus(String)
+     */
+    public CompletableFuture<URIStatus> getStatus(String path, long timeoutMs) {
+        return submit(() -> mTemplate.getStatus(path), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#getStatus(String, GetStatusOptions)
+     */
+    public CompletableFuture<URIStatus> getStatus(String path, GetStatusOptions options) {
+        return getStatus(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#getStatus(String, GetStatusOptions)
+     */
+    public CompletableFuture<URIStatus> getStatus(String path, GetStatusOptions options,
+        long timeoutMs) {
+        return submit(() -> mTemplate.getStatus(path, options), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#listStatus(String)
+     */
+    public CompletableFuture<List<URIStatus>> listStatus(String path) {
+        return listStatus(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#listStatus(String)
+     */
+    public CompletableFuture<List<URIStatus>> listStatus(String path, long timeoutMs) {
+        return submit(() -> mTemplate.listStatus(path), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#listStatus(String, ListStatusOptions)
+     */
+    public CompletableFuture<List<URIStatus>> listStatus(String path, ListStatusOptions options) {
+        return listStatus(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#listStatus(String, ListStatusOptions)
+     */
+    public CompletableFuture<List<URIStatus>> listStatus(String path, ListStatusOptions options,
+        long timeoutMs) {
+        return submit(() -> mTemplate.listStatus(path, options), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#loadMetadata(String)
+     */
+    public CompletableFuture<Void> loadMetadata(String path) {
+        return loadMetadata(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#loadMetadata(String)
+     */
+    public CompletableFuture<Void> loadMetadata(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.loadMetadata(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#loadMetadata(String, LoadMetadataOptions)
+     */
+    public CompletableFuture<Void> loadMetadata(String path, LoadMetadataOptions options) {
+        return loadMetadata(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#loadMetadata(String, LoadMetadataOptions)
+     */
+    public CompletableFuture<Void> loadMetadata(String path, LoadMetadataOptions options,
+        long timeoutMs) {
+        return submit(() -> {
+            mTemplate.loadMetadata(path, options);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#loadMetadataRecursive(String)
+     */
+    public CompletableFuture<Void> loadMetadataRecursive(String path) {
+        return loadMetadataRecursive(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#loadMetadataRecursive(String)
+     */
+    public CompletableFuture<Void> loadMetadataRecursive(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.loadMetadataRecursive(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#mount(String, String)
+     */
+    public CompletableFuture<Void> mount(String alluxioPath, String ufsPath) {
+        return mount(alluxioPath, ufsPath, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#mount(String, String)
+     */
+    public CompletableFuture<Void> mount(String alluxioPath, String ufsPath, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.mount(alluxioPath, ufsPath);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#mount(String, String, MountOptions)
+     */
+    public CompletableFuture<Void> mount(String alluxioPath, String ufsPath, MountOptions options) {
+        return mount(alluxioPath, ufsPath, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#mount(String, String, MountOptions)
+     */
+    public CompletableFuture<Void> mount(String alluxioPath, String ufsPath, MountOptions options,
+        long timeoutMs) {
+        return submit(() -> {
+            mTemplate.mount(alluxioPath, ufsPath, options);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#openFile(String)
+     */
+    public CompletableFuture<FileInStream> openFile(String path) {
+        return openFile(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#openFile(String)
+     */
+    public CompletableFuture<FileInStream> openFile(String path, long timeoutMs) {
+        return submit(() -> mTemplate.openFile(path), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#openFile(String, OpenFileOptions)
+     */
+    public CompletableFuture<FileInStream> openFile(String path, OpenFileOptions options) {
+        return openFile(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#openFile(String, OpenFileOptions)
+     */
+    public CompletableFuture<FileInStream> openFile(String path, OpenFileOptions options,
+        long timeoutMs) {
+        return submit(() -> mTemplate.openFile(path, options), timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#rename(String, String)
+     */
+    public CompletableFuture<Void> rename(String src, String dst) {
+        return rename(src, dst, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#rename(String, String)
+     */
+    public CompletableFuture<Void> rename(String src, String dst, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.rename(src, dst);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#rename(String, String, RenameOptions)
+     */
+    public CompletableFuture<Void> rename(String src, String dst, RenameOptions options) {
+        return rename(src, dst, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#rename(String, String, RenameOptions)
+     */
+    public CompletableFuture<Void> rename(String src, String dst, RenameOptions options,
+        long timeoutMs) {
+        return submit(() -> {
+            mTemplate.rename(src, dst, options);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#setAttribute(String)
+     */
+    public CompletableFuture<Void> setAttribute(String path) {
+        return setAttribute(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#setAttribute(String)
+     */
+    public CompletableFuture<Void> setAttribute(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.setAttribute(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#setAttribute(String, SetAttributeOptions)
+     */
+    public CompletableFuture<Void> setAttribute(String path, SetAttributeOptions options) {
+        return setAttribute(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#setAttribute(String, SetAttributeOptions)
+     */
+    public CompletableFuture<Void> setAttribute(String path, SetAttributeOptions options,
+        long timeoutMs) {
+        return submit(() -> {
+            mTemplate.setAttribute(path, options);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#unmount(String)
+     */
+    public CompletableFuture<Void> unmount(String path) {
+        return unmount(path, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#unmount(String)
+     */
+    public CompletableFuture<Void> unmount(String path, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.unmount(path);
+            return null;
+        }, timeoutMs);
+    }
+
+    /**
+     * @see AlluxioTemplate#unmount(String, UnmountOptions)
+     */
+    public CompletableFuture<Void> unmount(String path, UnmountOptions options) {
+        return unmount(path, options, mDefaultTimeoutMs);
+    }
+
+    /**
+     * @param timeoutMs 这次调用的超时，单位毫秒，NO_TIMEOUT表示不超时
+     * @see AlluxioTemplate#unmount(String, UnmountOptions)
+     */
+    public CompletableFuture<Void> unmount(String path, UnmountOptions options, long timeoutMs) {
+        return submit(() -> {
+            mTemplate.unmount(path, options);
+            return null;
+        }, timeoutMs);
+    }
+}